@@ -0,0 +1,98 @@
+package com.ecom.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Bytes per storefront listing page: one 12-item page serialized the way /products/feed sends it,
+ * as full Product entities versus the ProductSummary rows listings use now.
+ *
+ * The JSON size of each page is printed at setup. main() adds the GC profiler, whose
+ * gc.alloc.rate.norm is the heap allocated per serialized page.
+ *
+ * Compiled only with the jmh profile: run main() from the test classpath after mvn -Pjmh test-compile.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ListingPageBenchmark {
+
+	static final int PAGE_SIZE = 12;
+
+	private final JsonMapper mapper = JsonMapper.builder().build();
+
+	private List<Product> products;
+	private List<ProductSummary> summaries;
+
+	@Setup
+	public void setUp() {
+		products = page();
+		summaries = products.stream().map(ProductSummary::of).toList();
+		int productBytes = mapper.writeValueAsBytes(products).length;
+		int summaryBytes = mapper.writeValueAsBytes(summaries).length;
+		System.out.printf("%n%d-item page: Product %,d bytes, ProductSummary %,d bytes (%.1fx smaller)%n", PAGE_SIZE,
+				productBytes, summaryBytes, (double) productBytes / summaryBytes);
+	}
+
+	@Benchmark
+	public byte[] productPage() {
+		return mapper.writeValueAsBytes(products);
+	}
+
+	@Benchmark
+	public byte[] summaryPage() {
+		return mapper.writeValueAsBytes(summaries);
+	}
+
+	/** Products shaped like the admin form fills them: long description, a few screenshots. */
+	static List<Product> page() {
+		List<Product> page = new ArrayList<>(PAGE_SIZE);
+		for (int i = 1; i <= PAGE_SIZE; i++) {
+			Product product = new Product();
+			product.setId(i);
+			product.setTitle("Game Title " + i + ": The Definitive Edition");
+			product.setCategory(i % 2 == 0 ? "Action" : "เกมผจญภัย");
+			product.setPrice(990.0);
+			product.setDiscount(25);
+			product.setDiscountPrice(742.5);
+			product.setImage("https://petverse-cart-products.s3.ap-southeast-1.amazonaws.com/cover-" + i + ".jpg");
+			product.setIsActive(true);
+			product.setDescription("An open-world adventure with a branching story. ".repeat(40));
+			List<String> screenshots = new ArrayList<>();
+			for (int s = 1; s <= 6; s++) {
+				screenshots.add("https://petverse-cart-products.s3.ap-southeast-1.amazonaws.com/shot-" + i + "-" + s + ".jpg");
+			}
+			product.setImages(String.join(",", screenshots));
+			product.setDownloadLink("https://downloads.example.com/games/" + i);
+			product.setFileSize("45.5 GB");
+			product.setGameFilePath("uploads/game_files/game-" + i + ".zip");
+			page.add(product);
+		}
+		return page;
+	}
+
+	public static void main(String[] args) throws Exception {
+		new Runner(new OptionsBuilder().include(ListingPageBenchmark.class.getSimpleName()).addProfiler(GCProfiler.class)
+				.build()).run();
+	}
+}
@@ -0,0 +1,97 @@
+package com.ecom.service;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.core.io.Resource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.ecom.service.EasySlipClient.ApiResponse;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Client-side cost of one EasySlipClient.verify() round trip (multipart encoding, connection
+ * reuse, JSON decoding, bulkhead and breaker bookkeeping) against a stub server on localhost
+ * that answers immediately.
+ *
+ * Compiled only with the jmh profile: run main() from the test classpath after mvn -Pjmh test-compile.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EasySlipClientBenchmark {
+
+	private static final String OK_BODY = "{\"status\":200,\"data\":{\"transRef\":\"TX123\",\"amount\":{\"amount\":150.5}}}";
+
+	private HttpServer server;
+	private ExecutorService serverThreads;
+	private EasySlipClient client;
+	private Resource slip;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/verify", exchange -> {
+			exchange.getRequestBody().readAllBytes();
+			EasySlipClientTest.respond(exchange, 200, OK_BODY);
+			exchange.close();
+		});
+		serverThreads = Executors.newFixedThreadPool(8);
+		server.setExecutor(serverThreads);
+		server.start();
+
+		client = new EasySlipClient();
+		ReflectionTestUtils.setField(client, "apiUrl", "http://127.0.0.1:" + server.getAddress().getPort() + "/verify");
+		ReflectionTestUtils.setField(client, "apiKey", "bench-key");
+		ReflectionTestUtils.setField(client, "connectTimeoutMs", 2_000L);
+		ReflectionTestUtils.setField(client, "readTimeoutMs", 10_000L);
+		ReflectionTestUtils.setField(client, "maxConcurrent", 8);
+		ReflectionTestUtils.setField(client, "bulkheadWaitMs", 500L);
+		ReflectionTestUtils.setField(client, "failureThreshold", 5);
+		ReflectionTestUtils.setField(client, "openMs", 30_000L);
+		client.init();
+		slip = EasySlipClientTest.slip();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		server.stop(0);
+		serverThreads.shutdownNow();
+	}
+
+	@Benchmark
+	@Threads(1)
+	public ApiResponse verify() {
+		return client.verify(slip);
+	}
+
+	@Benchmark
+	@Threads(8)
+	public ApiResponse verifyConcurrent() {
+		return client.verify(slip);
+	}
+
+	public static void main(String[] args) throws Exception {
+		new Runner(new OptionsBuilder().include(EasySlipClientBenchmark.class.getSimpleName()).build()).run();
+	}
+}
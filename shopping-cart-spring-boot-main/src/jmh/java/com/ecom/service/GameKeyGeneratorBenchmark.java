@@ -0,0 +1,100 @@
+package com.ecom.service;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.ecom.model.SiteSetting;
+import com.ecom.repository.SiteSettingRepository;
+
+/**
+ * Checkout-path cost of GameKeyGenerator.nextKey(), single-threaded and under contention.
+ * The counter row lives in memory, so this measures the permutation, the block switches and
+ * the SecureRandom suffix, not the database.
+ *
+ * Compiled only with the jmh profile: run main() from the test classpath after mvn -Pjmh test-compile.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GameKeyGeneratorBenchmark {
+
+	@Param({ "100", "1000" })
+	long blockSize;
+
+	private GameKeyGenerator generator;
+
+	@Setup
+	public void setUp() {
+		Map<String, SiteSetting> settings = new ConcurrentHashMap<>();
+		SiteSettingRepository repository = mock(SiteSettingRepository.class);
+		when(repository.findByKey(anyString()))
+				.thenAnswer(invocation -> Optional.ofNullable(settings.get(invocation.<String>getArgument(0))));
+		when(repository.findByKeyForUpdate(anyString()))
+				.thenAnswer(invocation -> Optional.ofNullable(settings.get(invocation.<String>getArgument(0))));
+		when(repository.save(any(SiteSetting.class))).thenAnswer(invocation -> {
+			SiteSetting setting = invocation.getArgument(0);
+			settings.put(setting.getKey(), setting);
+			return setting;
+		});
+		when(repository.saveAndFlush(any(SiteSetting.class))).thenAnswer(invocation -> {
+			SiteSetting setting = invocation.getArgument(0);
+			settings.put(setting.getKey(), setting);
+			return setting;
+		});
+
+		generator = new GameKeyGenerator();
+		ReflectionTestUtils.setField(generator, "siteSettingRepository", repository);
+		ReflectionTestUtils.setField(generator, "transactionManager", mock(PlatformTransactionManager.class));
+		ReflectionTestUtils.setField(generator, "blockSize", blockSize);
+		generator.afterSingletonsInstantiated();
+	}
+
+	@TearDown
+	public void tearDown() {
+		generator.shutdown();
+	}
+
+	@Benchmark
+	@Threads(1)
+	public String nextKey() {
+		return generator.nextKey();
+	}
+
+	@Benchmark
+	@Threads(8)
+	public String nextKeyContended() {
+		return generator.nextKey();
+	}
+
+	public static void main(String[] args) throws Exception {
+		new Runner(new OptionsBuilder().include(GameKeyGeneratorBenchmark.class.getSimpleName()).build()).run();
+	}
+}
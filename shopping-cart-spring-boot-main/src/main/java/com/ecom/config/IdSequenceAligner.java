@@ -0,0 +1,61 @@
+package com.ecom.config;
+
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+/**
+ * Moves the pooled id sequences past the ids that already exist.
+ *
+ * ProductOrder and GameLibrary used to be IDENTITY columns. On MySQL, Hibernate emulates their
+ * new sequences with a one-row table that starts at 1, so on an existing database the first
+ * batch of ids would collide with old rows. With the pooled optimizer the stored value is the
+ * upper bound of the next block, so it has to be at least max(id) + allocationSize + 1.
+ * Runs once all beans exist, before the web server starts taking requests.
+ */
+@Component
+public class IdSequenceAligner implements SmartInitializingSingleton {
+
+	private static final Logger log = LoggerFactory.getLogger(IdSequenceAligner.class);
+
+	private static final int ALLOCATION_SIZE = 50;
+
+	/** sequence table -> entity table */
+	private static final Map<String, String> SEQUENCES = Map.of(
+			"product_order_seq", "product_order",
+			"game_library_seq", "game_library");
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Override
+	public void afterSingletonsInstantiated() {
+		TransactionTemplate tx = new TransactionTemplate(transactionManager);
+		SEQUENCES.forEach((sequence, table) -> {
+			try {
+				Integer updated = tx.execute(status -> entityManager.createNativeQuery(
+						"UPDATE " + sequence + " SET next_val = (SELECT COALESCE(MAX(id), 0) + " + (ALLOCATION_SIZE + 1)
+								+ " FROM " + table + ") WHERE next_val <= (SELECT COALESCE(MAX(id), 0) + "
+								+ ALLOCATION_SIZE + " FROM " + table + ")")
+						.executeUpdate());
+				if (updated != null && updated > 0) {
+					log.info("Aligned id sequence {} with existing rows in {}", sequence, table);
+				}
+			} catch (Exception e) {
+				log.warn("Could not align id sequence {}: {}", sequence, e.getMessage());
+			}
+		});
+	}
+}
@@ -2,6 +2,7 @@ package com.ecom.controller;
 
 import java.security.Principal;
 import java.util.List;
+import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Controller;
@@ -11,11 +12,13 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
 
 import com.ecom.model.Post;
 import com.ecom.model.UserDtls;
 import com.ecom.repository.UserRepository;
 import com.ecom.service.CommunityService;
+import com.ecom.service.NotificationDispatcher;
 
 import org.springframework.data.domain.Page;
 
@@ -31,6 +34,9 @@ public class AdminCommunityController {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private NotificationDispatcher notificationDispatcher;
+
     @GetMapping
     public String getAllPosts(Model model, Principal principal,
             @RequestParam(name = "pageNo", defaultValue = "0") Integer pageNo,
@@ -54,6 +60,15 @@ public class AdminCommunityController {
         return "admin/community";
     }
 
+    /**
+     * Notification outbox delivery metrics (AJAX)
+     */
+    @GetMapping("/notification-metrics")
+    @ResponseBody
+    public Map<String, Object> getNotificationMetrics() {
+        return notificationDispatcher.getMetrics();
+    }
+
     // Delete post
     @PostMapping("/post/{postId}/delete")
     public String deletePost(@PathVariable Long postId, Principal principal, HttpSession session) {
@@ -10,6 +10,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
@@ -32,14 +33,23 @@ import com.ecom.model.AdminLog;
 import com.ecom.model.Category;
 import com.ecom.model.Product;
 import com.ecom.model.ProductOrder;
+import com.ecom.model.ProductSummary;
 import com.ecom.model.UserDtls;
 import com.ecom.service.AdminLogService;
-import com.ecom.service.CartService;
+import com.ecom.service.CatalogCache;
 import com.ecom.service.CategoryService;
+import com.ecom.service.CurrentUserContext;
+import com.ecom.service.DashboardMetrics;
+import com.ecom.service.EasySlipService;
 import com.ecom.service.FileService;
+import com.ecom.service.MailService;
 import com.ecom.service.OrderService;
+import com.ecom.service.OwnedGamesCache;
+import com.ecom.service.ProductPageCache;
 import com.ecom.service.ProductService;
 import com.ecom.service.SiteSettingService;
+import com.ecom.service.UnreadNotificationCounter;
+import com.ecom.service.UserCache;
 import com.ecom.service.UserService;
 import com.ecom.service.WalletService;
 import com.ecom.util.BucketType;
@@ -64,7 +74,7 @@ public class AdminController {
 	private UserService userService;
 
 	@Autowired
-	private CartService cartService;
+	private CurrentUserContext currentUser;
 
 	@Autowired
 	private OrderService orderService;
@@ -87,6 +97,30 @@ public class AdminController {
 	@Autowired
 	private WalletService walletService;
 
+	@Autowired
+	private EasySlipService easySlipService;
+
+	@Autowired
+	private DashboardMetrics dashboardMetrics;
+
+	@Autowired
+	private CatalogCache catalogCache;
+
+	@Autowired
+	private UserCache userCache;
+
+	@Autowired
+	private ProductPageCache productPageCache;
+
+	@Autowired
+	private OwnedGamesCache ownedGamesCache;
+
+	@Autowired
+	private MailService mailService;
+
+	@Autowired
+	private UnreadNotificationCounter unreadNotificationCounter;
+
 
 
 	// Consider adding more specific exception handling
@@ -125,6 +159,87 @@ public class AdminController {
 	    return response;
 	}
 
+	/**
+	 * Top-up verification queue metrics (AJAX)
+	 */
+	@GetMapping("/wallet/topup-metrics")
+	@ResponseBody
+	public Map<String, Object> getTopUpMetrics() {
+	    return walletService.getTopUpPipelineMetrics();
+	}
+
+	/**
+	 * EasySlip HTTP client metrics (AJAX)
+	 */
+	@GetMapping("/wallet/easyslip-metrics")
+	@ResponseBody
+	public Map<String, Object> getEasySlipMetrics() {
+	    return easySlipService.getClientMetrics();
+	}
+
+	/**
+	 * Wallet transfer lock contention metrics (AJAX)
+	 */
+	@GetMapping("/wallet/transfer-metrics")
+	@ResponseBody
+	public Map<String, Object> getTransferMetrics() {
+	    return walletService.getTransferMetrics();
+	}
+
+	/**
+	 * Storefront catalog cache hit/miss metrics (AJAX)
+	 */
+	@GetMapping("/catalog/cache-metrics")
+	@ResponseBody
+	public Map<String, Object> getCatalogCacheMetrics() {
+	    return catalogCache.getMetrics();
+	}
+
+	/**
+	 * Logged-in user cache hit/miss metrics (AJAX)
+	 */
+	@GetMapping("/users/cache-metrics")
+	@ResponseBody
+	public Map<String, Object> getUserCacheMetrics() {
+	    return userCache.getMetrics();
+	}
+
+	/**
+	 * Product page fragment cache hit/render metrics (AJAX)
+	 */
+	@GetMapping("/catalog/page-cache-metrics")
+	@ResponseBody
+	public Map<String, Object> getProductPageCacheMetrics() {
+	    return productPageCache.getMetrics();
+	}
+
+	/**
+	 * Per-user owned games cache hit/miss metrics (AJAX)
+	 */
+	@GetMapping("/users/library-cache-metrics")
+	@ResponseBody
+	public Map<String, Object> getOwnedGamesCacheMetrics() {
+	    return ownedGamesCache.getMetrics();
+	}
+
+	/**
+	 * Unread notification counter hit/miss/push metrics (AJAX)
+	 */
+	@GetMapping("/users/unread-count-metrics")
+	@ResponseBody
+	public Map<String, Object> getUnreadCountMetrics() {
+	    return unreadNotificationCounter.getMetrics();
+	}
+
+	/**
+	 * Outgoing mail queue and throughput metrics (AJAX)
+	 */
+	@GetMapping("/mail/queue-metrics")
+	@ResponseBody
+	public Map<String, Object> getMailQueueMetrics() {
+	    return mailService.getMetrics();
+	}
+
 	/**
 	 * Get current image mode (AJAX)
 	 */
@@ -231,11 +346,8 @@ public class AdminController {
 	@ModelAttribute
 	public void getUserDetails(Principal p, Model m) {
 		if (p != null) {
-			String email = p.getName();
-			UserDtls userDtls = userService.getUserByEmail(email);
-			m.addAttribute("user", userDtls);
-			Integer countCart = cartService.getCountCart(userDtls.getId());
-			m.addAttribute("countCart", countCart);
+			m.addAttribute("user", currentUser.getUser(p));
+			m.addAttribute("countCart", currentUser.getCartCount(p));
 		}
 
 		List<Category> allActiveCategory = categoryService.getAllActiveCategory();
@@ -452,7 +564,7 @@ public class AdminController {
 	        pageSize = 50;
 	    }
 
-	    Page<Product> page = null;
+	    Page<ProductSummary> page = null;
 	    if (ch != null && ch.length() > 0) {
 	        page = productService.searchProductPagination(pageNo, pageSize, ch);
 	    } else {
@@ -460,34 +572,24 @@ public class AdminController {
 	    }
 
 	    // Calculate statistics efficiently
-	    List<Product> products = page.getContent();
-	    long activeProductsCount = products.stream().filter(Product::getIsActive).count();
+	    List<ProductSummary> products = page.getContent();
+	    long activeProductsCount = products.stream().filter(ProductSummary::getIsActive).count();
 
 
-	    // Check if each product has orders and create a map for the template
+	    // Order counts for the whole page in one grouped query; products with orders cannot be deleted
+	    List<Integer> productIds = products.stream().map(ProductSummary::getId).filter(Objects::nonNull).toList();
+	    Map<Integer, Long> orderCounts = orderService.getOrderCountsByProduct(productIds);
 	    Map<Integer, Boolean> productOrdersMap = new HashMap<>();
-	    for (Product product : products) {
-	        try {
-	            if (product.getId() != null) {
-	                List<ProductOrder> orders = orderService.getOrdersByProduct(product.getId());
-	                boolean hasOrders = orders != null && !orders.isEmpty();
-	                productOrdersMap.put(product.getId(), hasOrders);
-	                
-	                System.out.println("Product " + product.getId() + 
-	                                 " has " + (orders != null ? orders.size() : 0) + " orders. Has orders: " + hasOrders);
-	            } else {
-	                System.out.println("⚠️  Product with NULL ID found: " + product.getTitle());
-	                productOrdersMap.put(0, false); // fallback
-	            }
-	        } catch (Exception e) {
-	            System.out.println("❌ Error checking orders for product " + product.getId() + ": " + e.getMessage());
-	            productOrdersMap.put(product.getId(), false); // safe fallback
-	        }
+	    Map<Integer, Long> productSalesMap = new HashMap<>();
+	    for (Integer productId : productIds) {
+	        productOrdersMap.put(productId, orderCounts.getOrDefault(productId, 0L) > 0);
+	        productSalesMap.put(productId, dashboardMetrics.getProductSales(productId));
 	    }
 
 	    // Add attributes for the view
 	    m.addAttribute("products", products);
 	    m.addAttribute("productOrdersMap", productOrdersMap);
+	    m.addAttribute("productSalesMap", productSalesMap);
 	    m.addAttribute("activeProductsCount", activeProductsCount);
 	    m.addAttribute("pageNo", page.getNumber());
 	    m.addAttribute("pageSize", pageSize);
@@ -848,9 +950,8 @@ public class AdminController {
 	@GetMapping("/")
 	public String index(Model m) {
 	    try {
-	        List<UserDtls> allUsers = userService.getUsers("ROLE_USER");
-	        m.addAttribute("totalUsers", allUsers.size());
-	        m.addAttribute("totalProduct", productService.getAllProducts().size());
+	        m.addAttribute("totalUsers", dashboardMetrics.getUserCount());
+	        m.addAttribute("totalProduct", dashboardMetrics.getProductCount());
 	        m.addAttribute("totalOrders", orderService.getCountOrders());
 	        m.addAttribute("totalCategory", categoryService.getAllActiveCategory().size());
 	        
@@ -18,6 +18,7 @@ import com.ecom.model.Post;
 import com.ecom.model.UserDtls;
 import com.ecom.repository.UserRepository;
 import com.ecom.service.CommunityService;
+import com.ecom.service.CommunityService.FeedPage;
 
 import jakarta.servlet.http.HttpSession;
 
@@ -32,13 +33,21 @@ public class CommunityController {
     private UserRepository userRepository;
 
     @GetMapping
-    public String community(Model model, Principal principal) {
+    public String community(Model model, Principal principal,
+            @RequestParam(value = "cursor", required = false) String cursor) {
         String email = principal.getName();
         UserDtls user = userRepository.findByEmail(email);
         model.addAttribute("user", user);
 
-        List<Post> posts = communityService.getAllPosts();
-        model.addAttribute("posts", posts);
+        FeedPage feed;
+        try {
+            feed = communityService.getFeed(user, cursor);
+        } catch (IllegalArgumentException e) {
+            return "redirect:/user/community";
+        }
+        model.addAttribute("posts", feed.getPosts());
+        model.addAttribute("nextCursor", feed.getNextCursor());
+        model.addAttribute("olderPage", cursor != null && !cursor.isBlank());
 
         return "user/community";
     }
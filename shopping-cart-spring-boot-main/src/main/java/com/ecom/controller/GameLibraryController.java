@@ -15,11 +15,10 @@ import org.springframework.web.bind.annotation.PathVariable;
 import com.ecom.model.Category;
 import com.ecom.model.GameLibrary;
 import com.ecom.model.UserDtls;
-import com.ecom.service.CartService;
 import com.ecom.service.CategoryService;
+import com.ecom.service.CurrentUserContext;
 import com.ecom.service.GameLibraryService;
 import com.ecom.service.SecureDeliveryService;
-import com.ecom.service.UserService;
 
 import jakarta.servlet.http.HttpServletResponse;
 import jakarta.servlet.http.HttpSession;
@@ -31,10 +30,7 @@ public class GameLibraryController {
 	private GameLibraryService gameLibraryService;
 
 	@Autowired
-	private UserService userService;
-
-	@Autowired
-	private CartService cartService;
+	private CurrentUserContext currentUser;
 
 	@Autowired
 	private CategoryService categoryService;
@@ -46,12 +42,10 @@ public class GameLibraryController {
 	public void getUserDetails(Principal p, Model m) {
 		if (p != null) {
 			try {
-				String email = p.getName();
-				UserDtls userDtls = userService.getUserByEmail(email);
+				UserDtls userDtls = currentUser.getUser(p);
 				if (userDtls != null) {
 					m.addAttribute("user", userDtls);
-					Integer countCart = cartService.getCountCart(userDtls.getId());
-					m.addAttribute("countCart", countCart != null ? countCart : 0);
+					m.addAttribute("countCart", currentUser.getCartCount(p));
 				}
 			} catch (Exception e) {
 				e.printStackTrace();
@@ -74,8 +68,7 @@ public class GameLibraryController {
 			return "redirect:/signin";
 		}
 
-		String email = p.getName();
-		UserDtls user = userService.getUserByEmail(email);
+		UserDtls user = currentUser.getUser(p);
 
 		List<GameLibrary> games = gameLibraryService.getGamesByUser(user.getId());
 
@@ -117,8 +110,7 @@ public class GameLibraryController {
 			return;
 		}
 
-		String email = p.getName();
-		UserDtls user = userService.getUserByEmail(email);
+		UserDtls user = currentUser.getUser(p);
 
 		// ตรวจสอบว่าเกมเป็นของผู้ใช้คนนี้จริง
 		GameLibrary gameLibrary = gameLibraryService.getGameLibraryById(id);
@@ -187,8 +179,7 @@ public class GameLibraryController {
 			return "redirect:/signin";
 		}
 
-		String email = p.getName();
-		UserDtls user = userService.getUserByEmail(email);
+		UserDtls user = currentUser.getUser(p);
 
 		// Mark as downloaded
 		gameLibraryService.markAsDownloaded(id);
@@ -1,8 +1,14 @@
 package com.ecom.controller;
 
-import java.io.UnsupportedEncodingException;
 import java.security.Principal;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 import org.springframework.beans.factory.annotation.Autowired;
@@ -16,25 +22,46 @@ import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.util.UriComponentsBuilder;
 
 import com.ecom.model.Category;
 import com.ecom.model.Product;
+import com.ecom.model.ProductSummary;
 import com.ecom.model.UserDtls;
-import com.ecom.service.CartService;
+import com.ecom.service.CatalogFacets;
+import com.ecom.service.CatalogFacets.Facet;
 import com.ecom.service.CategoryService;
+import com.ecom.service.CurrentUserContext;
 import com.ecom.service.GameLibraryService;
+import com.ecom.service.ProductPageCache;
 import com.ecom.service.ProductService;
 import com.ecom.service.UserService;
 import com.ecom.util.CommonUtil;
 
 import io.micrometer.common.util.StringUtils;
-import jakarta.mail.MessagingException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpSession;
 
 @Controller
 public class HomeController {
 
+	private static final int FEED_MAX_PAGE_SIZE = 48;
+
+	// Band facets shown as sidebar filters: request parameter and title, in display order
+	private static final Map<Facet, String> FACET_PARAMS = new LinkedHashMap<>();
+	private static final Map<Facet, String> FACET_TITLES = new EnumMap<>(Facet.class);
+	static {
+		FACET_PARAMS.put(Facet.PRICE, "price");
+		FACET_PARAMS.put(Facet.DISCOUNT, "discount");
+		FACET_PARAMS.put(Facet.FILE_SIZE, "fileSize");
+		FACET_PARAMS.put(Facet.OWNED, "owned");
+		FACET_TITLES.put(Facet.PRICE, "Price");
+		FACET_TITLES.put(Facet.DISCOUNT, "Discount");
+		FACET_TITLES.put(Facet.FILE_SIZE, "Download Size");
+		FACET_TITLES.put(Facet.OWNED, "Library");
+	}
+
 	@Autowired
 	private CategoryService categoryService;
 
@@ -51,19 +78,19 @@ public class HomeController {
 	private BCryptPasswordEncoder passwordEncoder;
 
 	@Autowired
-	private CartService cartService;
+	private CurrentUserContext currentUser;
 
 	@Autowired
 	private GameLibraryService gameLibraryService;
 
+	@Autowired
+	private ProductPageCache productPageCache;
+
 	@ModelAttribute
 	public void getUserDetails(Principal p, Model m) {
 		if (p != null) {
-			String email = p.getName();
-			UserDtls userDtls = userService.getUserByEmail(email);
-			m.addAttribute("user", userDtls);
-			Integer countCart = cartService.getCountCart(userDtls.getId());
-			m.addAttribute("countCart", countCart);
+			m.addAttribute("user", currentUser.getUser(p));
+			m.addAttribute("countCart", currentUser.getCartCount(p));
 		}
 
 		List<Category> allActiveCategory = categoryService.getAllActiveCategory();
@@ -73,12 +100,11 @@ public class HomeController {
 	@GetMapping("/")
 	public String index(Model m) {
 
-		List<Category> allActiveCategory = categoryService.getAllActiveCategory().stream()
-				.sorted((c1, c2) -> c2.getId().compareTo(c1.getId())).limit(6).toList();
-		List<Product> allActiveProducts = productService.getAllActiveProducts("").stream()
-				.sorted((p1, p2) -> p2.getId().compareTo(p1.getId())).limit(8).toList();
+		List<Category> allActiveCategory = categoryService.getNewestActiveCategories(6);
+		List<ProductSummary> allActiveProducts = productService.getNewestActiveProducts(8);
 		m.addAttribute("category", allActiveCategory);
 		m.addAttribute("products", allActiveProducts);
+		m.addAttribute("trendingProducts", productService.getTrendingProducts(4));
 		return "guest/index";
 	}
 
@@ -96,21 +122,30 @@ public class HomeController {
 	public String products(Model m, @RequestParam(value = "category", defaultValue = "") String category,
 			@RequestParam(name = "pageNo", defaultValue = "0") Integer pageNo,
 			@RequestParam(name = "pageSize", defaultValue = "12") Integer pageSize,
-			@RequestParam(defaultValue = "") String ch) {
+			@RequestParam(defaultValue = "") String ch,
+			@RequestParam(value = "price", required = false) List<String> price,
+			@RequestParam(value = "discount", required = false) List<String> discount,
+			@RequestParam(value = "fileSize", required = false) List<String> fileSize,
+			@RequestParam(value = "owned", required = false) List<String> owned, Principal p) {
 
 		List<Category> categories = categoryService.getAllActiveCategory();
 		m.addAttribute("paramValue", category);
 		m.addAttribute("categories", categories);
 
 
-		Page<Product> page = null;
+		Page<ProductSummary> page = null;
 		if (StringUtils.isEmpty(ch)) {
-			page = productService.getAllActiveProductPagination(pageNo, pageSize, category);
+			Map<Facet, Set<String>> selection = facetSelection(category, price, discount, fileSize, owned);
+			CatalogFacets.Result facets = productService.filterActiveProducts(selection, ownedProductIds(p));
+			page = productService.getProductPagination(facets.getProducts(), pageNo, pageSize);
+			m.addAttribute("categoryCounts", facets.getCounts().getOrDefault(Facet.CATEGORY, Map.of()));
+			m.addAttribute("facetGroups", facetGroups(facets, selection));
+			m.addAttribute("facetQuery", facetQuery(selection));
 		} else {
 			page = productService.searchActiveProductPagination(pageNo, pageSize, category, ch);
 		}
 
-		List<Product> products = page.getContent();
+		List<ProductSummary> products = page.getContent();
 		m.addAttribute("products", products);
 		m.addAttribute("productsSize", products.size());
 
@@ -124,16 +159,129 @@ public class HomeController {
 		return "guest/product";
 	}
 
+	/**
+	 * GET /products/feed?category=&price=&discount=&fileSize=&owned=&cursor=&limit=12
+	 * Next slice of the (filtered) catalog for infinite scroll. The cursor is the id of the last
+	 * product the client has; nextCursor is null once the list is exhausted.
+	 */
+	@GetMapping("/products/feed")
+	@ResponseBody
+	public Map<String, Object> productFeed(@RequestParam(value = "category", defaultValue = "") String category,
+			@RequestParam(value = "price", required = false) List<String> price,
+			@RequestParam(value = "discount", required = false) List<String> discount,
+			@RequestParam(value = "fileSize", required = false) List<String> fileSize,
+			@RequestParam(value = "owned", required = false) List<String> owned,
+			@RequestParam(value = "cursor", required = false) Integer cursor,
+			@RequestParam(value = "limit", defaultValue = "12") int limit, Principal p) {
+		int size = Math.max(1, Math.min(limit, FEED_MAX_PAGE_SIZE));
+		// products only: the sidebar counts are computed for /products, not on every scroll
+		List<ProductSummary> matching = productService.getFilteredActiveProducts(
+				facetSelection(category, price, discount, fileSize, owned), ownedProductIds(p));
+		// one extra row tells whether another slice follows
+		List<ProductSummary> products = productService.getProductsAfter(matching, cursor, size + 1);
+		boolean hasNext = products.size() > size;
+		if (hasNext) {
+			products = products.subList(0, size);
+		}
+
+		Map<String, Object> response = new HashMap<>();
+		response.put("items", products);
+		response.put("nextCursor", hasNext ? products.get(size - 1).getId() : null);
+		response.put("total", matching.size());
+		return response;
+	}
+
+	private static Map<Facet, Set<String>> facetSelection(String category, List<String> price, List<String> discount,
+			List<String> fileSize, List<String> owned) {
+		Map<Facet, Set<String>> selection = new EnumMap<>(Facet.class);
+		if (!ObjectUtils.isEmpty(category)) {
+			selection.put(Facet.CATEGORY, Set.of(category));
+		}
+		putSelected(selection, Facet.PRICE, price);
+		putSelected(selection, Facet.DISCOUNT, discount);
+		putSelected(selection, Facet.FILE_SIZE, fileSize);
+		putSelected(selection, Facet.OWNED, owned);
+		return selection;
+	}
+
+	private static void putSelected(Map<Facet, Set<String>> selection, Facet facet, List<String> values) {
+		if (values == null) {
+			return;
+		}
+		// page links repeat absent filters as bare "price" parameters, which bind as ""
+		Set<String> selected = new LinkedHashSet<>();
+		for (String value : values) {
+			if (!ObjectUtils.isEmpty(value)) {
+				selected.add(value);
+			}
+		}
+		if (!selected.isEmpty()) {
+			selection.put(facet, selected);
+		}
+	}
+
+	private Set<Integer> ownedProductIds(Principal p) {
+		UserDtls user = currentUser.getUser(p);
+		return user != null ? gameLibraryService.getOwnedProductIds(user.getId()) : null;
+	}
+
+	/**
+	 * Sidebar filter groups: request parameter, title and the options that match something (or are
+	 * selected), each with its count.
+	 */
+	private static List<Map<String, Object>> facetGroups(CatalogFacets.Result facets, Map<Facet, Set<String>> selection) {
+		List<Map<String, Object>> groups = new ArrayList<>();
+		for (Facet facet : FACET_PARAMS.keySet()) {
+			Map<String, Integer> counts = facets.getCounts().get(facet);
+			if (counts == null) {
+				continue; // OWNED for guests
+			}
+			Set<String> selected = selection.getOrDefault(facet, Set.of());
+			List<Map<String, Object>> options = new ArrayList<>();
+			CatalogFacets.labelsOf(facet).forEach((value, label) -> {
+				int count = counts.getOrDefault(value, 0);
+				if (count > 0 || selected.contains(value)) {
+					Map<String, Object> option = new HashMap<>();
+					option.put("value", value);
+					option.put("label", label);
+					option.put("count", count);
+					option.put("selected", selected.contains(value));
+					options.add(option);
+				}
+			});
+			Map<String, Object> group = new HashMap<>();
+			group.put("param", FACET_PARAMS.get(facet));
+			group.put("title", FACET_TITLES.get(facet));
+			group.put("options", options);
+			groups.add(group);
+		}
+		return groups;
+	}
+
+	/** Selected band filters as a query string, carried along by infinite scroll. */
+	private static String facetQuery(Map<Facet, Set<String>> selection) {
+		UriComponentsBuilder query = UriComponentsBuilder.newInstance();
+		FACET_PARAMS.forEach((facet, param) -> {
+			for (String value : selection.getOrDefault(facet, Set.of())) {
+				query.queryParam(param, value);
+			}
+		});
+		String uri = query.encode().build().toUriString();
+		return uri.startsWith("?") ? uri.substring(1) : uri;
+	}
+
 	@GetMapping("/product/{id}")
 	public String product(@PathVariable int id, Model m, Principal p) {
-		Product productById = productService.getProductById(id);
+		Product productById = productService.getCatalogProduct(id);
 		m.addAttribute("product", productById);
+		if (productById != null) {
+			m.addAttribute("productPage", productPageCache.get(productById));
+		}
 		// Check if logged-in user already owns this game
 		if (p != null) {
-			UserDtls user = userService.getUserByEmail(p.getName());
+			UserDtls user = currentUser.getUser(p);
 			if (user != null) {
-				Boolean owned = gameLibraryService.isGameOwned(user.getId(), id);
-				m.addAttribute("alreadyOwned", owned);
+				m.addAttribute("alreadyOwned", gameLibraryService.getOwnedProductIds(user.getId()).contains(id));
 			}
 		}
 		return "guest/view_product";
@@ -177,8 +325,7 @@ public class HomeController {
 	}
 
 	@PostMapping("/forgot-password")
-	public String processForgotPassword(@RequestParam String email, HttpSession session, HttpServletRequest request)
-			throws UnsupportedEncodingException, MessagingException {
+	public String processForgotPassword(@RequestParam String email, HttpSession session, HttpServletRequest request) {
 
 		UserDtls userByEmail = userService.getUserByEmail(email);
 
@@ -197,7 +344,7 @@ public class HomeController {
 			Boolean sendMail = commonUtil.sendMail(url, email);
 
 			if (sendMail) {
-				session.setAttribute("succMsg", "Please check your email..Password Reset link sent");
+				session.setAttribute("succMsg", "Password reset link is on its way, please check your email");
 			} else {
 				session.setAttribute("errorMsg", "Somethong wrong on server ! Email not send");
 			}
@@ -263,7 +410,7 @@ public class HomeController {
 
 	@GetMapping("/search")
 	public String searchProduct(@RequestParam String ch, Model m) {
-		List<Product> searchProducts = productService.searchProduct(ch);
+		List<ProductSummary> searchProducts = productService.searchProduct(ch);
 		m.addAttribute("products", searchProducts);
 		List<Category> categories = categoryService.getAllActiveCategory();
 		m.addAttribute("categories", categories);
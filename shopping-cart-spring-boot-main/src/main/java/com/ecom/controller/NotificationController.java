@@ -20,10 +20,9 @@ import org.springframework.web.bind.annotation.ResponseBody;
 import com.ecom.model.Category;
 import com.ecom.model.Notification;
 import com.ecom.model.UserDtls;
-import com.ecom.service.CartService;
 import com.ecom.service.CategoryService;
+import com.ecom.service.CurrentUserContext;
 import com.ecom.service.NotificationService;
-import com.ecom.service.UserService;
 
 @Controller
 @RequestMapping("/notifications")
@@ -31,26 +30,21 @@ public class NotificationController {
 
     @Autowired
     private NotificationService notificationService;
-
-    @Autowired
-    private UserService userService;
     
     @Autowired
     private CategoryService categoryService;
     
     @Autowired
-    private CartService cartService;
+    private CurrentUserContext currentUser;
     
     @ModelAttribute
 	public void getUserDetails(Principal p, Model m) {
 	    if (p != null) {
 	        try {
-	            String email = p.getName();
-	            UserDtls userDtls = userService.getUserByEmail(email);
+	            UserDtls userDtls = currentUser.getUser(p);
 	            if (userDtls != null) {
 	                m.addAttribute("user", userDtls);
-	                Integer countCart = cartService.getCountCart(userDtls.getId());
-	                m.addAttribute("countCart", countCart != null ? countCart : 0);
+	                m.addAttribute("countCart", currentUser.getCartCount(p));
 	            }
 	        } catch (Exception e) {
 	            e.printStackTrace();
@@ -73,7 +67,7 @@ public class NotificationController {
             return "redirect:/signin";
         }
 
-        UserDtls user = userService.getUserByEmail(principal.getName());
+        UserDtls user = currentUser.getUser(principal);
         List<Notification> notifications = notificationService.getUserNotifications(user);
         
         model.addAttribute("notifications", notifications);
@@ -92,7 +86,7 @@ public class NotificationController {
             return response;
         }
 
-        UserDtls user = userService.getUserByEmail(principal.getName());
+        UserDtls user = currentUser.getUser(principal);
         long unreadCount = notificationService.getUnreadCount(user);
         
         response.put("count", unreadCount);
@@ -111,7 +105,7 @@ public class NotificationController {
                 return ResponseEntity.status(401).body(response);
             }
 
-            notificationService.markAsRead(id);
+            notificationService.markAsRead(id, currentUser.getUser(principal));
             response.put("success", true);
             return ResponseEntity.ok(response);
             
@@ -134,7 +128,7 @@ public class NotificationController {
                 return ResponseEntity.status(401).body(response);
             }
 
-            UserDtls user = userService.getUserByEmail(principal.getName());
+            UserDtls user = currentUser.getUser(principal);
             notificationService.markAllAsRead(user);
             response.put("success", true);
             return ResponseEntity.ok(response);
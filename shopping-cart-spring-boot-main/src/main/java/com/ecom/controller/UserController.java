@@ -23,6 +23,7 @@ import com.ecom.model.ProductOrder;
 import com.ecom.model.UserDtls;
 import com.ecom.service.CartService;
 import com.ecom.service.CategoryService;
+import com.ecom.service.CurrentUserContext;
 import com.ecom.service.FileService;
 import com.ecom.service.GameLibraryService;
 import com.ecom.service.OrderService;
@@ -45,6 +46,9 @@ public class UserController {
 	@Autowired
 	private CartService cartService;
 
+	@Autowired
+	private CurrentUserContext currentUser;
+
 	@Autowired
 	private OrderService orderService;
 
@@ -73,12 +77,10 @@ public class UserController {
 	public void getUserDetails(Principal p, Model m) {
 	    if (p != null) {
 	        try {
-	            String email = p.getName();
-	            UserDtls userDtls = userService.getUserByEmail(email);
+	            UserDtls userDtls = currentUser.getUser(p);
 	            if (userDtls != null) {
 	                m.addAttribute("user", userDtls);
-	                Integer countCart = cartService.getCountCart(userDtls.getId());
-	                m.addAttribute("countCart", countCart != null ? countCart : 0);
+	                m.addAttribute("countCart", currentUser.getCartCount(p));
 	            }
 	        } catch (Exception e) {
 	            e.printStackTrace();
@@ -149,12 +151,7 @@ public class UserController {
 	}
 
 	private UserDtls getLoggedInUserDetails(Principal p) {
-	    if (p == null) {
-	        return null;
-	    }
-	    String email = p.getName();
-	    UserDtls userDtls = userService.getUserByEmail(email);
-	    return userDtls;
+	    return currentUser.getUser(p);
 	}
 
 
@@ -12,6 +12,7 @@ import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.ModelAttribute;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
@@ -23,11 +24,10 @@ import com.ecom.model.Transaction;
 import com.ecom.model.UserDtls;
 import com.ecom.model.Wallet;
 import com.ecom.model.WalletTransfer;
-import com.ecom.repository.UserRepository;
-import com.ecom.service.CartService;
 import com.ecom.service.CategoryService;
-import com.ecom.service.UserService;
+import com.ecom.service.CurrentUserContext;
 import com.ecom.service.WalletService;
+import com.ecom.service.WalletService.HistoryPage;
 import com.ecom.service.WalletService.TopUpResult;
 import com.ecom.service.WalletService.TransferResult;
 
@@ -37,7 +37,8 @@ import com.ecom.service.WalletService.TransferResult;
  * Endpoints:
  * - GET  /user/wallet                   → หน้า Wallet หลัก (Thymeleaf)
  * - GET  /user/wallet/topup/qr          → สร้าง QR Code (PNG image)
- * - POST /user/wallet/topup/verify      → ตรวจสอบสลิปและเติมเงิน
+ * - POST /user/wallet/topup/verify      → ส่งสลิปเข้าคิวตรวจสอบ (202 Accepted)
+ * - GET  /user/wallet/topup/status/{id} → สถานะการเติมเงิน (poll)
  * - GET  /user/wallet/balance           → ดึงยอดเงินคงเหลือ (JSON)
  * - GET  /user/wallet/transactions      → ดึงประวัติธุรกรรม (JSON)
  * - GET  /user/wallet/transfer/search   → ค้นหาผู้รับจากอีเมล
@@ -52,13 +53,7 @@ public class WalletController {
     private WalletService walletService;
 
     @Autowired
-    private UserRepository userRepository;
-
-    @Autowired
-    private UserService userService;
-
-    @Autowired
-    private CartService cartService;
+    private CurrentUserContext currentUserContext;
 
     @Autowired
     private CategoryService categoryService;
@@ -68,12 +63,10 @@ public class WalletController {
     public void getUserDetails(Principal p, Model m) {
         if (p != null) {
             try {
-                String email = p.getName();
-                UserDtls userDtls = userService.getUserByEmail(email);
+                UserDtls userDtls = currentUserContext.getUser(p);
                 if (userDtls != null) {
                     m.addAttribute("user", userDtls);
-                    Integer countCart = cartService.getCountCart(userDtls.getId());
-                    m.addAttribute("countCart", countCart != null ? countCart : 0);
+                    m.addAttribute("countCart", currentUserContext.getCartCount(p));
                 }
             } catch (Exception e) {
                 e.printStackTrace();
@@ -97,14 +90,15 @@ public class WalletController {
     @GetMapping
     public String walletPage(Principal principal, Model model) {
         UserDtls user = getLoggedInUser(principal);
-        Wallet wallet = walletService.getOrCreateWallet(user);
-        List<Transaction> transactions = walletService.getTransactionHistory(user);
-
-        List<WalletTransfer> transfers = walletService.getTransferHistory(user);
+        Wallet wallet = walletService.getWalletView(user);
+        HistoryPage<Transaction> transactions = walletService.getTransactionHistory(user, null, WalletService.HISTORY_PAGE_SIZE);
+        HistoryPage<WalletTransfer> transfers = walletService.getTransferHistory(user, null, WalletService.HISTORY_PAGE_SIZE);
 
         model.addAttribute("wallet", wallet);
-        model.addAttribute("transactions", transactions);
-        model.addAttribute("transfers", transfers);
+        model.addAttribute("transactions", transactions.getItems());
+        model.addAttribute("transactionsCursor", transactions.getNextCursor());
+        model.addAttribute("transfers", transfers.getItems());
+        model.addAttribute("transfersCursor", transfers.getNextCursor());
         model.addAttribute("user", user);
         return "user/wallet";
     }
@@ -140,7 +134,7 @@ public class WalletController {
 
     /**
      * POST /user/wallet/topup/verify
-     * ตรวจสอบสลิปและเติมเงิน
+     * รับสลิปและส่งเข้าคิวตรวจสอบ — ตอบกลับทันทีพร้อม transactionId
      * 
      * Parameters:
      * - file: รูปสลิป (MultipartFile)
@@ -179,17 +173,16 @@ public class WalletController {
 
             UserDtls user = getLoggedInUser(principal);
 
-            // เรียก Service เพื่อตรวจสอบและเติมเงิน
-            TopUpResult result = walletService.processTopUp(user, file, amount);
+            // ส่งสลิปเข้าคิวตรวจสอบ (ผลจริงมาทาง WebSocket หรือ /topup/status/{id})
+            TopUpResult result = walletService.submitTopUp(user, file, amount);
 
             if (result.isSuccess()) {
                 response.put("success", true);
-                response.put("message", "เติมเงินสำเร็จ!");
+                response.put("pending", true);
+                response.put("message", result.getMessage());
                 response.put("amount", amount);
-                response.put("newBalance", result.getNewBalance());
                 response.put("transactionId", result.getTransaction().getId());
-                response.put("refTransactionId", result.getTransaction().getRefTransactionId());
-                return ResponseEntity.ok(response);
+                return ResponseEntity.accepted().body(response);
             } else {
                 response.put("success", false);
                 response.put("message", result.getMessage());
@@ -206,6 +199,35 @@ public class WalletController {
         }
     }
 
+    /**
+     * GET /user/wallet/topup/status/{id}
+     * ดึงสถานะการเติมเงินที่กำลังตรวจสอบ (สำหรับ poll)
+     */
+    @GetMapping("/topup/status/{id}")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> getTopUpStatus(@PathVariable("id") Long id, Principal principal) {
+        UserDtls user = getLoggedInUser(principal);
+        Transaction transaction = walletService.getTopUpStatus(user, id);
+
+        Map<String, Object> response = new HashMap<>();
+        if (transaction == null) {
+            response.put("success", false);
+            response.put("message", "ไม่พบรายการเติมเงิน");
+            return ResponseEntity.status(404).body(response);
+        }
+
+        response.put("success", true);
+        response.put("transactionId", transaction.getId());
+        response.put("status", transaction.getStatus().name());
+        response.put("amount", transaction.getAmount());
+        response.put("refTransactionId", transaction.getRefTransactionId());
+        response.put("failureReason", transaction.getFailureReason());
+        if (transaction.getStatus() == Transaction.Status.SUCCESS) {
+            response.put("newBalance", walletService.getBalance(user));
+        }
+        return ResponseEntity.ok(response);
+    }
+
     // ==================== WALLET INFO ====================
 
     /**
@@ -216,28 +238,36 @@ public class WalletController {
     @ResponseBody
     public ResponseEntity<Map<String, Object>> getBalance(Principal principal) {
         UserDtls user = getLoggedInUser(principal);
-        Wallet wallet = walletService.getOrCreateWallet(user);
 
         Map<String, Object> response = new HashMap<>();
         response.put("success", true);
-        response.put("balance", wallet.getBalance());
-        response.put("totalTopup", wallet.getTotalTopup());
+        response.put("balance", walletService.getBalance(user));
+        response.put("totalTopup", walletService.getTotalTopup(user));
         return ResponseEntity.ok(response);
     }
 
     /**
-     * GET /user/wallet/transactions
-     * ดึงประวัติธุรกรรม
+     * GET /user/wallet/transactions?cursor=xxx&limit=20
+     * ดึงประวัติธุรกรรมทีละหน้า — ส่ง nextCursor กลับมาเพื่อขอหน้าถัดไป (null = หมดแล้ว)
      */
     @GetMapping("/transactions")
     @ResponseBody
-    public ResponseEntity<Map<String, Object>> getTransactions(Principal principal) {
+    public ResponseEntity<Map<String, Object>> getTransactions(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limit", defaultValue = "" + WalletService.HISTORY_PAGE_SIZE) int limit,
+            Principal principal) {
         UserDtls user = getLoggedInUser(principal);
-        List<Transaction> transactions = walletService.getTransactionHistory(user);
+        HistoryPage<Transaction> page;
+        try {
+            page = walletService.getTransactionHistory(user, cursor, limit);
+        } catch (IllegalArgumentException e) {
+            return badCursor(e);
+        }
 
         Map<String, Object> response = new HashMap<>();
         response.put("success", true);
-        response.put("transactions", transactions.stream().map(t -> {
+        response.put("nextCursor", page.getNextCursor());
+        response.put("transactions", page.getItems().stream().map(t -> {
             Map<String, Object> tx = new HashMap<>();
             tx.put("id", t.getId());
             tx.put("amount", t.getAmount());
@@ -338,18 +368,27 @@ public class WalletController {
     }
 
     /**
-     * GET /user/wallet/transfers
-     * ดึงประวัติการโอนเงิน (JSON)
+     * GET /user/wallet/transfers?cursor=xxx&limit=20
+     * ดึงประวัติการโอนเงินทีละหน้า (JSON) — ส่ง nextCursor กลับมาเพื่อขอหน้าถัดไป (null = หมดแล้ว)
      */
     @GetMapping("/transfers")
     @ResponseBody
-    public ResponseEntity<Map<String, Object>> getTransferHistory(Principal principal) {
+    public ResponseEntity<Map<String, Object>> getTransferHistory(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limit", defaultValue = "" + WalletService.HISTORY_PAGE_SIZE) int limit,
+            Principal principal) {
         UserDtls user = getLoggedInUser(principal);
-        List<WalletTransfer> transfers = walletService.getTransferHistory(user);
+        HistoryPage<WalletTransfer> page;
+        try {
+            page = walletService.getTransferHistory(user, cursor, limit);
+        } catch (IllegalArgumentException e) {
+            return badCursor(e);
+        }
 
         Map<String, Object> response = new HashMap<>();
         response.put("success", true);
-        response.put("transfers", transfers.stream().map(t -> {
+        response.put("nextCursor", page.getNextCursor());
+        response.put("transfers", page.getItems().stream().map(t -> {
             Map<String, Object> tx = new HashMap<>();
             tx.put("id", t.getId());
             tx.put("amount", t.getAmount());
@@ -369,8 +408,14 @@ public class WalletController {
 
     // ==================== HELPER ====================
 
+    private ResponseEntity<Map<String, Object>> badCursor(IllegalArgumentException e) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", false);
+        response.put("message", e.getMessage());
+        return ResponseEntity.badRequest().body(response);
+    }
+
     private UserDtls getLoggedInUser(Principal principal) {
-        String email = principal.getName();
-        return userRepository.findByEmail(email);
+        return currentUserContext.getUser(principal);
     }
 }
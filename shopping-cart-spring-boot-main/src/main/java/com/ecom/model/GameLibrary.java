@@ -7,12 +7,15 @@ import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.SequenceGenerator;
 
 @Entity
 public class GameLibrary {
 
+	// pooled sequence (not IDENTITY) so Hibernate can batch checkout inserts
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "game_library_seq")
+	@SequenceGenerator(name = "game_library_seq", sequenceName = "game_library_seq", allocationSize = 50)
 	private Integer id;
 
 	@ManyToOne
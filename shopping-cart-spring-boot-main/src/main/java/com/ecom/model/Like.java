@@ -11,9 +11,13 @@ import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.PrePersist;
 import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
 
 @Entity
-@Table(name = "likes")
+@Table(name = "likes", uniqueConstraints = {
+        // one like per user per post; CommunityService.toggleLike relies on it (INSERT IGNORE)
+        @UniqueConstraint(name = "uk_likes_post_user", columnNames = { "post_id", "user_id" })
+})
 public class Like {
 
     @Id
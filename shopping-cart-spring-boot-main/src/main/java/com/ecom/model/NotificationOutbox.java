@@ -0,0 +1,236 @@
+package com.ecom.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.Table;
+
+/**
+ * One pending delivery of a notification on one channel, written in the same transaction as the
+ * Notification row and sent later by NotificationDispatcher.
+ *
+ * A burst of events for the same recipient, post, type and channel folds into one pending row
+ * that has not been attempted yet: actorCount counts distinct actors (actorIds) and
+ * actorName/message follow the latest event.
+ */
+@Entity
+@Table(name = "notification_outbox", indexes = {
+        // dispatcher poll: WHERE status = 'PENDING' AND channel = ? AND next_attempt_at <= now ORDER BY id
+        @Index(name = "idx_outbox_due", columnList = "status, channel, next_attempt_at"),
+        // coalescing: the recipient's pending row for the same post / type / channel
+        @Index(name = "idx_outbox_coalesce", columnList = "recipient_id, post_id, type, channel, status")
+})
+public class NotificationOutbox {
+
+    public enum Channel {
+        WEBSOCKET, EMAIL
+    }
+
+    public enum Status {
+        PENDING, SENDING, FAILED
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Channel channel;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Status status = Status.PENDING;
+
+    @Column(name = "recipient_id", nullable = false)
+    private Integer recipientId;
+
+    @Column(name = "post_id")
+    private Long postId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 50)
+    private NotificationType type;
+
+    // latest Notification folded into this row
+    @Column(name = "notification_id")
+    private Long notificationId;
+
+    @Column(nullable = false)
+    private String actorName;
+
+    @Column(nullable = false)
+    private Integer actorCount = 1;
+
+    // comma-separated ids of the distinct actors counted in actorCount
+    @Column(name = "actor_ids", length = 1000)
+    private String actorIds;
+
+    @Column(nullable = false, length = 500)
+    private String message;
+
+    @Column(nullable = false)
+    private Integer attempts = 0;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(length = 500)
+    private String lastError;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    public void prePersist() {
+        if (createdAt == null) {
+            createdAt = LocalDateTime.now();
+        }
+        if (nextAttemptAt == null) {
+            nextAttemptAt = createdAt;
+        }
+    }
+
+    public NotificationOutbox() {
+    }
+
+    public NotificationOutbox(Channel channel, Notification notification, LocalDateTime nextAttemptAt) {
+        this.channel = channel;
+        this.recipientId = notification.getRecipient().getId();
+        this.postId = notification.getPost() != null ? notification.getPost().getId() : null;
+        this.type = notification.getType();
+        this.notificationId = notification.getId();
+        this.actorName = notification.getActor().getName();
+        this.actorIds = String.valueOf(notification.getActor().getId());
+        this.message = notification.getMessage();
+        this.nextAttemptAt = nextAttemptAt;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Channel getChannel() {
+        return channel;
+    }
+
+    public void setChannel(Channel channel) {
+        this.channel = channel;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public Integer getRecipientId() {
+        return recipientId;
+    }
+
+    public void setRecipientId(Integer recipientId) {
+        this.recipientId = recipientId;
+    }
+
+    public Long getPostId() {
+        return postId;
+    }
+
+    public void setPostId(Long postId) {
+        this.postId = postId;
+    }
+
+    public NotificationType getType() {
+        return type;
+    }
+
+    public void setType(NotificationType type) {
+        this.type = type;
+    }
+
+    public Long getNotificationId() {
+        return notificationId;
+    }
+
+    public void setNotificationId(Long notificationId) {
+        this.notificationId = notificationId;
+    }
+
+    public String getActorName() {
+        return actorName;
+    }
+
+    public void setActorName(String actorName) {
+        this.actorName = actorName;
+    }
+
+    public Integer getActorCount() {
+        return actorCount;
+    }
+
+    public void setActorCount(Integer actorCount) {
+        this.actorCount = actorCount;
+    }
+
+    public String getActorIds() {
+        return actorIds;
+    }
+
+    public void setActorIds(String actorIds) {
+        this.actorIds = actorIds;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    public Integer getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(Integer attempts) {
+        this.attempts = attempts;
+    }
+
+    public LocalDateTime getNextAttemptAt() {
+        return nextAttemptAt;
+    }
+
+    public void setNextAttemptAt(LocalDateTime nextAttemptAt) {
+        this.nextAttemptAt = nextAttemptAt;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
@@ -10,6 +10,7 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.OneToMany;
@@ -17,7 +18,10 @@ import jakarta.persistence.PrePersist;
 import jakarta.persistence.Table;
 
 @Entity
-@Table(name = "posts")
+@Table(name = "posts", indexes = {
+        // community feed keyset: ORDER BY created_at DESC, id DESC
+        @Index(name = "idx_posts_created", columnList = "created_at, id")
+})
 public class Post {
 
     @Id
@@ -34,6 +38,12 @@ public class Post {
     @Column(nullable = false)
     private LocalDateTime createdAt;
 
+    // Denormalized like count, maintained by PostLikeCounter (may trail by up to one flush).
+    // Read-only for the entity: only PostRepository.applyLikeDelta / recountLikes write it, so saving
+    // a Post never writes back a stale count. New posts start as NULL, which readers treat as 0.
+    @Column(name = "like_count", insertable = false, updatable = false)
+    private Long likeCount = 0L;
+
     @OneToMany(mappedBy = "post", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<Comment> comments = new ArrayList<>();
 
@@ -87,6 +97,14 @@ public class Post {
         this.createdAt = createdAt;
     }
 
+    public Long getLikeCount() {
+        return likeCount;
+    }
+
+    public void setLikeCount(Long likeCount) {
+        this.likeCount = likeCount;
+    }
+
     public List<Comment> getComments() {
         return comments;
     }
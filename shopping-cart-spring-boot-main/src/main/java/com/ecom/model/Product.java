@@ -1,10 +1,14 @@
 package com.ecom.model;
 
+import java.util.Arrays;
+import java.util.List;
+
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Transient;
 
 @Entity
 public class Product {
@@ -37,6 +41,10 @@ public class Product {
 	@Column(length = 1000)
 	private String gameFilePath; // path to uploaded game file
 
+	// images split once; reset whenever images changes
+	@Transient
+	private List<String> imageList;
+
 	// Default constructor
 	public Product() {
 	}
@@ -136,6 +144,7 @@ public class Product {
 
 	public void setImages(String images) {
 		this.images = images;
+		this.imageList = null;
 	}
 
 	public String getGameFilePath() {
@@ -146,11 +155,14 @@ public class Product {
 		this.gameFilePath = gameFilePath;
 	}
 
-	// Helper to get image list
-	public java.util.List<String> getImageList() {
-		if (images == null || images.isEmpty()) {
-			return new java.util.ArrayList<>();
+	// Helper to get image list (parsed on first call, then reused)
+	public List<String> getImageList() {
+		List<String> list = imageList;
+		if (list == null) {
+			list = images == null || images.isEmpty() ? List.of()
+					: Arrays.stream(images.split(",")).map(String::trim).filter(url -> !url.isEmpty()).toList();
+			imageList = list;
 		}
-		return java.util.Arrays.asList(images.split(","));
+		return list;
 	}
 }
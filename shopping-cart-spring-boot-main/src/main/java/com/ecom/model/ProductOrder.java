@@ -1,6 +1,7 @@
 package com.ecom.model;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.Column;
@@ -8,18 +9,30 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.OneToOne;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
 
 @Entity
+@Table(indexes = {
+		// per-product order counts for the admin product grid and dashboard
+		@Index(name = "idx_product_order_product", columnList = "product_id"),
+		// recent orders for the sales trends rebuild
+		@Index(name = "idx_product_order_date", columnList = "order_date")
+})
 public class ProductOrder {
 
+	// pooled sequence (not IDENTITY) so Hibernate can batch checkout inserts
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "product_order_seq")
+	@SequenceGenerator(name = "product_order_seq", sequenceName = "product_order_seq", allocationSize = 50)
 	private Integer id;
 
 	private String orderId;
 	private LocalDate orderDate;
+	private LocalDateTime orderTime;
 
 	@ManyToOne
 	private Product product;
@@ -36,7 +49,7 @@ public class ProductOrder {
 	@OneToOne(cascade = CascadeType.ALL)
 	private OrderAddress orderAddress;
 
-	@Column(length = 100)
+	@Column(length = 100, unique = true)
 	private String gameKey; // Generated activation key for the game
 
 	// Default constructor
@@ -52,6 +65,9 @@ public class ProductOrder {
 	public LocalDate getOrderDate() { return orderDate; }
 	public void setOrderDate(LocalDate orderDate) { this.orderDate = orderDate; }
 
+	public LocalDateTime getOrderTime() { return orderTime; }
+	public void setOrderTime(LocalDateTime orderTime) { this.orderTime = orderTime; }
+
 	public Product getProduct() { return product; }
 	public void setProduct(Product product) { this.product = product; }
 
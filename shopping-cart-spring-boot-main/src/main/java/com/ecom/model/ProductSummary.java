@@ -0,0 +1,69 @@
+package com.ecom.model;
+
+/**
+ * The columns a product card or grid row shows. Listings use this instead of Product so they
+ * never load description, images or the game file path.
+ *
+ * Getters match Product's, so templates render either one unchanged.
+ */
+public class ProductSummary {
+
+	private final Integer id;
+	private final String title;
+	private final String category;
+	private final Double price;
+	private final int discount;
+	private final Double discountPrice;
+	private final String image;
+	private final Boolean isActive;
+
+	// Used by JPQL constructor expressions in ProductRepository
+	public ProductSummary(Integer id, String title, String category, Double price, int discount, Double discountPrice,
+			String image, Boolean isActive) {
+		this.id = id;
+		this.title = title;
+		this.category = category;
+		this.price = price;
+		this.discount = discount;
+		this.discountPrice = discountPrice;
+		this.image = image;
+		this.isActive = isActive;
+	}
+
+	public static ProductSummary of(Product product) {
+		return new ProductSummary(product.getId(), product.getTitle(), product.getCategory(), product.getPrice(),
+				product.getDiscount(), product.getDiscountPrice(), product.getImage(), product.getIsActive());
+	}
+
+	public Integer getId() {
+		return id;
+	}
+
+	public String getTitle() {
+		return title;
+	}
+
+	public String getCategory() {
+		return category;
+	}
+
+	public Double getPrice() {
+		return price;
+	}
+
+	public int getDiscount() {
+		return discount;
+	}
+
+	public Double getDiscountPrice() {
+		return discountPrice;
+	}
+
+	public String getImage() {
+		return image;
+	}
+
+	public Boolean getIsActive() {
+		return isActive;
+	}
+}
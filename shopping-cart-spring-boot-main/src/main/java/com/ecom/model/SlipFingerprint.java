@@ -0,0 +1,96 @@
+package com.ecom.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.Table;
+
+/**
+ * ลายนิ้วมือของสลิปที่ผ่านการตรวจสอบแล้ว ใช้กันการอัพโหลดสลิปเดิมซ้ำ
+ * - sha256: hash ของไฟล์ (unique) — ตรงกันแปลว่าเป็นไฟล์เดียวกันทุก byte
+ * - perceptualHash: dHash 64 bit ของภาพ — ใช้ตรวจสลิปเดิมที่ถูกบันทึกภาพ/บีบอัดใหม่
+ */
+@Entity
+@Table(name = "slip_fingerprints", indexes = {
+        @Index(name = "idx_slip_fingerprints_phash", columnList = "perceptual_hash")
+})
+public class SlipFingerprint {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "sha256", unique = true, nullable = false, length = 64)
+    private String sha256;
+
+    @Column(name = "perceptual_hash")
+    private Long perceptualHash;
+
+    @Column(name = "transaction_id", nullable = false)
+    private Long transactionId;
+
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        if (createdAt == null) {
+            createdAt = LocalDateTime.now();
+        }
+    }
+
+    public SlipFingerprint() {
+    }
+
+    public SlipFingerprint(String sha256, Long perceptualHash, Long transactionId) {
+        this.sha256 = sha256;
+        this.perceptualHash = perceptualHash;
+        this.transactionId = transactionId;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getSha256() {
+        return sha256;
+    }
+
+    public void setSha256(String sha256) {
+        this.sha256 = sha256;
+    }
+
+    public Long getPerceptualHash() {
+        return perceptualHash;
+    }
+
+    public void setPerceptualHash(Long perceptualHash) {
+        this.perceptualHash = perceptualHash;
+    }
+
+    public Long getTransactionId() {
+        return transactionId;
+    }
+
+    public void setTransactionId(Long transactionId) {
+        this.transactionId = transactionId;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
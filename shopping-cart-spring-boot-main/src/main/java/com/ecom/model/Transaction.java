@@ -9,12 +9,18 @@ import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.PrePersist;
 import jakarta.persistence.Table;
 
 @Entity
-@Table(name = "wallet_transactions")
+@Table(name = "wallet_transactions", indexes = {
+        // ประวัติรายการของ user แบบ keyset (ใหม่ -> เก่า)
+        @Index(name = "idx_wallet_tx_user_created", columnList = "user_id, created_at, id"),
+        // สลิปใน BlobStore ใช้ร่วมกันได้หลายรายการ — ใช้ตรวจก่อนลบไฟล์
+        @Index(name = "idx_wallet_tx_slip", columnList = "slip_image_path")
+})
 public class Transaction {
 
     public enum Status {
@@ -32,6 +38,7 @@ public class Transaction {
     @Column(nullable = false)
     private Double amount;
 
+    // key ใน BlobStore (รายการเก่าเป็น path ของไฟล์)
     @Column(name = "slip_image_path")
     private String slipImagePath;
 
@@ -43,7 +50,8 @@ public class Transaction {
     @Column(name = "transaction_type")
     private Type type = Type.TOPUP;
 
-    @Column(name = "ref_transaction_id")
+    // unique: กันสลิปเดียวกันเติมเงินซ้ำแม้ส่งเข้ามาพร้อมกัน (NULL ซ้ำได้)
+    @Column(name = "ref_transaction_id", unique = true)
     private String refTransactionId;
 
     @Column(name = "sender_name")
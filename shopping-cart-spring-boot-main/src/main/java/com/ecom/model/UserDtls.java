@@ -8,9 +8,13 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.PrePersist;
+import jakarta.persistence.Table;
 
 @Entity
+// Login, principal lookups and the email uniqueness check all go through email
+@Table(indexes = @Index(name = "idx_user_email", columnList = "email"))
 public class UserDtls {
 
 	@Id
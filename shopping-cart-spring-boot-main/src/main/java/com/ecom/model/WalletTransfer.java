@@ -9,6 +9,7 @@ import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.PrePersist;
@@ -18,7 +19,11 @@ import jakarta.persistence.Table;
  * Entity สำหรับเก็บประวัติการโอนเงินระหว่าง User
  */
 @Entity
-@Table(name = "wallet_transfers")
+@Table(name = "wallet_transfers", indexes = {
+        // ประวัติโอนแบบ keyset: ฝั่งส่งและฝั่งรับแยก index กัน (ใช้คู่กับ UNION ALL)
+        @Index(name = "idx_wallet_transfer_sender_created", columnList = "sender_id, created_at, id"),
+        @Index(name = "idx_wallet_transfer_receiver_created", columnList = "receiver_id, created_at, id")
+})
 public class WalletTransfer {
 
     public enum TransferStatus {
@@ -19,10 +19,17 @@ public interface CartRepository extends JpaRepository<Cart, Integer> {
 	public Integer countByUserId(Integer userId);
 
 	public List<Cart> findByUserId(Integer userId);
+
+	@Query("SELECT c FROM Cart c JOIN FETCH c.product JOIN FETCH c.user WHERE c.user.id = :userId")
+	public List<Cart> findByUserIdWithProduct(@Param("userId") Integer userId);
 	
 	@Transactional
 	@Modifying
 	public void deleteByUser(UserDtls user);
+
+	@Modifying
+	@Query("DELETE FROM Cart c WHERE c.user.id = :userId")
+	void deleteAllByUserId(@Param("userId") Integer userId);
 	@Modifying
 	@Query("DELETE FROM Cart c WHERE c.product.id = :productId")
 	void deleteByProductId(@Param("productId") Integer productId);
@@ -1,8 +1,11 @@
 package com.ecom.repository;
 
+import java.util.Collection;
 import java.util.List;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.ecom.model.Comment;
@@ -11,4 +14,16 @@ import com.ecom.model.Post;
 @Repository
 public interface CommentRepository extends JpaRepository<Comment, Long> {
     List<Comment> findByPostOrderByCreatedAtAsc(Post post);
+
+    // [postId, commentCount] for a page of posts, replies included
+    @Query("SELECT c.post.id, COUNT(c) FROM Comment c WHERE c.post.id IN :postIds GROUP BY c.post.id")
+    List<Object[]> countByPostIds(@Param("postIds") Collection<Long> postIds);
+
+    @Query("SELECT c FROM Comment c JOIN FETCH c.author"
+            + " WHERE c.post.id IN :postIds AND c.parentComment IS NULL ORDER BY c.createdAt ASC, c.id ASC")
+    List<Comment> findTopLevelByPostIds(@Param("postIds") Collection<Long> postIds);
+
+    @Query("SELECT c FROM Comment c JOIN FETCH c.author"
+            + " WHERE c.parentComment.id IN :parentIds ORDER BY c.createdAt ASC, c.id ASC")
+    List<Comment> findRepliesByParentIds(@Param("parentIds") Collection<Long> parentIds);
 }
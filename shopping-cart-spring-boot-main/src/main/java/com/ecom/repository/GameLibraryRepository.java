@@ -1,8 +1,12 @@
 package com.ecom.repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Set;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import com.ecom.model.GameLibrary;
 
@@ -13,4 +17,10 @@ public interface GameLibraryRepository extends JpaRepository<GameLibrary, Intege
 	List<GameLibrary> findByUserIdOrderByPurchaseDateDesc(Integer userId);
 
 	Boolean existsByUserIdAndProductId(Integer userId, Integer productId);
+
+	@Query("SELECT g.product.id FROM GameLibrary g WHERE g.user.id = :userId")
+	Set<Integer> findProductIdsByUserId(@Param("userId") Integer userId);
+
+	@Query("SELECT g.product.id FROM GameLibrary g WHERE g.user.id = :userId AND g.product.id IN :productIds")
+	Set<Integer> findOwnedProductIds(@Param("userId") Integer userId, @Param("productIds") Collection<Integer> productIds);
 }
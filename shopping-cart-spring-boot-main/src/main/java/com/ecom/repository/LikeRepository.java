@@ -1,8 +1,14 @@
 package com.ecom.repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.Optional;
+import java.util.Set;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.ecom.model.Like;
@@ -16,4 +22,34 @@ public interface LikeRepository extends JpaRepository<Like, Long> {
     Long countByPost(Post post);
 
     boolean existsByPostAndUser(Post post, UserDtls user);
+
+    @Query("SELECT l.post.id FROM Like l WHERE l.user.id = :userId AND l.post.id IN :postIds")
+    Set<Long> findLikedPostIds(@Param("userId") Integer userId, @Param("postIds") Collection<Long> postIds);
+
+    /**
+     * Adds the like unless it exists (uk_likes_post_user). Returns 0 if it already did, and also
+     * if the post does not exist: MySQL's IGNORE turns the foreign key error into a warning.
+     */
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO likes (post_id, user_id, created_at) VALUES (:postId, :userId, :now)",
+            nativeQuery = true)
+    int insertIfAbsent(@Param("postId") Long postId, @Param("userId") Integer userId, @Param("now") LocalDateTime now);
+
+    /**
+     * Keeps the oldest row of every (post, user) pair. Tables created before uk_likes_post_user
+     * can hold duplicate likes, and ddl-auto=update quietly skips the constraint while they do.
+     */
+    @Modifying
+    @Query(value = "DELETE FROM likes WHERE id NOT IN (SELECT keep_id FROM "
+            + "(SELECT MIN(id) AS keep_id FROM likes GROUP BY post_id, user_id) kept)", nativeQuery = true)
+    int deleteDuplicates();
+
+    @Modifying
+    @Query(value = "ALTER TABLE likes ADD CONSTRAINT uk_likes_post_user UNIQUE (post_id, user_id)",
+            nativeQuery = true)
+    int addPostUserConstraint();
+
+    @Modifying
+    @Query("DELETE FROM Like l WHERE l.post.id = :postId AND l.user.id = :userId")
+    int deleteByPostIdAndUserId(@Param("postId") Long postId, @Param("userId") Integer userId);
 }
@@ -0,0 +1,57 @@
+package com.ecom.repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.ecom.model.NotificationOutbox;
+import com.ecom.model.NotificationOutbox.Channel;
+import com.ecom.model.NotificationOutbox.Status;
+import com.ecom.model.NotificationType;
+
+import jakarta.persistence.LockModeType;
+
+@Repository
+public interface NotificationOutboxRepository extends JpaRepository<NotificationOutbox, Long> {
+
+    /**
+     * The recipient's pending, never attempted row for the same post, type and channel, locked
+     * until the caller's transaction ends so the dispatcher cannot claim it while an event is
+     * being folded in. Rows in retry backoff are left alone.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT o FROM NotificationOutbox o WHERE o.recipientId = :recipientId AND o.postId = :postId "
+            + "AND o.type = :type AND o.channel = :channel AND o.status = :pending AND o.attempts = 0 ORDER BY o.id")
+    List<NotificationOutbox> findCoalescable(@Param("recipientId") Integer recipientId, @Param("postId") Long postId,
+            @Param("type") NotificationType type, @Param("channel") Channel channel, @Param("pending") Status pending);
+
+    @Query("SELECT o FROM NotificationOutbox o WHERE o.status = :pending "
+            + "AND o.channel = :channel AND o.nextAttemptAt <= :now ORDER BY o.id")
+    List<NotificationOutbox> findDue(@Param("channel") Channel channel, @Param("now") LocalDateTime now,
+            @Param("pending") Status pending, Pageable pageable);
+
+    /**
+     * Marks due rows as being delivered so later events start a new row instead of folding into one
+     * that is already on its way. Clears the persistence context so the rows are re-read as claimed.
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE NotificationOutbox o SET o.status = :sending WHERE o.id IN :ids AND o.status = :pending")
+    int claim(@Param("ids") Collection<Long> ids, @Param("pending") Status pending, @Param("sending") Status sending);
+
+    /**
+     * Hands rows left SENDING by a crash back to the dispatcher.
+     */
+    @Modifying
+    @Query("UPDATE NotificationOutbox o SET o.status = :pending WHERE o.status = :sending")
+    int releaseClaims(@Param("pending") Status pending, @Param("sending") Status sending);
+
+    long countByStatus(Status status);
+}
@@ -19,12 +19,18 @@ public interface NotificationRepository extends JpaRepository<Notification, Long
     @Query("SELECT COUNT(n) FROM Notification n WHERE n.recipient = :recipient AND n.isRead = false")
     long countUnreadByRecipient(@Param("recipient") UserDtls recipient);
 
+    @Query("SELECT COUNT(n) FROM Notification n WHERE n.recipient.id = :recipientId AND n.isRead = false")
+    long countUnreadByRecipientId(@Param("recipientId") Integer recipientId);
+
     @Modifying
     @Query("UPDATE Notification n SET n.isRead = true WHERE n.recipient = :recipient AND n.isRead = false")
-    void markAllAsReadByRecipient(@Param("recipient") UserDtls recipient);
+    int markAllAsReadByRecipient(@Param("recipient") UserDtls recipient);
 
+    /**
+     * @return 1 if the notification belonged to the recipient and was still unread
+     */
     @Modifying
-    @Query("UPDATE Notification n SET n.isRead = true WHERE n.id = :id")
-    void markAsRead(@Param("id") Long id);
+    @Query("UPDATE Notification n SET n.isRead = true WHERE n.id = :id AND n.recipient = :recipient AND n.isRead = false")
+    int markAsRead(@Param("id") Long id, @Param("recipient") UserDtls recipient);
 
 }
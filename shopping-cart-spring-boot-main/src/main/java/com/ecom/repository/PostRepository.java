@@ -1,10 +1,15 @@
 package com.ecom.repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.ecom.model.Post;
@@ -17,4 +22,28 @@ public interface PostRepository extends JpaRepository<Post, Long> {
     Page<Post> findAllByOrderByCreatedAtDesc(Pageable pageable);
 
     List<Post> findByAuthorOrderByCreatedAtDesc(UserDtls author);
+
+    /**
+     * Community feed page (keyset): posts older than the given (createdAt, id), newest first, with
+     * their authors in the same query. A range scan on idx_posts_created on every page.
+     */
+    @Query("SELECT p FROM Post p JOIN FETCH p.author"
+            + " WHERE p.createdAt < :createdAt OR (p.createdAt = :createdAt AND p.id < :id)"
+            + " ORDER BY p.createdAt DESC, p.id DESC")
+    List<Post> findFeedBefore(@Param("createdAt") LocalDateTime createdAt,
+                              @Param("id") Long id,
+                              Pageable pageable);
+
+    @Query("SELECT p.likeCount FROM Post p WHERE p.id = :id")
+    Optional<Long> findLikeCount(@Param("id") Long id);
+
+    // PostLikeCounter flush: one relative update per post per round
+    @Modifying
+    @Query("UPDATE Post p SET p.likeCount = COALESCE(p.likeCount, 0) + :delta WHERE p.id = :id")
+    int applyLikeDelta(@Param("id") Long id, @Param("delta") long delta);
+
+    @Modifying
+    @Query(value = "UPDATE posts p SET p.like_count = (SELECT COUNT(*) FROM likes l WHERE l.post_id = p.id)",
+            nativeQuery = true)
+    int recountLikes();
 }
@@ -1,6 +1,7 @@
 package com.ecom.repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -20,4 +21,20 @@ public interface ProductOrderRepository extends JpaRepository<ProductOrder, Inte
 	    List<ProductOrder> findByProductId(@Param("productId") Integer productId);
 	 List<ProductOrder> findByOrderDate(LocalDate orderDate);
 
+	/** จำนวน order และยอดขายแยกตามวันที่และสถานะ — ใช้ rebuild DashboardMetrics */
+	@Query("SELECT o.orderDate, o.status, COUNT(o), COALESCE(SUM(o.price * o.quantity), 0) FROM ProductOrder o GROUP BY o.orderDate, o.status")
+	List<Object[]> summarizeByDateAndStatus();
+
+	/** [productId, จำนวน order] เฉพาะสินค้าที่มี order — ใช้ตัดสินว่าลบสินค้าได้หรือไม่ */
+	@Query("SELECT o.product.id, COUNT(o) FROM ProductOrder o WHERE o.product.id IN :productIds GROUP BY o.product.id")
+	List<Object[]> countByProductIds(@Param("productIds") Collection<Integer> productIds);
+
+	/** [productId, จำนวนชิ้นที่ขายได้ไม่รวม Cancelled] — ใช้ rebuild DashboardMetrics */
+	@Query("SELECT o.product.id, COALESCE(SUM(CASE WHEN o.status = 'Cancelled' THEN 0 ELSE o.quantity END), 0) FROM ProductOrder o WHERE o.product IS NOT NULL GROUP BY o.product.id")
+	List<Object[]> summarizeSalesByProduct();
+
+	/** [productId, category, orderTime, orderDate, quantity] ของ order ตั้งแต่วันที่กำหนด — ใช้ rebuild SalesTrends */
+	@Query("SELECT o.product.id, o.product.category, o.orderTime, o.orderDate, o.quantity FROM ProductOrder o WHERE o.orderDate >= :since")
+	List<Object[]> findSalesSince(@Param("since") LocalDate since);
+
 }
@@ -5,10 +5,27 @@ import java.util.List;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
 import com.ecom.model.Product;
+import com.ecom.model.ProductSummary;
 
 public interface ProductRepository extends JpaRepository<Product, Integer> {
+
+	String SELECT_SUMMARY = "SELECT new com.ecom.model.ProductSummary(p.id, p.title, p.category, p.price, p.discount,"
+			+ " p.discountPrice, p.image, p.isActive) FROM Product p";
+
+	// Listing rows without description, images and gameFilePath
+	@Query(SELECT_SUMMARY)
+	List<ProductSummary> findAllSummaries();
+
+	@Query(value = SELECT_SUMMARY + " ORDER BY p.id", countQuery = "SELECT COUNT(p) FROM Product p")
+	Page<ProductSummary> findSummaries(Pageable pageable);
+
+	// [id, fileSize] for the facet index, which bands sizes but does not need the rest of the row
+	@Query("SELECT p.id, p.fileSize FROM Product p")
+	List<Object[]> findFileSizes();
+
 	Long countByIsActiveTrue();
 
 
@@ -18,14 +35,7 @@ public interface ProductRepository extends JpaRepository<Product, Integer> {
 
 	List<Product> findByCategory(String category);
 
-	List<Product> findByTitleContainingIgnoreCaseOrCategoryContainingIgnoreCase(String ch, String ch2);
-
 	Page<Product> findByCategory(Pageable pageable, String category);
 
-	Page<Product> findByTitleContainingIgnoreCaseOrCategoryContainingIgnoreCase(String ch, String ch2,
-			Pageable pageable);
-
-	Page<Product> findByisActiveTrueAndTitleContainingIgnoreCaseOrCategoryContainingIgnoreCase(String ch, String ch2,
-			Pageable pageable);
 	
 }
@@ -3,10 +3,19 @@ package com.ecom.repository;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import com.ecom.model.SiteSetting;
 
+import jakarta.persistence.LockModeType;
+
 public interface SiteSettingRepository extends JpaRepository<SiteSetting, Long> {
 
     Optional<SiteSetting> findByKey(String key);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM SiteSetting s WHERE s.key = :key")
+    Optional<SiteSetting> findByKeyForUpdate(@Param("key") String key);
 }
@@ -0,0 +1,19 @@
+package com.ecom.repository;
+
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import com.ecom.model.SlipFingerprint;
+
+public interface SlipFingerprintRepository extends JpaRepository<SlipFingerprint, Long> {
+
+    boolean existsBySha256(String sha256);
+
+    boolean existsByPerceptualHash(Long perceptualHash);
+
+    /** โหลดเฉพาะ hash สำหรับเติม Bloom filter ตอนเริ่มระบบ */
+    @Query("SELECT f.sha256 FROM SlipFingerprint f")
+    List<String> findAllSha256();
+}
@@ -1,31 +1,73 @@
 package com.ecom.repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.ecom.model.Transaction;
 import com.ecom.model.UserDtls;
 
+import jakarta.persistence.LockModeType;
+
 @Repository
 public interface TransactionRepository extends JpaRepository<Transaction, Long> {
 
     List<Transaction> findByUserOrderByCreatedAtDesc(UserDtls user);
 
+    /**
+     * ประวัติรายการของ user แบบ keyset: รายการที่เก่ากว่า (createdAt, id) ที่ให้มา เรียงจากล่าสุด
+     * เป็น range scan บน idx_wallet_tx_user_created ไม่ว่าจะอยู่หน้าไหน
+     */
+    @Query("SELECT t FROM Transaction t WHERE t.user.id = :userId"
+            + " AND (t.createdAt < :createdAt OR (t.createdAt = :createdAt AND t.id < :id))"
+            + " ORDER BY t.createdAt DESC, t.id DESC")
+    List<Transaction> findPageByUserBefore(@Param("userId") Integer userId,
+                                           @Param("createdAt") LocalDateTime createdAt,
+                                           @Param("id") Long id,
+                                           Pageable pageable);
+
     List<Transaction> findByUserAndStatusOrderByCreatedAtDesc(UserDtls user, Transaction.Status status);
 
     List<Transaction> findByStatusOrderByCreatedAtDesc(Transaction.Status status);
 
     boolean existsByRefTransactionId(String refTransactionId);
 
+    /** มีรายการอื่นยังอ้างถึงไฟล์สลิปนี้อยู่หรือไม่ (BlobStore เก็บไฟล์ซ้ำครั้งเดียว) */
+    boolean existsBySlipImagePath(String slipImagePath);
+
+    /** รายการ FAILED ที่ยังมีไฟล์สลิปและเก่ากว่า before — ใช้ SlipBlobCompactor */
+    @Query("SELECT t FROM Transaction t WHERE t.status = 'FAILED' AND t.slipImagePath IS NOT NULL"
+            + " AND t.createdAt < :before ORDER BY t.id")
+    List<Transaction> findFailedWithSlipBefore(@Param("before") LocalDateTime before, Pageable pageable);
+
+    @Modifying
+    @Query("UPDATE Transaction t SET t.slipImagePath = NULL WHERE t.id IN :ids")
+    int clearSlipImagePath(@Param("ids") Collection<Long> ids);
+
     Page<Transaction> findAllByOrderByCreatedAtDesc(Pageable pageable);
 
     List<Transaction> findByTypeAndStatusOrderByCreatedAtDesc(Transaction.Type type, Transaction.Status status);
 
+    /** รายการที่สร้างก่อน before — ใช้ส่งรายการ PENDING เข้าคิวตรวจสลิปใหม่ตอนเริ่มระบบ */
+    List<Transaction> findByTypeAndStatusAndCreatedAtBeforeOrderByCreatedAtAsc(Transaction.Type type,
+                                                                            Transaction.Status status,
+                                                                            LocalDateTime before);
+
+    /** ล็อกแถว (SELECT ... FOR UPDATE) ก่อนเปลี่ยนสถานะ — งานที่มาทีหลังจะเห็นสถานะที่ปิดแล้ว */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT t FROM Transaction t WHERE t.id = :id")
+    Optional<Transaction> findByIdForUpdate(@Param("id") Long id);
+
     @Query("SELECT COALESCE(SUM(t.amount), 0) FROM Transaction t WHERE t.type = 'PURCHASE' AND t.status = 'SUCCESS'")
     Double getTotalPurchaseRevenue();
 
@@ -34,4 +76,12 @@ public interface TransactionRepository extends JpaRepository<Transaction, Long>
 
     @Query("SELECT COALESCE(SUM(t.amount), 0) FROM Transaction t WHERE t.type = 'TOPUP' AND t.status = 'SUCCESS'")
     Double getTotalTopupAmount();
+
+    /** จำนวนและยอดรวมรายการสำเร็จแยกตามประเภท — ใช้ rebuild DashboardMetrics */
+    @Query("SELECT t.type, COUNT(t), COALESCE(SUM(t.amount), 0) FROM Transaction t WHERE t.status = 'SUCCESS' GROUP BY t.type")
+    List<Object[]> summarizeSuccessfulByType();
+
+    /** ยอดรวมรายการสำเร็จแยกตาม user และประเภท — ใช้ replay ยอด Wallet */
+    @Query("SELECT t.user.id, t.type, SUM(t.amount) FROM Transaction t WHERE t.status = 'SUCCESS' GROUP BY t.user.id, t.type")
+    List<Object[]> sumSuccessfulByUserAndType();
 }
@@ -4,6 +4,7 @@ import java.util.Date;
 import java.util.List;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
 import com.ecom.model.UserDtls;
 
@@ -18,6 +19,9 @@ public interface UserRepository extends JpaRepository<UserDtls, Integer> {
 	public Boolean existsByEmail(String email);
 	Integer countByCreatedDateBetween(Date startDate, Date endDate);
 	List<UserDtls> findTop5ByOrderByCreatedDateDesc();
+
+	@Query("SELECT u.role, COUNT(u) FROM UserDtls u GROUP BY u.role")
+	List<Object[]> countByRole();
 	
 	
 
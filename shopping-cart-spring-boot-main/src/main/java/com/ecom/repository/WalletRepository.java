@@ -1,8 +1,12 @@
 package com.ecom.repository;
 
+import java.time.LocalDateTime;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.ecom.model.UserDtls;
@@ -14,4 +18,12 @@ public interface WalletRepository extends JpaRepository<Wallet, Long> {
     Optional<Wallet> findByUser(UserDtls user);
 
     boolean existsByUser(UserDtls user);
+
+    /** บวก delta จาก WalletLedger เข้ากับยอดใน DB (write-behind flush) */
+    @Modifying
+    @Query("UPDATE Wallet w SET w.balance = round(w.balance + :delta, 2), "
+            + "w.totalTopup = round(coalesce(w.totalTopup, 0) + :topupDelta, 2), w.updatedAt = :now "
+            + "WHERE w.user.id = :userId")
+    int applyDelta(@Param("userId") Integer userId, @Param("delta") double delta,
+            @Param("topupDelta") double topupDelta, @Param("now") LocalDateTime now);
 }
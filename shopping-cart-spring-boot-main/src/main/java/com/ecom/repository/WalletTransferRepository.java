@@ -1,5 +1,6 @@
 package com.ecom.repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -19,11 +20,36 @@ public interface WalletTransferRepository extends JpaRepository<WalletTransfer,
     /** ดึงรายการโอนที่เราเป็นผู้รับ (เรียงจากล่าสุด) */
     List<WalletTransfer> findByReceiverOrderByCreatedAtDesc(UserDtls receiver);
 
-    /** ดึงรายการโอนทั้งหมดที่เกี่ยวข้องกับเรา (ส่ง+รับ) เรียงจากล่าสุด */
-    @Query("SELECT t FROM WalletTransfer t WHERE t.sender = :user OR t.receiver = :user ORDER BY t.createdAt DESC")
-    List<WalletTransfer> findAllByUser(@Param("user") UserDtls user);
+    /**
+     * ประวัติโอนของ user (ส่ง+รับ) แบบ keyset: รายการที่เก่ากว่า (createdAt, id) ที่ให้มา เรียงจากล่าสุด
+     *
+     * แยกเป็นสองฝั่งแล้ว UNION ALL แทน sender = ? OR receiver = ? เพื่อให้แต่ละฝั่งเป็น range scan
+     * บน index (sender_id|receiver_id, created_at, id) ของตัวเอง แต่ละฝั่งตัดที่ :limit ก่อนรวม
+     * จึงอ่านไม่เกิน 2 x limit แถวต่อหน้า (ฝั่งรับตัดรายการโอนให้ตัวเองออก กันแถวซ้ำ)
+     */
+    @Query(value = "SELECT * FROM ("
+            + " (SELECT * FROM wallet_transfers WHERE sender_id = :userId"
+            + "   AND (created_at < :createdAt OR (created_at = :createdAt AND id < :id))"
+            + "   ORDER BY created_at DESC, id DESC LIMIT :limit)"
+            + " UNION ALL"
+            + " (SELECT * FROM wallet_transfers WHERE receiver_id = :userId AND sender_id <> :userId"
+            + "   AND (created_at < :createdAt OR (created_at = :createdAt AND id < :id))"
+            + "   ORDER BY created_at DESC, id DESC LIMIT :limit)"
+            + ") page ORDER BY created_at DESC, id DESC LIMIT :limit", nativeQuery = true)
+    List<WalletTransfer> findPageByUserBefore(@Param("userId") Integer userId,
+                                              @Param("createdAt") LocalDateTime createdAt,
+                                              @Param("id") Long id,
+                                              @Param("limit") int limit);
 
     /** ดึงรายการโอนสำเร็จทั้งหมดที่เกี่ยวกับ user */
     @Query("SELECT t FROM WalletTransfer t WHERE (t.sender = :user OR t.receiver = :user) AND t.status = 'SUCCESS' ORDER BY t.createdAt DESC")
     List<WalletTransfer> findSuccessfulByUser(@Param("user") UserDtls user);
+
+    /** ยอดรับโอนสำเร็จรวมต่อ user — ใช้ replay ยอด Wallet */
+    @Query("SELECT t.receiver.id, SUM(t.amount) FROM WalletTransfer t WHERE t.status = 'SUCCESS' GROUP BY t.receiver.id")
+    List<Object[]> sumSuccessfulReceivedByUser();
+
+    /** ยอดโอนออกสำเร็จรวมต่อ user — ใช้ replay ยอด Wallet */
+    @Query("SELECT t.sender.id, SUM(t.amount) FROM WalletTransfer t WHERE t.status = 'SUCCESS' GROUP BY t.sender.id")
+    List<Object[]> sumSuccessfulSentByUser();
 }
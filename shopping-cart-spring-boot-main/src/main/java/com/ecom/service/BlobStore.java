@@ -0,0 +1,120 @@
+package com.ecom.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.regex.Pattern;
+
+import org.springframework.core.io.Resource;
+
+/**
+ * ที่เก็บไฟล์สลิปแบบ content-addressed
+ *
+ * key = SHA-256 ของเนื้อไฟล์ + นามสกุลที่ดูจาก magic bytes (เช่น "3fa4...c1.jpg")
+ * ไฟล์เดียวกันทุก byte จึงได้ key เดิมและถูกเก็บครั้งเดียว
+ * ตำแหน่งจริงแบ่งโฟลเดอร์ตาม 4 ตัวแรกของ hash ("3f/a4/3fa4...c1.jpg") ไม่ให้โฟลเดอร์เดียวมีไฟล์มากเกินไป
+ */
+public interface BlobStore {
+
+    /**
+     * อ่าน stream รอบเดียว: คำนวณ SHA-256 ระหว่างเขียน แล้วเก็บไว้ที่ key ของเนื้อหานั้น
+     * ถ้ามีไฟล์ key เดียวกันอยู่แล้วจะไม่เขียนซ้ำ (duplicate = true)
+     */
+    StoredBlob put(InputStream content) throws IOException;
+
+    /**
+     * @throws java.nio.file.NoSuchFileException ถ้าไม่มี blob นี้
+     */
+    Resource open(String key) throws IOException;
+
+    void delete(String key) throws IOException;
+
+    record StoredBlob(String key, String sha256, long size, boolean duplicate) {
+
+        public StoredBlob asDuplicate() {
+            return new StoredBlob(key, sha256, size, true);
+        }
+    }
+
+    // ==================== KEY HELPERS ====================
+
+    Pattern KEY_PATTERN = Pattern.compile("[0-9a-f]{64}\\.[a-z]{3,4}");
+
+    /**
+     * เป็น key ของ BlobStore หรือไม่ (Transaction เก่าเก็บ path ของไฟล์แทน)
+     */
+    static boolean isKey(String value) {
+        return value != null && KEY_PATTERN.matcher(value).matches();
+    }
+
+    static String sha256Of(String key) {
+        return key.substring(0, 64);
+    }
+
+    static String shardedPath(String key) {
+        return key.substring(0, 2) + "/" + key.substring(2, 4) + "/" + key;
+    }
+
+    static String contentTypeOf(String key) {
+        return switch (key.substring(65)) {
+            case "jpg" -> "image/jpeg";
+            case "png" -> "image/png";
+            case "gif" -> "image/gif";
+            case "webp" -> "image/webp";
+            default -> "application/octet-stream";
+        };
+    }
+
+    /**
+     * คัดลอก stream ลงไฟล์ชั่วคราวพร้อมคำนวณ SHA-256 และดูชนิดไฟล์ในรอบเดียว
+     */
+    static StoredBlob spool(InputStream content, Path temp) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+        byte[] buffer = new byte[8192];
+        byte[] header = new byte[12];
+        int headerLength = 0;
+        long size = 0;
+        try (OutputStream out = Files.newOutputStream(temp)) {
+            int read;
+            while ((read = content.read(buffer)) != -1) {
+                if (headerLength < header.length) {
+                    int copy = Math.min(read, header.length - headerLength);
+                    System.arraycopy(buffer, 0, header, headerLength, copy);
+                    headerLength += copy;
+                }
+                digest.update(buffer, 0, read);
+                out.write(buffer, 0, read);
+                size += read;
+            }
+        }
+        String sha256 = HexFormat.of().formatHex(digest.digest());
+        return new StoredBlob(sha256 + "." + extensionOf(header, headerLength), sha256, size, false);
+    }
+
+    private static String extensionOf(byte[] h, int length) {
+        if (length >= 3 && (h[0] & 0xFF) == 0xFF && (h[1] & 0xFF) == 0xD8 && (h[2] & 0xFF) == 0xFF) {
+            return "jpg";
+        }
+        if (length >= 4 && (h[0] & 0xFF) == 0x89 && h[1] == 'P' && h[2] == 'N' && h[3] == 'G') {
+            return "png";
+        }
+        if (length >= 4 && h[0] == 'G' && h[1] == 'I' && h[2] == 'F' && h[3] == '8') {
+            return "gif";
+        }
+        if (length >= 12 && h[0] == 'R' && h[1] == 'I' && h[2] == 'F' && h[3] == 'F'
+                && h[8] == 'W' && h[9] == 'E' && h[10] == 'B' && h[11] == 'P') {
+            return "webp";
+        }
+        return "bin";
+    }
+}
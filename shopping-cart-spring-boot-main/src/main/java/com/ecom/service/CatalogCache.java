@@ -0,0 +1,204 @@
+package com.ecom.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.ecom.model.Category;
+import com.ecom.model.Product;
+import com.ecom.model.ProductSummary;
+import com.ecom.repository.CategoryRepository;
+import com.ecom.repository.ProductRepository;
+import com.ecom.util.TransactionHooks;
+
+/**
+ * Read-through cache of the storefront catalog.
+ *
+ * Readers get an immutable snapshot: product summaries by id, active products (in id order, per
+ * category and newest first) and active categories. The snapshot is loaded on first use and
+ * rebuilt copy-on-write after every committed product or category write, so readers never see a
+ * half-updated catalog and never wait for a rebuild in steady state.
+ *
+ * Listings only hold ProductSummary rows. The full Product (description, screenshots) is loaded
+ * the first time its detail page is viewed and kept until the next rebuild.
+ *
+ * Cached entities are shared between requests; callers must treat them as read-only. Admin edit
+ * paths keep loading from the repository.
+ */
+@Component
+public class CatalogCache {
+
+	private static final Logger log = LoggerFactory.getLogger(CatalogCache.class);
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	@Autowired
+	private CategoryRepository categoryRepository;
+
+	private volatile Snapshot snapshot;
+
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+	private final AtomicLong rebuilds = new AtomicLong();
+	private final AtomicLong detailLoads = new AtomicLong();
+	private volatile long lastRebuildMs;
+
+	// ==================== READERS ====================
+
+	public ProductSummary getSummary(Integer id) {
+		ProductSummary summary = current().summariesById.get(id);
+		if (summary == null) {
+			misses.incrementAndGet();
+		}
+		return summary;
+	}
+
+	/**
+	 * Full product for the detail page; only ids in the catalog are loaded and kept.
+	 */
+	public Product getProduct(Integer id) {
+		Snapshot s = current();
+		if (!s.summariesById.containsKey(id)) {
+			misses.incrementAndGet();
+			return null;
+		}
+		Product product = s.details.get(id);
+		if (product == null) {
+			detailLoads.incrementAndGet();
+			product = productRepository.findById(id).orElse(null);
+			if (product != null) {
+				product.getImageList(); // parse once, before the instance is shared
+				Product raced = s.details.putIfAbsent(id, product);
+				product = raced != null ? raced : product;
+			}
+		}
+		return product;
+	}
+
+	public List<ProductSummary> getActiveProducts() {
+		return current().activeProducts;
+	}
+
+	public List<ProductSummary> getActiveProducts(String category) {
+		return current().activeByCategory.getOrDefault(category, List.of());
+	}
+
+	public List<ProductSummary> getNewestActiveProducts(int limit) {
+		List<ProductSummary> newest = current().newestProducts;
+		return newest.subList(0, Math.min(limit, newest.size()));
+	}
+
+	public List<Category> getActiveCategories() {
+		return current().activeCategories;
+	}
+
+	public List<Category> getNewestActiveCategories(int limit) {
+		List<Category> newest = current().newestCategories;
+		return newest.subList(0, Math.min(limit, newest.size()));
+	}
+
+	// ==================== INVALIDATION ====================
+
+	/**
+	 * Rebuilds the snapshot once the current transaction commits (immediately without one).
+	 */
+	public void invalidate() {
+		TransactionHooks.afterCommit(this::rebuild);
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public synchronized void rebuild() {
+		long start = System.currentTimeMillis();
+		snapshot = new Snapshot(productRepository.findAllSummaries(), categoryRepository.findAll());
+		rebuilds.incrementAndGet();
+		lastRebuildMs = System.currentTimeMillis() - start;
+		log.debug("Catalog cache rebuilt in {} ms", lastRebuildMs);
+	}
+
+	private Snapshot current() {
+		Snapshot s = snapshot;
+		if (s != null) {
+			hits.incrementAndGet();
+			return s;
+		}
+		misses.incrementAndGet();
+		synchronized (this) {
+			if (snapshot == null) {
+				rebuild();
+			}
+			return snapshot;
+		}
+	}
+
+	// ==================== METRICS ====================
+
+	public Map<String, Object> getMetrics() {
+		Snapshot s = snapshot;
+		Map<String, Object> metrics = new LinkedHashMap<>();
+		metrics.put("hits", hits.get());
+		metrics.put("misses", misses.get());
+		metrics.put("rebuilds", rebuilds.get());
+		metrics.put("lastRebuildMs", lastRebuildMs);
+		metrics.put("detailLoads", detailLoads.get());
+		metrics.put("products", s != null ? s.summariesById.size() : 0);
+		metrics.put("loadedDetails", s != null ? s.details.size() : 0);
+		metrics.put("activeProducts", s != null ? s.activeProducts.size() : 0);
+		metrics.put("activeCategories", s != null ? s.activeCategories.size() : 0);
+		return metrics;
+	}
+
+	private static final class Snapshot {
+		final Map<Integer, ProductSummary> summariesById;
+		final Map<Integer, Product> details = new ConcurrentHashMap<>();
+		final List<ProductSummary> activeProducts;
+		final Map<String, List<ProductSummary>> activeByCategory;
+		final List<ProductSummary> newestProducts;
+		final List<Category> activeCategories;
+		final List<Category> newestCategories;
+
+		Snapshot(List<ProductSummary> products, List<Category> categories) {
+			Map<Integer, ProductSummary> byId = new HashMap<>();
+			List<ProductSummary> active = new ArrayList<>();
+			Map<String, List<ProductSummary>> byCategory = new HashMap<>();
+			for (ProductSummary product : products) {
+				byId.put(product.getId(), product);
+				if (Boolean.TRUE.equals(product.getIsActive())) {
+					active.add(product);
+				}
+			}
+			active.sort(Comparator.comparing(ProductSummary::getId));
+			for (ProductSummary product : active) {
+				if (product.getCategory() != null) {
+					byCategory.computeIfAbsent(product.getCategory(), k -> new ArrayList<>()).add(product);
+				}
+			}
+			byCategory.replaceAll((category, list) -> List.copyOf(list));
+
+			List<Category> activeCategories = categories.stream()
+					.filter(c -> Boolean.TRUE.equals(c.getIsActive()))
+					.sorted(Comparator.comparing(Category::getId))
+					.toList();
+
+			this.summariesById = Map.copyOf(byId);
+			this.activeProducts = List.copyOf(active);
+			this.activeByCategory = Map.copyOf(byCategory);
+			this.newestProducts = active.stream().sorted(Comparator.comparing(ProductSummary::getId).reversed()).toList();
+			this.activeCategories = activeCategories;
+			this.newestCategories = activeCategories.stream()
+					.sorted(Comparator.comparing(Category::getId).reversed()).toList();
+		}
+	}
+}
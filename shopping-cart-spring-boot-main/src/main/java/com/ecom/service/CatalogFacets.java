@@ -0,0 +1,436 @@
+package com.ecom.service;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.ecom.model.Product;
+import com.ecom.model.ProductSummary;
+import com.ecom.repository.ProductRepository;
+import com.ecom.util.TransactionHooks;
+
+/**
+ * In-memory facet index over active products for storefront filtering.
+ *
+ * Each active product gets a small dense slot number, and every facet value (a category, a price
+ * band, ...) keeps a BitSet of the slots that have it. Slots follow product id order, so walking a
+ * result's bits yields products in id order without sorting; a freed slot is reused only by a
+ * product whose id fits between its neighbours'. A query ORs the selected values within a
+ * facet, ANDs the facets together, and counts each value against the other facets' selections,
+ * so the sidebar shows how many games every option would leave. Ownership is per user: the
+ * caller passes the user's owned product ids and they are turned into a bitmap for that query.
+ *
+ * Built on startup and then kept current by ProductServiceImpl after each commit, like
+ * ProductSearchIndex; a change touches only the changed product's bits.
+ */
+@Component
+public class CatalogFacets implements SmartInitializingSingleton {
+
+	private static final Logger log = LoggerFactory.getLogger(CatalogFacets.class);
+
+	public enum Facet {
+		CATEGORY, PRICE, DISCOUNT, FILE_SIZE, OWNED
+	}
+
+	// Band keys (used in request parameters) and their labels, in display order
+	private static final Map<String, String> PRICE_BANDS = bands(
+			"free", "Free", "under-100", "Under 100", "100-300", "100 - 300", "300-1000", "300 - 1,000",
+			"1000-plus", "1,000+");
+	private static final Map<String, String> DISCOUNT_BANDS = bands(
+			"none", "No discount", "1-24", "Up to 24% off", "25-49", "25% - 49% off", "50-plus", "50% off or more");
+	private static final Map<String, String> FILE_SIZE_BANDS = bands(
+			"under-1gb", "Under 1 GB", "1-10gb", "1 - 10 GB", "10-50gb", "10 - 50 GB", "50gb-plus", "50 GB+",
+			"unknown", "Not listed");
+	private static final Map<String, String> OWNED_BANDS = bands(
+			"owned", "In my library", "not-owned", "Not owned yet");
+
+	private static final Pattern FILE_SIZE = Pattern.compile("([0-9]+(?:[.,][0-9]+)?)\\s*([KMGT]?B)",
+			Pattern.CASE_INSENSITIVE);
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+	private final TreeMap<Integer, Integer> slotById = new TreeMap<>();
+	private final List<ProductSummary> slots = new ArrayList<>();
+	private final TreeSet<Integer> freeSlots = new TreeSet<>();
+	private final BitSet all = new BitSet();
+	// false once a product had to take a slot out of id order; results are then sorted until the next rebuild
+	private boolean slotsInIdOrder = true;
+	private final Map<Facet, Map<String, BitSet>> bitmaps = new EnumMap<>(Facet.class);
+
+	public CatalogFacets() {
+		for (Facet facet : Facet.values()) {
+			bitmaps.put(facet, new HashMap<>());
+		}
+	}
+
+	// ==================== BUILD / UPDATE ====================
+
+	/**
+	 * Runs after all beans are created but before the web server takes requests, so the first
+	 * storefront pages never see an empty catalog.
+	 */
+	@Override
+	public void afterSingletonsInstantiated() {
+		rebuild();
+	}
+
+	public void rebuild() {
+		long start = System.currentTimeMillis();
+		List<ProductSummary> products = new ArrayList<>(productRepository.findAllSummaries());
+		Map<Integer, String> fileSizes = new HashMap<>();
+		for (Object[] row : productRepository.findFileSizes()) {
+			fileSizes.put((Integer) row[0], (String) row[1]);
+		}
+		products.sort(Comparator.comparing(ProductSummary::getId));
+
+		lock.writeLock().lock();
+		try {
+			slotById.clear();
+			slots.clear();
+			freeSlots.clear();
+			slotsInIdOrder = true;
+			all.clear();
+			bitmaps.values().forEach(Map::clear);
+			for (ProductSummary product : products) {
+				add(product, fileSizes.get(product.getId()));
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+		log.info("Catalog facets built: {} active products in {} ms", all.cardinality(),
+				System.currentTimeMillis() - start);
+	}
+
+	/**
+	 * Re-indexes a new or changed product once the current transaction commits.
+	 */
+	public void onProductSaved(Product product) {
+		if (product == null || product.getId() == null) {
+			return;
+		}
+		ProductSummary summary = ProductSummary.of(product);
+		String fileSize = product.getFileSize();
+		TransactionHooks.afterCommit(() -> {
+			lock.writeLock().lock();
+			try {
+				remove(summary.getId());
+				add(summary, fileSize);
+			} finally {
+				lock.writeLock().unlock();
+			}
+		});
+	}
+
+	public void onProductDeleted(Integer id) {
+		TransactionHooks.afterCommit(() -> {
+			lock.writeLock().lock();
+			try {
+				remove(id);
+			} finally {
+				lock.writeLock().unlock();
+			}
+		});
+	}
+
+	/** Caller holds the write lock. Inactive products are not indexed. */
+	private void add(ProductSummary product, String fileSize) {
+		if (!Boolean.TRUE.equals(product.getIsActive())) {
+			return;
+		}
+		Map.Entry<Integer, Integer> lower = slotById.lowerEntry(product.getId());
+		Map.Entry<Integer, Integer> higher = slotById.higherEntry(product.getId());
+		Integer free = freeSlots.higher(lower != null ? lower.getValue() : -1);
+		int slot;
+		if (free != null && (higher == null || free < higher.getValue())) {
+			slot = free;
+			freeSlots.remove(free);
+			slots.set(slot, product);
+		} else {
+			slot = slots.size();
+			slots.add(product);
+			if (higher != null) {
+				slotsInIdOrder = false;
+			}
+		}
+		slotById.put(product.getId(), slot);
+		all.set(slot);
+		if (product.getCategory() != null) {
+			bitmap(Facet.CATEGORY, product.getCategory()).set(slot);
+		}
+		bitmap(Facet.PRICE, priceBand(product.getDiscountPrice())).set(slot);
+		bitmap(Facet.DISCOUNT, discountBand(product.getDiscount())).set(slot);
+		bitmap(Facet.FILE_SIZE, fileSizeBand(fileSize)).set(slot);
+	}
+
+	/** Caller holds the write lock. */
+	private void remove(Integer id) {
+		Integer slot = slotById.remove(id);
+		if (slot == null) {
+			return;
+		}
+		all.clear(slot);
+		for (Map<String, BitSet> values : bitmaps.values()) {
+			values.values().removeIf(bits -> {
+				bits.clear(slot);
+				return bits.isEmpty();
+			});
+		}
+		slots.set(slot, null);
+		freeSlots.add(slot);
+	}
+
+	private BitSet bitmap(Facet facet, String value) {
+		return bitmaps.get(facet).computeIfAbsent(value, k -> new BitSet());
+	}
+
+	// ==================== QUERY ====================
+
+	/**
+	 * @param selection selected values per facet; empty or missing facets do not filter
+	 * @param ownedProductIds the user's library, or null for guests (the OWNED facet is then ignored)
+	 * @return matching products in id order, with per-value counts for every facet
+	 */
+	public Result query(Map<Facet, Set<String>> selection, Collection<Integer> ownedProductIds) {
+		lock.readLock().lock();
+		try {
+			Map<Facet, Map<String, BitSet>> facets = facetsFor(ownedProductIds);
+			Map<Facet, BitSet> matches = matchesOf(facets, selection);
+			BitSet result = intersect(matches, null);
+
+			Map<Facet, Map<String, Integer>> counts = new EnumMap<>(Facet.class);
+			for (Map.Entry<Facet, Map<String, BitSet>> facet : facets.entrySet()) {
+				// a facet's own selection does not narrow its counts, so other options stay visible
+				BitSet base = matches.containsKey(facet.getKey()) ? intersect(matches, facet.getKey()) : result;
+				Map<String, Integer> valueCounts = new LinkedHashMap<>();
+				for (String value : valuesOf(facet.getKey(), facet.getValue().keySet())) {
+					BitSet bits = facet.getValue().get(value);
+					BitSet both = (BitSet) bits.clone();
+					both.and(base);
+					valueCounts.put(value, both.cardinality());
+				}
+				counts.put(facet.getKey(), valueCounts);
+			}
+			return new Result(productsOf(result), counts);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * The products of {@link #query} without the facet counts, for callers that only page through
+	 * the matches (the infinite-scroll feed).
+	 *
+	 * @return matching products in id order
+	 */
+	public List<ProductSummary> matching(Map<Facet, Set<String>> selection, Collection<Integer> ownedProductIds) {
+		lock.readLock().lock();
+		try {
+			return productsOf(intersect(matchesOf(facetsFor(ownedProductIds), selection), null));
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/** Caller holds the read lock. The shared facets plus the user's OWNED facet, if any. */
+	private Map<Facet, Map<String, BitSet>> facetsFor(Collection<Integer> ownedProductIds) {
+		Map<Facet, Map<String, BitSet>> facets = new EnumMap<>(bitmaps);
+		if (ownedProductIds != null) {
+			facets.put(Facet.OWNED, ownedBitmaps(ownedProductIds));
+		} else {
+			facets.remove(Facet.OWNED);
+		}
+		return facets;
+	}
+
+	/** Matches of each selected facet on its own (OR of its selected values). */
+	private static Map<Facet, BitSet> matchesOf(Map<Facet, Map<String, BitSet>> facets,
+			Map<Facet, Set<String>> selection) {
+		Map<Facet, BitSet> matches = new EnumMap<>(Facet.class);
+		for (Map.Entry<Facet, Map<String, BitSet>> facet : facets.entrySet()) {
+			Set<String> selected = selection.get(facet.getKey());
+			if (selected == null || selected.isEmpty()) {
+				continue;
+			}
+			BitSet union = new BitSet();
+			for (String value : selected) {
+				BitSet bits = facet.getValue().get(value);
+				if (bits != null) {
+					union.or(bits);
+				}
+			}
+			matches.put(facet.getKey(), union);
+		}
+		return matches;
+	}
+
+	/** Caller holds the read lock. AND of every facet's matches except {@code skip}'s. */
+	private BitSet intersect(Map<Facet, BitSet> matches, Facet skip) {
+		BitSet result = (BitSet) all.clone();
+		for (Map.Entry<Facet, BitSet> match : matches.entrySet()) {
+			if (match.getKey() != skip) {
+				result.and(match.getValue());
+			}
+		}
+		return result;
+	}
+
+	/** Caller holds the read lock. */
+	private List<ProductSummary> productsOf(BitSet result) {
+		List<ProductSummary> products = new ArrayList<>(result.cardinality());
+		for (int slot = result.nextSetBit(0); slot >= 0; slot = result.nextSetBit(slot + 1)) {
+			products.add(slots.get(slot));
+		}
+		if (!slotsInIdOrder) {
+			products.sort(Comparator.comparing(ProductSummary::getId));
+		}
+		return products;
+	}
+
+	/** Caller holds the read lock. */
+	private Map<String, BitSet> ownedBitmaps(Collection<Integer> ownedProductIds) {
+		BitSet owned = new BitSet();
+		for (Integer id : ownedProductIds) {
+			Integer slot = slotById.get(id);
+			if (slot != null) {
+				owned.set(slot);
+			}
+		}
+		BitSet notOwned = (BitSet) all.clone();
+		notOwned.andNot(owned);
+		Map<String, BitSet> values = new HashMap<>();
+		values.put("owned", owned);
+		values.put("not-owned", notOwned);
+		return values;
+	}
+
+	/** Band facets in their fixed order, categories alphabetically. */
+	private static List<String> valuesOf(Facet facet, Set<String> present) {
+		Map<String, String> bands = labelsOf(facet);
+		if (bands == null) {
+			List<String> names = new ArrayList<>(present);
+			names.sort(String.CASE_INSENSITIVE_ORDER);
+			return names;
+		}
+		return bands.keySet().stream().filter(present::contains).toList();
+	}
+
+	// ==================== BANDS ====================
+
+	/**
+	 * Display labels of a band facet's values, in display order; null for CATEGORY, whose values
+	 * are the category names.
+	 */
+	public static Map<String, String> labelsOf(Facet facet) {
+		return switch (facet) {
+		case PRICE -> PRICE_BANDS;
+		case DISCOUNT -> DISCOUNT_BANDS;
+		case FILE_SIZE -> FILE_SIZE_BANDS;
+		case OWNED -> OWNED_BANDS;
+		default -> null;
+		};
+	}
+
+	static String priceBand(Double price) {
+		double p = price != null ? price : 0;
+		if (p <= 0) {
+			return "free";
+		}
+		if (p < 100) {
+			return "under-100";
+		}
+		if (p < 300) {
+			return "100-300";
+		}
+		return p < 1000 ? "300-1000" : "1000-plus";
+	}
+
+	static String discountBand(int discount) {
+		if (discount <= 0) {
+			return "none";
+		}
+		if (discount < 25) {
+			return "1-24";
+		}
+		return discount < 50 ? "25-49" : "50-plus";
+	}
+
+	/**
+	 * Bands the free-text size the admin form stores, e.g. "1.25 GB", "700 MB" or "512 KB".
+	 */
+	static String fileSizeBand(String fileSize) {
+		if (fileSize == null) {
+			return "unknown";
+		}
+		Matcher m = FILE_SIZE.matcher(fileSize);
+		if (!m.find()) {
+			return "unknown";
+		}
+		double gb = Double.parseDouble(m.group(1).replace(',', '.'));
+		switch (m.group(2).toUpperCase(Locale.ROOT)) {
+		case "B" -> gb /= 1024 * 1024 * 1024;
+		case "KB" -> gb /= 1024 * 1024;
+		case "MB" -> gb /= 1024;
+		case "TB" -> gb *= 1024;
+		default -> { }
+		}
+		if (gb < 1) {
+			return "under-1gb";
+		}
+		if (gb < 10) {
+			return "1-10gb";
+		}
+		return gb < 50 ? "10-50gb" : "50gb-plus";
+	}
+
+	private static Map<String, String> bands(String... keysAndLabels) {
+		Map<String, String> bands = new LinkedHashMap<>();
+		for (int i = 0; i < keysAndLabels.length; i += 2) {
+			bands.put(keysAndLabels[i], keysAndLabels[i + 1]);
+		}
+		return Collections.unmodifiableMap(bands);
+	}
+
+	/**
+	 * Products matching a facet query (id order) and, per facet, how many products each value
+	 * would match given the other facets' selections.
+	 */
+	public static class Result {
+		private final List<ProductSummary> products;
+		private final Map<Facet, Map<String, Integer>> counts;
+
+		Result(List<ProductSummary> products, Map<Facet, Map<String, Integer>> counts) {
+			this.products = products;
+			this.counts = counts;
+		}
+
+		public List<ProductSummary> getProducts() {
+			return products;
+		}
+
+		public Map<Facet, Map<String, Integer>> getCounts() {
+			return counts;
+		}
+	}
+}
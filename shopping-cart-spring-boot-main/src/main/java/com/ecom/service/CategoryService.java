@@ -21,6 +21,8 @@ public interface CategoryService {
 
 	public List<Category> getAllActiveCategory();
 
+	public List<Category> getNewestActiveCategories(int limit);
+
 	public Page<Category> getAllCategorPagination(Integer pageNo,Integer pageSize);
 
 
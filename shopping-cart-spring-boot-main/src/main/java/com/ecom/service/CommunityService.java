@@ -1,14 +1,18 @@
 package com.ecom.service;
 
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.Set;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.ecom.model.Comment;
-import com.ecom.model.Like;
 import com.ecom.model.Notification;
 import com.ecom.model.NotificationType;
 import com.ecom.model.Post;
@@ -16,7 +20,6 @@ import com.ecom.model.UserDtls;
 import com.ecom.repository.CommentRepository;
 import com.ecom.repository.LikeRepository;
 import com.ecom.repository.PostRepository;
-import com.ecom.util.CommonUtil;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
@@ -25,6 +28,9 @@ import org.springframework.data.domain.Pageable;
 @Service
 public class CommunityService {
 
+    // Comment text quoted in a notification; keeps the message within its 500-character column
+    private static final int NOTIFICATION_EXCERPT_LENGTH = 200;
+
     @Autowired
     private PostRepository postRepository;
 
@@ -35,7 +41,13 @@ public class CommunityService {
     private LikeRepository likeRepository;
 
     @Autowired
-    private WebSocketService webSocketService;
+    private NotificationDispatcher notificationDispatcher;
+
+    @Autowired
+    private UnreadNotificationCounter unreadCounter;
+
+    @Autowired
+    private PostLikeCounter postLikeCounter;
 
     // We need a way to save notifications. Assuming NotificationRepository exists
     // from previous features
@@ -56,8 +68,8 @@ public class CommunityService {
     @Autowired
     private com.ecom.repository.NotificationRepository notificationRepository;
 
-    @Autowired
-    private CommonUtil commonUtil;
+    /** Posts per community feed page */
+    public static final int FEED_PAGE_SIZE = 10;
 
     public List<Post> getAllPosts() {
         return postRepository.findAllByOrderByCreatedAtDesc();
@@ -68,32 +80,97 @@ public class CommunityService {
         return postRepository.findAllByOrderByCreatedAtDesc(pageable);
     }
 
+    /**
+     * One page of the community feed, newest first (keyset on createdAt, id).
+     *
+     * Five queries whatever the page size: posts with their authors (and like_count), comment
+     * counts, the viewer's likes, top-level comments and their replies (both with authors). The
+     * template only reads what is loaded here and never walks the lazy likes/comments collections.
+     *
+     * @param cursor nextCursor of the previous page, or null for the first page
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    @Transactional(readOnly = true)
+    public FeedPage getFeed(UserDtls viewer, String cursor) {
+        FeedCursor before = FeedCursor.parse(cursor);
+        List<Post> rows = postRepository.findFeedBefore(before.createdAt, before.id,
+                PageRequest.of(0, FEED_PAGE_SIZE + 1));
+        boolean hasNext = rows.size() > FEED_PAGE_SIZE;
+        List<Post> posts = hasNext ? rows.subList(0, FEED_PAGE_SIZE) : rows;
+        if (posts.isEmpty()) {
+            return new FeedPage(List.of(), null);
+        }
+
+        List<Long> postIds = posts.stream().map(Post::getId).toList();
+        Map<Long, Long> commentCounts = countsOf(commentRepository.countByPostIds(postIds));
+        Set<Long> liked = viewer != null ? likeRepository.findLikedPostIds(viewer.getId(), postIds) : Set.of();
+
+        List<Comment> topLevel = commentRepository.findTopLevelByPostIds(postIds);
+        Map<Long, List<Comment>> repliesByParent = new HashMap<>();
+        if (!topLevel.isEmpty()) {
+            List<Long> parentIds = topLevel.stream().map(Comment::getId).toList();
+            for (Comment reply : commentRepository.findRepliesByParentIds(parentIds)) {
+                repliesByParent.computeIfAbsent(reply.getParentComment().getId(), k -> new ArrayList<>()).add(reply);
+            }
+        }
+        Map<Long, List<FeedComment>> commentsByPost = new HashMap<>();
+        for (Comment comment : topLevel) {
+            commentsByPost.computeIfAbsent(comment.getPost().getId(), k -> new ArrayList<>())
+                    .add(new FeedComment(comment, repliesByParent.getOrDefault(comment.getId(), List.of())));
+        }
+
+        List<FeedPost> items = new ArrayList<>();
+        for (Post post : posts) {
+            items.add(new FeedPost(post, postLikeCounter.count(post.getId(), post.getLikeCount()),
+                    commentCounts.getOrDefault(post.getId(), 0L), liked.contains(post.getId()),
+                    commentsByPost.getOrDefault(post.getId(), List.of())));
+        }
+        Post last = posts.get(posts.size() - 1);
+        return new FeedPage(items, hasNext ? FeedCursor.encode(last.getCreatedAt(), last.getId()) : null);
+    }
+
+    private static Map<Long, Long> countsOf(List<Object[]> rows) {
+        Map<Long, Long> counts = new HashMap<>();
+        for (Object[] row : rows) {
+            counts.put((Long) row[0], (Long) row[1]);
+        }
+        return counts;
+    }
+
     public Post createPost(String content, UserDtls user) {
         Post post = new Post(content, user);
         return postRepository.save(post);
     }
 
+    /**
+     * Unlike if liked, otherwise like: a delete, then an INSERT IGNORE on uk_likes_post_user, with
+     * no read of the post or the like first. The count change goes to PostLikeCounter.
+     */
     @Transactional
     public boolean toggleLike(Long postId, UserDtls user) {
-        Post post = postRepository.findById(postId).orElseThrow(() -> new RuntimeException("Post not found"));
-        Optional<Like> existingLike = likeRepository.findByPostAndUser(post, user);
-
-        if (existingLike.isPresent()) {
-            likeRepository.delete(existingLike.get());
-            return false; // unmatched (unliked)
-        } else {
-            Like like = new Like(post, user);
-            likeRepository.save(like);
-
-            // Send Notification if liker is not the author
-            if (!post.getAuthor().getId().equals(user.getId())) {
-                sendNotification(post.getAuthor(), user, NotificationType.POST_LIKE,
-                        user.getName() + " liked your post", post);
+        if (likeRepository.deleteByPostIdAndUserId(postId, user.getId()) > 0) {
+            postLikeCounter.record(postId, -1);
+            return false; // unliked
+        }
+        if (likeRepository.insertIfAbsent(postId, user.getId(), LocalDateTime.now()) == 0) {
+            // a concurrent click liked it first, or the post is gone
+            if (!postRepository.existsById(postId)) {
+                throw new RuntimeException("Post not found");
             }
-            return true; // liked
+            return true;
+        }
+        postLikeCounter.record(postId, 1);
+
+        // Send Notification if liker is not the author
+        Post post = postRepository.findById(postId).orElseThrow(() -> new RuntimeException("Post not found"));
+        if (!post.getAuthor().getId().equals(user.getId())) {
+            sendNotification(post.getAuthor(), user, NotificationType.POST_LIKE,
+                    user.getName() + " liked your post", post);
         }
+        return true; // liked
     }
 
+    @Transactional
     public Comment addComment(Long postId, String content, UserDtls user) {
         Post post = postRepository.findById(postId).orElseThrow(() -> new RuntimeException("Post not found"));
         Comment comment = new Comment(content, post, user);
@@ -102,65 +179,37 @@ public class CommunityService {
         // Send Notification if commenter is not the author
         if (!post.getAuthor().getId().equals(user.getId())) {
             sendNotification(post.getAuthor(), user, NotificationType.POST_COMMENT,
-                    user.getName() + " commented on your post: " + content, post);
+                    user.getName() + " commented on your post: " + excerpt(content), post);
         }
 
         return savedComment;
     }
 
+    /**
+     * Saves the notification and queues its WebSocket and email delivery in the caller's
+     * transaction; NotificationDispatcher sends them after commit.
+     */
     private void sendNotification(UserDtls recipient, UserDtls actor, NotificationType type, String message,
             Post post) {
-        // Save to database with post reference
-        Notification notification = new Notification(recipient, actor, type, message, post);
-        notificationRepository.save(notification);
-
-        // Send Real-time via WebSocket
-        try {
-            webSocketService.sendNotification(recipient.getEmail(), notification);
-        } catch (Exception e) {
-            System.err.println("WebSocket notification failed: " + e.getMessage());
-        }
-
-        // Send Email Notification (Professional Template like forgot-password)
-        try {
-            String subject = "📢 Community Notification - Game Store";
-
-            String emailContent = "<div style='font-family: Arial, sans-serif; max-width: 600px; margin: 0 auto;'>"
-                    + "<div style='background: linear-gradient(135deg, #667eea 0%, #764ba2 100%); padding: 20px; text-align: center;'>"
-                    + "<h1 style='color: white; margin: 0;'>🎮 Game Store Community</h1>"
-                    + "</div>"
-                    + "<div style='padding: 30px; background-color: #f8f9fa;'>"
-                    + "<h2 style='color: #333;'>Hello " + recipient.getName() + ",</h2>"
-                    + "<p style='font-size: 16px; color: #555;'>You have a new notification from our community!</p>"
-                    + "<div style='background-color: white; border-left: 4px solid #667eea; padding: 15px; margin: 20px 0;'>"
-                    + "<p style='margin: 0; font-size: 18px;'><strong>" + actor.getName() + "</strong> " + message
-                    + "</p>"
-                    + "</div>"
-                    + "<p style='font-size: 14px; color: #777;'>Visit our community to see the full activity and interact with other gamers!</p>"
-                    + "<div style='text-align: center; margin-top: 30px;'>"
-                    + "<a href='http://localhost:8080/user/community' style='background: linear-gradient(135deg, #667eea 0%, #764ba2 100%); color: white; padding: 12px 30px; text-decoration: none; border-radius: 5px; font-weight: bold;'>View Community</a>"
-                    + "</div>"
-                    + "</div>"
-                    + "<div style='padding: 15px; text-align: center; background-color: #333; color: #aaa; font-size: 12px;'>"
-                    + "<p>© 2026 Game Store. All rights reserved.</p>"
-                    + "<p>This email was sent to " + recipient.getEmail() + "</p>"
-                    + "</div>"
-                    + "</div>";
-
-            Boolean emailSent = commonUtil.sendNotificationEmail(recipient.getEmail(), subject, emailContent);
-            if (emailSent) {
-                System.out.println("Email notification sent to: " + recipient.getEmail());
-            }
-        } catch (Exception e) {
-            // Log error but don't fail the main operation
-            System.err.println("Failed to send email notification to " + recipient.getEmail() + ": " + e.getMessage());
-            e.printStackTrace();
+        Notification notification = notificationRepository.save(new Notification(recipient, actor, type, message, post));
+        notificationDispatcher.enqueue(notification);
+        unreadCounter.created(recipient);
+    }
+
+    private static String excerpt(String content) {
+        if (content == null || content.length() <= NOTIFICATION_EXCERPT_LENGTH) {
+            return content;
         }
+        int end = NOTIFICATION_EXCERPT_LENGTH - 1;
+        if (Character.isHighSurrogate(content.charAt(end - 1))) {
+            end--; // do not split an emoji
+        }
+        return content.substring(0, end) + "\u2026";
     }
 
     public Long getLikeCount(Long postId) {
-        Post post = postRepository.findById(postId).orElseThrow();
-        return likeRepository.countByPost(post);
+        Long stored = postRepository.findLikeCount(postId).orElse(0L);
+        return postLikeCounter.count(postId, stored);
     }
 
     public List<Post> getPostsByUser(UserDtls user) {
@@ -191,6 +240,7 @@ public class CommunityService {
     }
 
     // Twitter-style reply to comment
+    @Transactional
     public Comment addReply(Long parentCommentId, String content, UserDtls user) {
         Comment parentComment = commentRepository.findById(parentCommentId)
                 .orElseThrow(() -> new RuntimeException("Parent comment not found"));
@@ -202,7 +252,7 @@ public class CommunityService {
         // Notify the parent comment author
         if (!parentComment.getAuthor().getId().equals(user.getId())) {
             sendNotification(parentComment.getAuthor(), user, NotificationType.POST_COMMENT,
-                    user.getName() + " replied to your comment: " + content, parentComment.getPost());
+                    user.getName() + " replied to your comment: " + excerpt(content), parentComment.getPost());
         }
 
         return savedReply;
@@ -230,4 +280,104 @@ public class CommunityService {
         }
         commentRepository.delete(comment);
     }
+
+    // ==================== FEED PAGE ====================
+
+    /**
+     * One feed page; nextCursor is null on the last page.
+     */
+    public static class FeedPage {
+        private final List<FeedPost> posts;
+        private final String nextCursor;
+
+        FeedPage(List<FeedPost> posts, String nextCursor) {
+            this.posts = posts;
+            this.nextCursor = nextCursor;
+        }
+
+        public List<FeedPost> getPosts() { return posts; }
+        public String getNextCursor() { return nextCursor; }
+        public boolean hasNext() { return nextCursor != null; }
+    }
+
+    /**
+     * A post with its counts, the viewer's like and its top-level comments. Exposes the post's own
+     * getters so templates can use it in place of the entity.
+     */
+    public static class FeedPost {
+        private final Post post;
+        private final long likeCount;
+        private final long commentCount;
+        private final boolean likedByMe;
+        private final List<FeedComment> comments;
+
+        FeedPost(Post post, long likeCount, long commentCount, boolean likedByMe, List<FeedComment> comments) {
+            this.post = post;
+            this.likeCount = likeCount;
+            this.commentCount = commentCount;
+            this.likedByMe = likedByMe;
+            this.comments = comments;
+        }
+
+        public Long getId() { return post.getId(); }
+        public String getContent() { return post.getContent(); }
+        public UserDtls getAuthor() { return post.getAuthor(); }
+        public LocalDateTime getCreatedAt() { return post.getCreatedAt(); }
+        public long getLikeCount() { return likeCount; }
+        public long getCommentCount() { return commentCount; }
+        public boolean isLikedByMe() { return likedByMe; }
+        public List<FeedComment> getComments() { return comments; }
+    }
+
+    /**
+     * A top-level comment with its (preloaded) replies.
+     */
+    public static class FeedComment {
+        private final Comment comment;
+        private final List<Comment> replies;
+
+        FeedComment(Comment comment, List<Comment> replies) {
+            this.comment = comment;
+            this.replies = replies;
+        }
+
+        public Long getId() { return comment.getId(); }
+        public String getContent() { return comment.getContent(); }
+        public UserDtls getAuthor() { return comment.getAuthor(); }
+        public LocalDateTime getCreatedAt() { return comment.getCreatedAt(); }
+        public List<Comment> getReplies() { return replies; }
+    }
+
+    /**
+     * Position (createdAt, id) of the last post already shown, as "2024-05-01T10:15:30.123456_42"
+     */
+    private static final class FeedCursor {
+        /** First page: every post is older than this */
+        static final FeedCursor FIRST = new FeedCursor(LocalDateTime.of(9999, 12, 31, 23, 59, 59), Long.MAX_VALUE);
+
+        final LocalDateTime createdAt;
+        final Long id;
+
+        FeedCursor(LocalDateTime createdAt, Long id) {
+            this.createdAt = createdAt;
+            this.id = id;
+        }
+
+        static String encode(LocalDateTime createdAt, Long id) {
+            return createdAt + "_" + id;
+        }
+
+        static FeedCursor parse(String cursor) {
+            if (cursor == null || cursor.isBlank()) {
+                return FIRST;
+            }
+            int sep = cursor.lastIndexOf('_');
+            try {
+                return new FeedCursor(LocalDateTime.parse(cursor.substring(0, sep)),
+                        Long.parseLong(cursor.substring(sep + 1)));
+            } catch (DateTimeParseException | IndexOutOfBoundsException | NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid feed cursor: " + cursor);
+            }
+        }
+    }
 }
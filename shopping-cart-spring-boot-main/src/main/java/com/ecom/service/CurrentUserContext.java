@@ -0,0 +1,75 @@
+package com.ecom.service;
+
+import java.security.Principal;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.annotation.RequestScope;
+
+import com.ecom.config.CustomUser;
+import com.ecom.model.UserDtls;
+
+/**
+ * The logged-in user and cart count, resolved at most once per request.
+ *
+ * The @ModelAttribute navbar handlers, CommonUtil and the request handlers all ask for the
+ * current user; they share this request-scoped instance instead of each querying by email. The
+ * user id is taken from the CustomUser principal and the row comes from UserCache; principals of
+ * any other type fall back to the email lookup.
+ */
+@Component
+@RequestScope
+public class CurrentUserContext {
+
+	@Autowired
+	private UserCache userCache;
+
+	@Autowired
+	private UserService userService;
+
+	@Autowired
+	private CartService cartService;
+
+	private String resolvedFor;
+	private UserDtls user;
+	private Integer cartCount;
+
+	/**
+	 * @return the user behind the principal, or null for anonymous requests or unknown users
+	 */
+	public UserDtls getUser(Principal p) {
+		if (p == null) {
+			return null;
+		}
+		if (!p.getName().equals(resolvedFor)) {
+			user = resolve(p);
+			cartCount = null;
+			resolvedFor = p.getName();
+		}
+		return user;
+	}
+
+	public int getCartCount(Principal p) {
+		UserDtls current = getUser(p);
+		if (current == null) {
+			return 0;
+		}
+		if (cartCount == null) {
+			Integer count = cartService.getCountCart(current.getId());
+			cartCount = count != null ? count : 0;
+		}
+		return cartCount;
+	}
+
+	private UserDtls resolve(Principal p) {
+		if (p instanceof Authentication auth && auth.getPrincipal() instanceof CustomUser customUser
+				&& customUser.getUser() != null && customUser.getUser().getId() != null) {
+			UserDtls cached = userCache.get(customUser.getUser().getId());
+			if (cached != null && p.getName().equals(cached.getEmail())) {
+				return cached;
+			}
+		}
+		return userService.getUserByEmail(p.getName());
+	}
+}
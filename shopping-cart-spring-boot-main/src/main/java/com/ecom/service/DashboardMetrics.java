@@ -0,0 +1,406 @@
+package com.ecom.service;
+
+import java.time.LocalDate;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.ecom.model.ProductOrder;
+import com.ecom.model.Transaction;
+import com.ecom.model.UserDtls;
+import com.ecom.repository.ProductOrderRepository;
+import com.ecom.repository.ProductRepository;
+import com.ecom.repository.TransactionRepository;
+import com.ecom.repository.UserRepository;
+import com.ecom.util.TransactionHooks;
+
+/**
+ * ตัวเลขสรุปของหน้า Admin Dashboard ที่อัพเดทแบบ incremental
+ *
+ * - Service ที่สร้าง/แก้/ลบ order, user, product และรายการ wallet จะแจ้งเหตุการณ์มาที่นี่
+ *   (นับหลัง commit เท่านั้น) หน้า dashboard จึงอ่านค่าได้ทันทีไม่ต้อง scan ตาราง
+ * - ยอดต่อวันเก็บย้อนหลังจำกัดจำนวนวัน หน่วยความจำคงที่
+ * - rebuild() คำนวณใหม่ทั้งหมดด้วย GROUP BY ตอนเริ่มระบบและทุกคืน เพื่อแก้ค่าที่คลาดเคลื่อน
+ *   query ทั้งหมดอ่านจาก snapshot เดียวกัน (REPEATABLE READ) ส่วนเหตุการณ์ที่ commit หลังเปิด snapshot
+ *   จะถูกนับลงทั้งชุดเดิมและชุดใหม่ จึงไม่หายตอนสลับชุด
+ */
+@Component
+public class DashboardMetrics {
+
+    private static final Logger log = LoggerFactory.getLogger(DashboardMetrics.class);
+
+    /** จำนวนวันย้อนหลังที่เก็บยอดรายวัน (กราฟใช้ 7 วัน) */
+    private static final int RETAINED_DAYS = 90;
+
+    private static final String CANCELLED = "Cancelled";
+    private static final String ROLE_USER = "ROLE_USER";
+
+    @Autowired
+    private ProductOrderRepository orderRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private volatile Snapshot current = new Snapshot();
+
+    // ชุดที่กำลัง rebuild (null ถ้าไม่ได้ rebuild) เหตุการณ์ที่ commit ระหว่างนั้นนับลงชุดนี้ด้วย
+    private volatile Snapshot rebuilding;
+
+    // ==================== REBUILD ====================
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${dashboard.metrics.rebuild-cron:0 0 3 * * *}")
+    public synchronized void rebuild() {
+        long start = System.currentTimeMillis();
+        Snapshot fresh = new Snapshot();
+        try {
+            TransactionTemplate tx = new TransactionTemplate(transactionManager);
+            tx.setReadOnly(true);
+            tx.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+            tx.executeWithoutResult(status -> {
+                // InnoDB เปิด snapshot ตอนอ่านครั้งแรก ไม่ใช่ตอน BEGIN จึงอ่านก่อนแล้วค่อยเริ่มรับเหตุการณ์ลง fresh
+                // เหตุการณ์ที่ commit ก่อนหน้านี้อยู่ในผล query แล้ว ที่ commit หลังจากนี้ไม่อยู่ในผล query แต่จะถูกนับลง fresh
+                // (เหลือช่วงสั้น ๆ ระหว่างสองบรรทัดนี้ที่เหตุการณ์อาจไม่ถูกนับลง fresh — rebuild รอบถัดไปจะแก้ให้)
+                fresh.products.addAndGet(productRepository.count());
+                rebuilding = fresh;
+                load(fresh);
+            });
+            current = fresh;
+        } finally {
+            // ปิดหลังสลับ current แล้ว เหตุการณ์ที่ยังเห็นชุดเก่าจึงนับลง fresh ไปด้วย
+            rebuilding = null;
+        }
+        log.info("Dashboard metrics rebuilt in {} ms", System.currentTimeMillis() - start);
+    }
+
+    /**
+     * เติมผล GROUP BY ลง fresh ด้วยการบวกเท่านั้น (ไม่ set) เพราะเหตุการณ์ที่ commit ระหว่างนี้บวกลงชุดเดียวกัน
+     */
+    private void load(Snapshot fresh) {
+        LocalDate oldest = LocalDate.now().minusDays(RETAINED_DAYS - 1);
+
+        // orders: วันที่ x สถานะ ในคำสั่งเดียว
+        for (Object[] row : orderRepository.summarizeByDateAndStatus()) {
+            LocalDate date = (LocalDate) row[0];
+            String status = (String) row[1];
+            long count = ((Number) row[2]).longValue();
+            long revenue = WalletLedger.toMinor(((Number) row[3]).doubleValue());
+
+            fresh.orders.addAndGet(count);
+            fresh.statusCounter(status).addAndGet(count);
+            boolean counted = !CANCELLED.equals(status);
+            if (counted) {
+                fresh.revenue.addAndGet(revenue);
+            }
+            if (date != null && !date.isBefore(oldest)) {
+                DayBucket day = fresh.day(date);
+                day.orders.addAndGet(count);
+                if (counted) {
+                    day.revenue.addAndGet(revenue);
+                }
+            }
+        }
+
+        for (Object[] row : userRepository.countByRole()) {
+            if (ROLE_USER.equals(row[0])) {
+                fresh.users.addAndGet(((Number) row[1]).longValue());
+            }
+        }
+        fresh.day(LocalDate.now()).newUsers.addAndGet(countUsersCreatedOn(LocalDate.now()));
+
+        for (Object[] row : orderRepository.summarizeSalesByProduct()) {
+            fresh.productSales((Integer) row[0]).addAndGet(((Number) row[1]).longValue());
+        }
+
+        for (Object[] row : transactionRepository.summarizeSuccessfulByType()) {
+            Transaction.Type type = (Transaction.Type) row[0];
+            long count = ((Number) row[1]).longValue();
+            long amount = WalletLedger.toMinor(((Number) row[2]).doubleValue());
+            if (type == Transaction.Type.TOPUP) {
+                fresh.topupAmount.addAndGet(amount);
+            } else if (type == Transaction.Type.PURCHASE) {
+                fresh.purchaseCount.addAndGet(count);
+                fresh.purchaseAmount.addAndGet(amount);
+            }
+        }
+    }
+
+    private long countUsersCreatedOn(LocalDate date) {
+        Calendar cal = Calendar.getInstance();
+        cal.set(date.getYear(), date.getMonthValue() - 1, date.getDayOfMonth(), 0, 0, 0);
+        cal.set(Calendar.MILLISECOND, 0);
+        Date startOfDay = cal.getTime();
+        cal.add(Calendar.DAY_OF_MONTH, 1);
+        Integer count = userRepository.countByCreatedDateBetween(startOfDay, cal.getTime());
+        return count != null ? count : 0;
+    }
+
+    // ==================== EVENTS ====================
+
+    public void onOrderPlaced(ProductOrder order) {
+        long amount = orderAmount(order);
+        String status = order.getStatus();
+        LocalDate date = order.getOrderDate();
+        Integer productId = productId(order);
+        long units = units(order);
+        afterCommit(s -> {
+            s.orders.incrementAndGet();
+            s.statusCounter(status).incrementAndGet();
+            DayBucket day = s.dayIfRetained(date);
+            if (day != null) {
+                day.orders.incrementAndGet();
+            }
+            if (!CANCELLED.equals(status)) {
+                s.revenue.addAndGet(amount);
+                if (day != null) {
+                    day.revenue.addAndGet(amount);
+                }
+                s.addProductSales(productId, units);
+            }
+        });
+    }
+
+    public void onOrderStatusChanged(ProductOrder order, String oldStatus) {
+        String newStatus = order.getStatus();
+        if (newStatus == null || newStatus.equals(oldStatus)) {
+            return;
+        }
+        long amount = orderAmount(order);
+        LocalDate date = order.getOrderDate();
+        Integer productId = productId(order);
+        long units = units(order);
+        afterCommit(s -> {
+            s.statusCounter(oldStatus).decrementAndGet();
+            s.statusCounter(newStatus).incrementAndGet();
+            long revenueDelta = (CANCELLED.equals(oldStatus) ? amount : 0) - (CANCELLED.equals(newStatus) ? amount : 0);
+            if (revenueDelta != 0) {
+                s.revenue.addAndGet(revenueDelta);
+                DayBucket day = s.dayIfRetained(date);
+                if (day != null) {
+                    day.revenue.addAndGet(revenueDelta);
+                }
+            }
+            long unitsDelta = (CANCELLED.equals(oldStatus) ? units : 0) - (CANCELLED.equals(newStatus) ? units : 0);
+            s.addProductSales(productId, unitsDelta);
+        });
+    }
+
+    public void onOrderDeleted(ProductOrder order) {
+        long amount = orderAmount(order);
+        String status = order.getStatus();
+        LocalDate date = order.getOrderDate();
+        Integer productId = productId(order);
+        long units = units(order);
+        afterCommit(s -> {
+            s.orders.decrementAndGet();
+            s.statusCounter(status).decrementAndGet();
+            DayBucket day = s.dayIfRetained(date);
+            if (day != null) {
+                day.orders.decrementAndGet();
+            }
+            if (!CANCELLED.equals(status)) {
+                s.revenue.addAndGet(-amount);
+                if (day != null) {
+                    day.revenue.addAndGet(-amount);
+                }
+                s.addProductSales(productId, -units);
+            }
+        });
+    }
+
+    public void onUserRegistered(UserDtls user) {
+        String role = user.getRole();
+        afterCommit(s -> {
+            if (ROLE_USER.equals(role)) {
+                s.users.incrementAndGet();
+            }
+            s.day(LocalDate.now()).newUsers.incrementAndGet();
+        });
+    }
+
+    public void onProductAdded() {
+        afterCommit(s -> s.products.incrementAndGet());
+    }
+
+    public void onProductDeleted() {
+        afterCommit(s -> s.products.decrementAndGet());
+    }
+
+    public void onTopUp(double amount) {
+        long minor = WalletLedger.toMinor(amount);
+        afterCommit(s -> s.topupAmount.addAndGet(minor));
+    }
+
+    public void onPurchase(double amount) {
+        long minor = WalletLedger.toMinor(amount);
+        afterCommit(s -> {
+            s.purchaseCount.incrementAndGet();
+            s.purchaseAmount.addAndGet(minor);
+        });
+    }
+
+    // ==================== READERS ====================
+
+    public long getTotalOrders() {
+        return current.orders.get();
+    }
+
+    public double getTotalRevenue() {
+        return WalletLedger.toBaht(current.revenue.get());
+    }
+
+    public double getRevenueOn(LocalDate date) {
+        DayBucket day = current.days.get(date);
+        return day != null ? WalletLedger.toBaht(day.revenue.get()) : 0.0;
+    }
+
+    public long getOrdersOn(LocalDate date) {
+        DayBucket day = current.days.get(date);
+        return day != null ? day.orders.get() : 0;
+    }
+
+    public long getNewUsersOn(LocalDate date) {
+        DayBucket day = current.days.get(date);
+        return day != null ? day.newUsers.get() : 0;
+    }
+
+    public Map<String, Long> getOrderStatusCounts() {
+        Snapshot s = current;
+        Map<String, Long> counts = new HashMap<>();
+        s.ordersByStatus.forEach((status, count) -> counts.put(status, count.get()));
+        counts.put("Total", s.orders.get());
+        return counts;
+    }
+
+    public long getUserCount() {
+        return current.users.get();
+    }
+
+    public long getProductCount() {
+        return current.products.get();
+    }
+
+    public double getTopupAmount() {
+        return WalletLedger.toBaht(current.topupAmount.get());
+    }
+
+    public double getPurchaseRevenue() {
+        return WalletLedger.toBaht(current.purchaseAmount.get());
+    }
+
+    public long getPurchaseCount() {
+        return current.purchaseCount.get();
+    }
+
+    /**
+     * จำนวนชิ้นที่ขายได้ของสินค้า (ไม่รวม order ที่ Cancelled)
+     */
+    public long getProductSales(Integer productId) {
+        AtomicLong sales = productId != null ? current.salesByProduct.get(productId) : null;
+        return sales != null ? sales.get() : 0;
+    }
+
+    // ==================== HELPERS ====================
+
+    private static Integer productId(ProductOrder order) {
+        return order.getProduct() != null ? order.getProduct().getId() : null;
+    }
+
+    private static long units(ProductOrder order) {
+        return order.getQuantity() != null ? order.getQuantity() : 0;
+    }
+
+    private static long orderAmount(ProductOrder order) {
+        double price = order.getPrice() != null ? order.getPrice() : 0.0;
+        int quantity = order.getQuantity() != null ? order.getQuantity() : 0;
+        return WalletLedger.toMinor(price * quantity);
+    }
+
+    /**
+     * นับหลัง commit เท่านั้น ถ้า rollback ตัวเลขจะไม่เปลี่ยน (ถ้าไม่มี transaction นับทันที)
+     */
+    private void afterCommit(Consumer<Snapshot> update) {
+        TransactionHooks.afterCommit(() -> apply(update));
+    }
+
+    /**
+     * อ่าน rebuilding ก่อน current: ถ้าเห็น rebuilding เป็น null แปลว่าสลับ current เป็นชุดใหม่ไปแล้ว
+     */
+    private void apply(Consumer<Snapshot> update) {
+        Snapshot pending = rebuilding;
+        Snapshot live = current;
+        update.accept(live);
+        if (pending != null && pending != live) {
+            update.accept(pending);
+        }
+    }
+
+    private static final class Snapshot {
+        final AtomicLong orders = new AtomicLong();
+        final AtomicLong revenue = new AtomicLong(); // ไม่รวม order ที่ Cancelled (สตางค์)
+        final AtomicLong users = new AtomicLong();
+        final AtomicLong products = new AtomicLong();
+        final AtomicLong topupAmount = new AtomicLong();
+        final AtomicLong purchaseAmount = new AtomicLong();
+        final AtomicLong purchaseCount = new AtomicLong();
+        final Map<String, AtomicLong> ordersByStatus = new ConcurrentHashMap<>();
+        final Map<LocalDate, DayBucket> days = new ConcurrentHashMap<>();
+        final Map<Integer, AtomicLong> salesByProduct = new ConcurrentHashMap<>();
+
+        AtomicLong statusCounter(String status) {
+            return ordersByStatus.computeIfAbsent(status != null ? status : "Unknown", k -> new AtomicLong());
+        }
+
+        AtomicLong productSales(Integer productId) {
+            return salesByProduct.computeIfAbsent(productId, k -> new AtomicLong());
+        }
+
+        void addProductSales(Integer productId, long units) {
+            if (productId != null && units != 0) {
+                productSales(productId).addAndGet(units);
+            }
+        }
+
+        DayBucket day(LocalDate date) {
+            return days.computeIfAbsent(date, k -> new DayBucket());
+        }
+
+        DayBucket dayIfRetained(LocalDate date) {
+            if (date == null || date.isBefore(LocalDate.now().minusDays(RETAINED_DAYS - 1))) {
+                return null;
+            }
+            return day(date);
+        }
+    }
+
+    private static final class DayBucket {
+        final AtomicLong orders = new AtomicLong();
+        final AtomicLong revenue = new AtomicLong();
+        final AtomicLong newUsers = new AtomicLong();
+    }
+}
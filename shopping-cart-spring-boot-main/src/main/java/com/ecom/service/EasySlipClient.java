@@ -0,0 +1,268 @@
+package com.ecom.service;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.client.RestClient;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * HTTP client สำหรับ EasySlip API
+ *
+ * - ใช้ java.net.http.HttpClient (รองรับ HTTP/2 และ reuse connection ในตัว) ผ่าน RestClient
+ * - กำหนด connect/read timeout ทุกครั้งที่เรียก
+ * - Bulkhead: จำกัดจำนวน request ที่ค้างพร้อมกัน ถ้าเต็มจะคืนผลล้มเหลวทันที
+ * - Circuit breaker: ถ้าล้มเหลวติดกันเกินกำหนด จะหยุดเรียก API ชั่วคราว
+ * - ส่งสลิปเป็น Resource (stream จากไฟล์) และ decode response เป็น record โดยตรง
+ */
+@Component
+public class EasySlipClient {
+
+    private static final Logger log = LoggerFactory.getLogger(EasySlipClient.class);
+
+    @Value("${easyslip.api.url}")
+    private String apiUrl;
+
+    @Value("${easyslip.api.key}")
+    private String apiKey;
+
+    @Value("${easyslip.http.connect-timeout-ms:2000}")
+    private long connectTimeoutMs;
+
+    @Value("${easyslip.http.read-timeout-ms:10000}")
+    private long readTimeoutMs;
+
+    @Value("${easyslip.http.max-concurrent:8}")
+    private int maxConcurrent;
+
+    @Value("${easyslip.http.bulkhead-wait-ms:500}")
+    private long bulkheadWaitMs;
+
+    @Value("${easyslip.breaker.failure-threshold:5}")
+    private int failureThreshold;
+
+    @Value("${easyslip.breaker.open-ms:30000}")
+    private long openMs;
+
+    private RestClient restClient;
+    private Semaphore bulkhead;
+    private CircuitBreaker breaker;
+
+    private final AtomicLong calls = new AtomicLong();
+    private final AtomicLong bulkheadRejected = new AtomicLong();
+    private final AtomicLong breakerRejected = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong totalLatencyMs = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        HttpClient httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+        requestFactory.setReadTimeout(Duration.ofMillis(readTimeoutMs));
+
+        restClient = RestClient.builder()
+                .requestFactory(requestFactory)
+                .baseUrl(apiUrl)
+                .defaultHeaders(headers -> headers.setBearerAuth(apiKey))
+                .build();
+        bulkhead = new Semaphore(maxConcurrent);
+        breaker = new CircuitBreaker(failureThreshold, openMs);
+    }
+
+    /**
+     * ส่งสลิปไปตรวจสอบ — ไม่ throw exception, ถ้าผิดพลาดจะได้ ApiResponse ที่ status != 200
+     *
+     * @param slip Resource ที่มีชื่อไฟล์ (เช่น FileSystemResource) เนื้อหาจะถูก stream ตอนเขียน request
+     */
+    public ApiResponse verify(Resource slip) {
+        if (!breaker.allowRequest()) {
+            breakerRejected.incrementAndGet();
+            return ApiResponse.error("EasySlip API ไม่พร้อมใช้งานชั่วคราว กรุณาลองใหม่ภายหลัง");
+        }
+
+        boolean acquired;
+        try {
+            acquired = bulkhead.tryAcquire(bulkheadWaitMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return ApiResponse.error("การเรียก EasySlip API ถูกยกเลิก");
+        }
+        if (!acquired) {
+            bulkheadRejected.incrementAndGet();
+            breaker.release();
+            return ApiResponse.error("EasySlip API มีคำขอค้างอยู่มาก กรุณาลองใหม่อีกครั้ง");
+        }
+
+        long start = System.currentTimeMillis();
+        calls.incrementAndGet();
+        try {
+            MultiValueMap<String, Object> body = new LinkedMultiValueMap<>();
+            body.add("file", slip);
+
+            ApiResponse response = restClient.post()
+                    .contentType(MediaType.MULTIPART_FORM_DATA)
+                    .body(body)
+                    .retrieve()
+                    // 4xx = สลิปไม่ถูกต้อง/อ่านไม่ได้ — อ่าน body ตามปกติ ไม่นับเป็นความล้มเหลวของ API
+                    .onStatus(HttpStatusCode::is4xxClientError, (request, res) -> { })
+                    .body(ApiResponse.class);
+
+            breaker.recordSuccess();
+            return response != null ? response : ApiResponse.error("ไม่ได้รับ Response จาก EasySlip API");
+        } catch (Exception e) {
+            failures.incrementAndGet();
+            breaker.recordFailure();
+            log.warn("EasySlip call failed after {} ms: {}", System.currentTimeMillis() - start, e.getMessage());
+            return ApiResponse.error("เกิดข้อผิดพลาดในการเรียก EasySlip API: " + e.getMessage());
+        } finally {
+            totalLatencyMs.addAndGet(System.currentTimeMillis() - start);
+            bulkhead.release();
+        }
+    }
+
+    public Map<String, Object> getMetrics() {
+        long n = calls.get();
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("calls", n);
+        metrics.put("failures", failures.get());
+        metrics.put("avgLatencyMs", n > 0 ? totalLatencyMs.get() / n : 0);
+        metrics.put("inFlight", maxConcurrent - bulkhead.availablePermits());
+        metrics.put("bulkheadRejected", bulkheadRejected.get());
+        metrics.put("breakerState", breaker.state().name());
+        metrics.put("breakerRejected", breakerRejected.get());
+        return metrics;
+    }
+
+    // ====================== Circuit Breaker ======================
+
+    /**
+     * Circuit breaker แบบนับความล้มเหลวติดกัน
+     * CLOSED → (ล้มเหลวครบ threshold) → OPEN → (ครบเวลา) → HALF_OPEN ให้ลอง 1 request
+     */
+    static class CircuitBreaker {
+
+        enum State { CLOSED, OPEN, HALF_OPEN }
+
+        private final int failureThreshold;
+        private final long openMs;
+        private final AtomicInteger consecutiveFailures = new AtomicInteger();
+        private volatile State state = State.CLOSED;
+        private volatile long openedAt;
+
+        CircuitBreaker(int failureThreshold, long openMs) {
+            this.failureThreshold = failureThreshold;
+            this.openMs = openMs;
+        }
+
+        synchronized boolean allowRequest() {
+            if (state == State.OPEN) {
+                if (System.currentTimeMillis() - openedAt < openMs) {
+                    return false;
+                }
+                state = State.HALF_OPEN;
+                return true;
+            }
+            // HALF_OPEN: มี request ทดลองค้างอยู่แล้ว
+            return state == State.CLOSED;
+        }
+
+        /** คืนสิทธิ์ทดลองของ HALF_OPEN เมื่อ request ไม่ได้ถูกส่งจริง */
+        synchronized void release() {
+            if (state == State.HALF_OPEN) {
+                state = State.OPEN;
+                openedAt = 0;
+            }
+        }
+
+        synchronized void recordSuccess() {
+            consecutiveFailures.set(0);
+            state = State.CLOSED;
+        }
+
+        synchronized void recordFailure() {
+            if (state == State.HALF_OPEN || consecutiveFailures.incrementAndGet() >= failureThreshold) {
+                state = State.OPEN;
+                openedAt = System.currentTimeMillis();
+                log.warn("EasySlip circuit breaker opened for {} ms", openMs);
+            }
+        }
+
+        State state() {
+            return state;
+        }
+    }
+
+    // ====================== Response Records ======================
+
+    /**
+     * Response จาก EasySlip API (ดูโครงสร้างใน {@link EasySlipService})
+     */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record ApiResponse(int status, String message, SlipData data) {
+        static ApiResponse error(String message) {
+            return new ApiResponse(0, message, null);
+        }
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record SlipData(String transRef, String date, Amount amount, Party sender, Party receiver) {
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Amount(Double amount) {
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Party(Bank bank, Account account, String displayName, String name) {
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Bank(String id, String name, String short_name, String code) {
+    }
+
+    /**
+     * name อาจเป็น object { th, en } หรือ string ธรรมดา แล้วแต่ธนาคาร จึงรับเป็น Object
+     */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Account(Object name, Proxy proxy) {
+        public String displayName() {
+            if (name instanceof Map<?, ?> names) {
+                Object th = names.get("th");
+                if (th != null && !th.toString().isBlank()) {
+                    return th.toString().trim();
+                }
+                Object en = names.get("en");
+                return en != null ? en.toString().trim() : "";
+            }
+            return name != null ? name.toString().trim() : "";
+        }
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Proxy(String type, String account) {
+    }
+}
@@ -4,19 +4,17 @@ import java.util.Map;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.io.ByteArrayResource;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpMethod;
-import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
+import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Service;
-import org.springframework.util.LinkedMultiValueMap;
-import org.springframework.util.MultiValueMap;
-import org.springframework.web.client.RestTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
+import com.ecom.service.EasySlipClient.ApiResponse;
+import com.ecom.service.EasySlipClient.Bank;
+import com.ecom.service.EasySlipClient.Party;
+import com.ecom.service.EasySlipClient.SlipData;
+
 /**
  * Service สำหรับเรียก EasySlip API เพื่อตรวจสอบสลิปการโอนเงิน
  * 
@@ -48,11 +46,8 @@ public class EasySlipService {
 
     private static final Logger log = LoggerFactory.getLogger(EasySlipService.class);
 
-    @Value("${easyslip.api.url}")
-    private String apiUrl;
-
-    @Value("${easyslip.api.key}")
-    private String apiKey;
+    @Autowired
+    private EasySlipClient easySlipClient;
 
     @Value("${easyslip.receiver.bank.id:}")
     private String expectedReceiverBankId;
@@ -63,169 +58,88 @@ public class EasySlipService {
     @Value("${promptpay.id}")
     private String expectedPromptPayId;
 
-    private final RestTemplate restTemplate;
-
-    public EasySlipService() {
-        this.restTemplate = new RestTemplate();
-    }
-
     /**
      * ส่งรูปสลิปไปยัง EasySlip API เพื่อตรวจสอบ
      */
-    @SuppressWarnings("unchecked")
     public EasySlipResponse verifySlip(MultipartFile file) {
-        try {
-            // สร้าง Headers
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.MULTIPART_FORM_DATA);
-            headers.setBearerAuth(apiKey);
-
-            // สร้าง Body (multipart/form-data)
-            MultiValueMap<String, Object> body = new LinkedMultiValueMap<>();
-            body.add("file", new ByteArrayResource(file.getBytes()) {
-                @Override
-                public String getFilename() {
-                    return file.getOriginalFilename();
-                }
-            });
-
-            HttpEntity<MultiValueMap<String, Object>> requestEntity = new HttpEntity<>(body, headers);
+        return verifySlip(file.getResource());
+    }
 
-            // เรียก API
-            ResponseEntity<Map> response = restTemplate.exchange(
-                    apiUrl,
-                    HttpMethod.POST,
-                    requestEntity,
-                    Map.class
-            );
+    /**
+     * ส่งรูปสลิป (Resource) ไปยัง EasySlip API — เนื้อไฟล์ถูก stream ตอนส่ง ไม่ต้องโหลดทั้งไฟล์เข้า memory
+     */
+    public EasySlipResponse verifySlip(Resource slip) {
+        ApiResponse response = easySlipClient.verify(slip);
 
-            Map<String, Object> responseBody = response.getBody();
-            if (responseBody == null) {
-                return EasySlipResponse.failed("ไม่ได้รับ Response จาก EasySlip API");
+        // ตรวจสอบ status
+        if (response.status() != 200) {
+            if (response.status() == 0) {
+                return EasySlipResponse.failed(response.message());
             }
-
-            // ===== LOG RAW RESPONSE เพื่อ debug =====
-            log.info("===== EasySlip API Raw Response =====");
-            log.info("Full response: {}", responseBody);
-
-            // ตรวจสอบ status
-            Object statusObj = responseBody.get("status");
-            int status = 0;
-            if (statusObj instanceof Integer) {
-                status = (Integer) statusObj;
-            } else if (statusObj instanceof Number) {
-                status = ((Number) statusObj).intValue();
+            String errorMsg = "EasySlip API ตอบกลับ status: " + response.status();
+            if (response.message() != null) {
+                errorMsg += " - " + response.message();
             }
+            return EasySlipResponse.failed(errorMsg);
+        }
 
-            if (status != 200) {
-                String errorMsg = "EasySlip API ตอบกลับ status: " + status;
-                if (responseBody.containsKey("message")) {
-                    errorMsg += " - " + responseBody.get("message");
-                }
-                return EasySlipResponse.failed(errorMsg);
-            }
+        SlipData data = response.data();
+        if (data == null) {
+            return EasySlipResponse.failed("ไม่พบข้อมูลในสลิป (data is null)");
+        }
 
-            // Parse data
-            Map<String, Object> data = (Map<String, Object>) responseBody.get("data");
-            if (data == null) {
-                return EasySlipResponse.failed("ไม่พบข้อมูลในสลิป (data is null)");
-            }
+        double slipAmount = data.amount() != null && data.amount().amount() != null ? data.amount().amount() : 0.0;
+        String transRef = safeString(data.transRef());
 
-            // Parse amount
-            Map<String, Object> amountObj = (Map<String, Object>) data.get("amount");
-            double slipAmount = 0.0;
-            if (amountObj != null) {
-                Object amountVal = amountObj.get("amount");
-                if (amountVal instanceof Number) {
-                    slipAmount = ((Number) amountVal).doubleValue();
-                }
-            }
+        // Parse sender
+        String senderName = "";
+        if (data.sender() != null && data.sender().account() != null) {
+            senderName = data.sender().account().displayName();
+        }
 
-            // Parse transRef
-            String transRef = data.get("transRef") != null ? data.get("transRef").toString() : "";
-
-            // Parse sender
-            String senderName = "";
-            Map<String, Object> sender = (Map<String, Object>) data.get("sender");
-            if (sender != null) {
-                Map<String, Object> senderAccount = (Map<String, Object>) sender.get("account");
-                if (senderAccount != null) {
-                    Map<String, Object> senderNameObj = (Map<String, Object>) senderAccount.get("name");
-                    if (senderNameObj != null) {
-                        senderName = senderNameObj.get("th") != null
-                                ? senderNameObj.get("th").toString()
-                                : (senderNameObj.get("en") != null ? senderNameObj.get("en").toString() : "");
-                    }
+        // Parse receiver — รองรับหลายรูปแบบ JSON ที่ EasySlip อาจส่งกลับมา
+        String receiverBankId = "";
+        String receiverBankName = "";
+        String receiverName = "";
+        String receiverProxyAccount = ""; // เลขพร้อมเพย์ผู้รับ
+        Party receiver = data.receiver();
+        if (receiver != null) {
+            // แบบที่ 1: receiver.bank.id (บาง response ใช้ short_name หรือ code)
+            Bank receiverBank = receiver.bank();
+            if (receiverBank != null) {
+                receiverBankId = safeString(receiverBank.id());
+                receiverBankName = safeString(receiverBank.name());
+                if (receiverBankId.isEmpty()) {
+                    receiverBankId = safeString(receiverBank.short_name());
                 }
-            }
-
-            // Parse receiver — รองรับหลายรูปแบบ JSON ที่ EasySlip อาจส่งกลับมา
-            String receiverBankId = "";
-            String receiverBankName = "";
-            String receiverName = "";
-            String receiverProxyAccount = ""; // เลขพร้อมเพย์ผู้รับ
-            Map<String, Object> receiver = (Map<String, Object>) data.get("receiver");
-            if (receiver != null) {
-                log.info("Receiver data: {}", receiver);
-
-                // แบบที่ 1: receiver.bank.id
-                Map<String, Object> receiverBank = (Map<String, Object>) receiver.get("bank");
-                if (receiverBank != null) {
-                    log.info("Receiver bank: {}", receiverBank);
-                    receiverBankId = safeString(receiverBank.get("id"));
-                    receiverBankName = safeString(receiverBank.get("name"));
-                    // บาง response ใช้ short_name
-                    if (receiverBankId.isEmpty()) {
-                        receiverBankId = safeString(receiverBank.get("short_name"));
-                    }
-                    if (receiverBankId.isEmpty()) {
-                        receiverBankId = safeString(receiverBank.get("code"));
-                    }
-                }
-
-                // แบบที่ 2: receiver.account.name
-                Map<String, Object> receiverAccount = (Map<String, Object>) receiver.get("account");
-                if (receiverAccount != null) {
-                    log.info("Receiver account: {}", receiverAccount);
-                    Object nameObj = receiverAccount.get("name");
-                    if (nameObj instanceof Map) {
-                        Map<String, Object> receiverNameMap = (Map<String, Object>) nameObj;
-                        receiverName = safeString(receiverNameMap.get("th"));
-                        if (receiverName.isEmpty()) {
-                            receiverName = safeString(receiverNameMap.get("en"));
-                        }
-                    } else if (nameObj instanceof String) {
-                        receiverName = (String) nameObj;
-                    }
-
-                    // แบบที่ 4: receiver.account.proxy (สำหรับ PromptPay)
-                    Map<String, Object> receiverProxy = (Map<String, Object>) receiverAccount.get("proxy");
-                    if (receiverProxy != null) {
-                        log.info("Receiver proxy: {}", receiverProxy);
-                        receiverProxyAccount = safeString(receiverProxy.get("account"));
-                        log.info("Receiver PromptPay ID (masked): {}", receiverProxyAccount);
-                    }
+                if (receiverBankId.isEmpty()) {
+                    receiverBankId = safeString(receiverBank.code());
                 }
+            }
 
-                // แบบที่ 3: receiver.displayName (บาง response มี field นี้)
-                if (receiverName.isEmpty()) {
-                    receiverName = safeString(receiver.get("displayName"));
-                }
-                if (receiverName.isEmpty()) {
-                    receiverName = safeString(receiver.get("name"));
+            // แบบที่ 2: receiver.account.name + แบบที่ 4: receiver.account.proxy (สำหรับ PromptPay)
+            if (receiver.account() != null) {
+                receiverName = receiver.account().displayName();
+                if (receiver.account().proxy() != null) {
+                    receiverProxyAccount = safeString(receiver.account().proxy().account());
                 }
-            } else {
-                log.warn("Receiver data is null");
             }
 
-            log.info("Parsed => amount={}, transRef={}, senderName={}, receiverName={}, receiverBankId={}, receiverBankName={}, receiverProxyAccount={}",
-                    slipAmount, transRef, senderName, receiverName, receiverBankId, receiverBankName, receiverProxyAccount);
+            // แบบที่ 3: receiver.displayName (บาง response มี field นี้)
+            if (receiverName.isEmpty()) {
+                receiverName = safeString(receiver.displayName());
+            }
+            if (receiverName.isEmpty()) {
+                receiverName = safeString(receiver.name());
+            }
+        } else {
+            log.warn("Receiver data is null");
+        }
 
-            return EasySlipResponse.success(slipAmount, transRef, senderName, receiverName, receiverBankId, receiverBankName, receiverProxyAccount);
+        log.info("Parsed => amount={}, transRef={}, senderName={}, receiverName={}, receiverBankId={}, receiverBankName={}, receiverProxyAccount={}",
+                slipAmount, transRef, senderName, receiverName, receiverBankId, receiverBankName, receiverProxyAccount);
 
-        } catch (Exception e) {
-            return EasySlipResponse.failed("เกิดข้อผิดพลาดในการเรียก EasySlip API: " + e.getMessage());
-        }
+        return EasySlipResponse.success(slipAmount, transRef, senderName, receiverName, receiverBankId, receiverBankName, receiverProxyAccount);
     }
 
     /**
@@ -237,8 +151,17 @@ public class EasySlipService {
      * 3. เลขพร้อมเพย์ผู้รับตรงกับของเรา (บางส่วน เพราะ API mask)
      */
     public SlipValidationResult validateSlip(MultipartFile file, double expectedAmount) {
-        EasySlipResponse slipData = verifySlip(file);
+        return validateSlip(verifySlip(file), expectedAmount);
+    }
 
+    /**
+     * ตรวจสอบสลิปที่บันทึกไว้แล้วใน BlobStore (ดู {@link #validateSlip(MultipartFile, double)})
+     */
+    public SlipValidationResult validateSlip(Resource slip, double expectedAmount) {
+        return validateSlip(verifySlip(slip), expectedAmount);
+    }
+
+    private SlipValidationResult validateSlip(EasySlipResponse slipData, double expectedAmount) {
         if (!slipData.isSuccess()) {
             return SlipValidationResult.failed(slipData.getErrorMessage());
         }
@@ -320,6 +243,13 @@ public class EasySlipService {
     }
 
 
+    /**
+     * สถิติของ HTTP client (latency, bulkhead, circuit breaker)
+     */
+    public Map<String, Object> getClientMetrics() {
+        return easySlipClient.getMetrics();
+    }
+
     /**
      * Safe string — ป้องกัน null
      */
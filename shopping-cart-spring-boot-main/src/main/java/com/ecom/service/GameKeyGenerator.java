@@ -0,0 +1,256 @@
+package com.ecom.service;
+
+import java.security.SecureRandom;
+import java.util.HexFormat;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.ecom.model.SiteSetting;
+import com.ecom.repository.SiteSettingRepository;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Generates game activation keys in the form XXXX-XXXX-XXXX-XXXX (A-Z, 0-9).
+ *
+ * The first 12 characters are a keyed Feistel permutation of a counter over exactly 36^12
+ * values, so two different counters can never produce the same key and no DB lookup is needed.
+ * The last 4 characters come from a shared SecureRandom so keys are not guessable from each other.
+ *
+ * Counters are reserved from site_settings in blocks under a row lock. Reservations only ever run
+ * on the single game-key-prefetch thread: the first block at startup, then the next one once the
+ * current block is three quarters used. Checkout only does an atomic increment and a few
+ * multiplications; if it ever runs out before the next block is ready it waits for that one
+ * reservation without holding a lock, so it never needs a second pool connection of its own.
+ */
+@Component
+public class GameKeyGenerator implements SmartInitializingSingleton {
+
+	private static final Logger log = LoggerFactory.getLogger(GameKeyGenerator.class);
+
+	private static final String COUNTER_KEY = "gameKey.counter";
+	private static final String SECRET_KEY = "gameKey.secret";
+
+	private static final char[] ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789".toCharArray();
+	private static final long HALF_DOMAIN = 2_176_782_336L; // 36^6
+	private static final int ROUNDS = 6;
+
+	@Autowired
+	private SiteSettingRepository siteSettingRepository;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Value("${game.key.block-size:1000}")
+	private long blockSize;
+
+	private final SecureRandom random = new SecureRandom();
+	private final ExecutorService prefetcher = Executors.newSingleThreadExecutor(r -> {
+		Thread t = new Thread(r, "game-key-prefetch");
+		t.setDaemon(true);
+		return t;
+	});
+
+	private volatile long[] roundKeys;
+	private volatile Block current = Block.EMPTY;
+	// guarded by this; the reservation in flight or done but not yet switched to
+	private CompletableFuture<Block> next;
+
+	@Override
+	public void afterSingletonsInstantiated() {
+		prefetch();
+	}
+
+	public String nextKey() {
+		long value = permute(nextCounter());
+		long suffix = random.nextLong();
+
+		char[] key = new char[19];
+		int pos = 18;
+		for (int i = 0; i < 4; i++) {
+			key[pos--] = ALPHABET[(int) Math.floorMod(suffix, 36L)];
+			suffix /= 36;
+		}
+		for (int i = 0; i < 12; i++) {
+			if (pos == 14 || pos == 9 || pos == 4) {
+				key[pos--] = '-';
+			}
+			key[pos--] = ALPHABET[(int) (value % 36)];
+			value /= 36;
+		}
+		return new String(key);
+	}
+
+	// ==================== COUNTER BLOCKS ====================
+
+	private long nextCounter() {
+		while (true) {
+			Block block = current;
+			long counter = block.next.getAndIncrement();
+			if (counter < block.end) {
+				if (counter - block.start == blockSize * 3 / 4) {
+					prefetch();
+				}
+				return counter;
+			}
+			switchBlock(block);
+		}
+	}
+
+	private void switchBlock(Block exhausted) {
+		CompletableFuture<Block> upcoming;
+		synchronized (this) {
+			if (current != exhausted) {
+				return; // another thread already switched
+			}
+			upcoming = prefetch();
+		}
+		Block block;
+		try {
+			block = upcoming.join(); // outside the monitor: the reservation runs on the prefetch thread
+		} catch (CompletionException e) {
+			throw e.getCause() instanceof RuntimeException cause ? cause : e;
+		}
+		synchronized (this) {
+			if (current == exhausted) {
+				current = block;
+			}
+			if (next == upcoming) {
+				next = null;
+			}
+		}
+	}
+
+	/**
+	 * Starts reserving the next block on the prefetch thread unless one is already on its way.
+	 */
+	private synchronized CompletableFuture<Block> prefetch() {
+		if (next == null || next.isCompletedExceptionally()) {
+			next = CompletableFuture.supplyAsync(this::reserveBlock, prefetcher);
+			next.whenComplete((block, e) -> {
+				if (e != null) {
+					log.warn("Could not reserve game key block: {}", e.getMessage());
+				}
+			});
+		}
+		return next;
+	}
+
+	/**
+	 * Reserves [start, start + blockSize) in its own transaction. Unused counters of a block are
+	 * simply skipped after a restart. Runs on the prefetch thread only.
+	 */
+	private Block reserveBlock() {
+		ensureRoundKeys();
+		try {
+			return requiresNew().execute(status -> {
+				SiteSetting counter = siteSettingRepository.findByKeyForUpdate(COUNTER_KEY)
+						.orElseGet(() -> siteSettingRepository.saveAndFlush(new SiteSetting(COUNTER_KEY, "0")));
+				long start = Long.parseLong(counter.getValue());
+				counter.setValue(Long.toString(start + blockSize));
+				siteSettingRepository.save(counter);
+				return new Block(start, start + blockSize);
+			});
+		} catch (DataIntegrityViolationException e) {
+			// another node created the counter row first
+			return reserveBlock();
+		}
+	}
+
+	/**
+	 * Loads the permutation key, creating it on first use. It is committed before any key is
+	 * issued with it: a different key after a restart could map two counters to the same key.
+	 * Runs on the prefetch thread only, before its first block is handed out.
+	 */
+	private void ensureRoundKeys() {
+		if (roundKeys != null) {
+			return;
+		}
+		String secret;
+		try {
+			secret = requiresNew().execute(status -> siteSettingRepository.findByKey(SECRET_KEY)
+					.map(SiteSetting::getValue)
+					.orElseGet(() -> {
+						byte[] bytes = new byte[ROUNDS * 8];
+						random.nextBytes(bytes);
+						return siteSettingRepository.saveAndFlush(
+								new SiteSetting(SECRET_KEY, HexFormat.of().formatHex(bytes))).getValue();
+					}));
+		} catch (DataIntegrityViolationException e) {
+			// another node created the secret first
+			secret = siteSettingRepository.findByKey(SECRET_KEY).map(SiteSetting::getValue).orElseThrow(() -> e);
+		}
+		byte[] bytes = HexFormat.of().parseHex(secret);
+		long[] keys = new long[ROUNDS];
+		for (int i = 0; i < ROUNDS; i++) {
+			for (int j = 0; j < 8; j++) {
+				keys[i] = (keys[i] << 8) | (bytes[i * 8 + j] & 0xFF);
+			}
+		}
+		roundKeys = keys;
+	}
+
+	private TransactionTemplate requiresNew() {
+		TransactionTemplate requiresNew = new TransactionTemplate(transactionManager);
+		requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+		return requiresNew;
+	}
+
+	// ==================== PERMUTATION ====================
+
+	/**
+	 * Balanced Feistel network on two base-36^6 halves: a bijection on [0, 36^12).
+	 */
+	private long permute(long counter) {
+		long[] keys = roundKeys;
+		long left = counter / HALF_DOMAIN;
+		long right = counter % HALF_DOMAIN;
+		for (int i = 0; i < ROUNDS; i++) {
+			long mixed = (left + round(right, keys[i])) % HALF_DOMAIN;
+			left = right;
+			right = mixed;
+		}
+		return left * HALF_DOMAIN + right;
+	}
+
+	private static long round(long half, long key) {
+		long z = half ^ key;
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		z ^= z >>> 31;
+		return Math.floorMod(z, HALF_DOMAIN);
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		prefetcher.shutdownNow();
+	}
+
+	private static final class Block {
+		static final Block EMPTY = new Block(0, 0);
+
+		final long start;
+		final long end;
+		final AtomicLong next;
+
+		Block(long start, long end) {
+			this.start = start;
+			this.end = end;
+			this.next = new AtomicLong(start);
+		}
+	}
+}
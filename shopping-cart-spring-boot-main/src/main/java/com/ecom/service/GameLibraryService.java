@@ -1,19 +1,26 @@
 package com.ecom.service;
 
 import java.util.List;
+import java.util.Set;
 
 import com.ecom.model.GameLibrary;
 import com.ecom.model.Product;
+import com.ecom.model.ProductOrder;
 import com.ecom.model.UserDtls;
 
 public interface GameLibraryService {
 
 	GameLibrary addToLibrary(UserDtls user, Product product, String orderId, String gameKey);
 
+	List<GameLibrary> addAllToLibrary(UserDtls user, List<ProductOrder> orders);
+
 	List<GameLibrary> getGamesByUser(Integer userId);
 
 	Boolean isGameOwned(Integer userId, Integer productId);
 
+	// Served from OwnedGamesCache; use isGameOwned for entitlement checks
+	Set<Integer> getOwnedProductIds(Integer userId);
+
 	GameLibrary markAsDownloaded(Integer gameLibraryId);
 
 	GameLibrary getGameLibraryById(Integer id);
@@ -0,0 +1,267 @@
+package com.ecom.service;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.stereotype.Service;
+import org.thymeleaf.ITemplateEngine;
+import org.thymeleaf.context.Context;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.internet.MimeMessage;
+
+/**
+ * Sends all outgoing email from a bounded in-memory queue.
+ *
+ * The body is rendered on the caller's thread from a Thymeleaf template under templates/mail/
+ * (parsed once and cached by the engine), so request data is never touched after the request
+ * ends. A few worker threads then drain the queue in batches of up to mail.batch-size and hand
+ * each batch to JavaMailSender in one call, which sends the whole batch over a single SMTP
+ * connection instead of one login per message.
+ *
+ * When the queue is full, send() fails fast instead of blocking the caller. Failed messages are
+ * not retried here; callers that need retries (NotificationDispatcher) use the returned future.
+ * With mail.enabled=false messages are rendered and counted but never sent, for local runs
+ * without an SMTP server.
+ */
+@Service
+public class MailService {
+
+    private static final Logger log = LoggerFactory.getLogger(MailService.class);
+
+    @Autowired
+    private JavaMailSender mailSender;
+
+    @Autowired
+    private ITemplateEngine templateEngine;
+
+    @Value("${mail.enabled:true}")
+    private boolean enabled;
+
+    @Value("${mail.from:${spring.mail.username:}}")
+    private String from;
+
+    @Value("${mail.from-name:Game Store}")
+    private String fromName;
+
+    @Value("${mail.workers:2}")
+    private int workers;
+
+    @Value("${mail.queue-capacity:500}")
+    private int queueCapacity;
+
+    @Value("${mail.batch-size:20}")
+    private int batchSize;
+
+    private BlockingQueue<Mail> queue;
+    private final List<Thread> workerThreads = new ArrayList<>();
+    private volatile boolean running = true;
+
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong totalSendMs = new AtomicLong();
+    private final AtomicLong maxSendMs = new AtomicLong();
+    private final AtomicInteger maxQueueDepth = new AtomicInteger();
+
+    @PostConstruct
+    public void start() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        for (int i = 1; i <= workers; i++) {
+            Thread t = new Thread(this::drain, "mail-sender-" + i);
+            t.setDaemon(true);
+            t.start();
+            workerThreads.add(t);
+        }
+    }
+
+    /**
+     * Renders templates/{@code template}.html with the variables and queues the message.
+     *
+     * @return completes once the message is handed to the SMTP server; already failed with
+     *         RejectedExecutionException when the queue is full
+     */
+    public CompletableFuture<Void> send(String to, String subject, String template, Map<String, Object> variables) {
+        Context context = new Context();
+        context.setVariables(variables);
+        Mail mail = new Mail(to, subject, templateEngine.process(template, context));
+
+        if (!queue.offer(mail)) {
+            rejected.incrementAndGet();
+            log.warn("Mail queue full ({} waiting) — dropped '{}' to {}", queue.size(), subject, to);
+            mail.result.completeExceptionally(new RejectedExecutionException("Mail queue is full"));
+            return mail.result;
+        }
+        submitted.incrementAndGet();
+        maxQueueDepth.accumulateAndGet(queue.size(), Math::max);
+        return mail.result;
+    }
+
+    /**
+     * Free queue slots, so batch producers can avoid being rejected.
+     */
+    public int remainingCapacity() {
+        return queue.remainingCapacity();
+    }
+
+    private void drain() {
+        List<Mail> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Mail first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                deliver(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("Mail worker error: {}", e.getMessage(), e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void deliver(List<Mail> batch) {
+        Map<MimeMessage, Mail> messages = new IdentityHashMap<>();
+        for (Mail mail : batch) {
+            try {
+                messages.put(toMimeMessage(mail), mail);
+            } catch (Exception e) {
+                fail(mail, e);
+            }
+        }
+        if (messages.isEmpty()) {
+            return;
+        }
+
+        long start = System.currentTimeMillis();
+        try {
+            if (enabled) {
+                mailSender.send(messages.keySet().toArray(new MimeMessage[0]));
+            }
+        } catch (MailSendException e) {
+            Map<Object, Exception> failedMessages = e.getFailedMessages();
+            for (Map.Entry<MimeMessage, Mail> entry : messages.entrySet()) {
+                Exception cause = failedMessages.isEmpty() ? e : failedMessages.get(entry.getKey());
+                if (cause != null) {
+                    fail(entry.getValue(), cause);
+                    entry.setValue(null);
+                }
+            }
+        } catch (Exception e) {
+            messages.values().forEach(mail -> fail(mail, e));
+            messages.clear();
+        } finally {
+            long elapsed = System.currentTimeMillis() - start;
+            batches.incrementAndGet();
+            totalSendMs.addAndGet(elapsed);
+            maxSendMs.accumulateAndGet(elapsed, Math::max);
+        }
+
+        for (Mail mail : messages.values()) {
+            if (mail != null) {
+                sent.incrementAndGet();
+                mail.result.complete(null);
+            }
+        }
+    }
+
+    private MimeMessage toMimeMessage(Mail mail) throws Exception {
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, "UTF-8");
+        helper.setFrom(from, fromName);
+        helper.setTo(mail.to);
+        helper.setSubject(mail.subject);
+        helper.setText(mail.html, true);
+        return message;
+    }
+
+    private void fail(Mail mail, Exception e) {
+        failed.incrementAndGet();
+        log.error("Failed to send '{}' to {}: {}", mail.subject, mail.to, e.getMessage());
+        mail.result.completeExceptionally(e);
+    }
+
+    /**
+     * Queue and throughput metrics (for /admin/mail/queue-metrics)
+     */
+    public Map<String, Object> getMetrics() {
+        long batchCount = batches.get();
+        long sendMs = totalSendMs.get();
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("enabled", enabled);
+        metrics.put("workers", workers);
+        metrics.put("queueCapacity", queueCapacity);
+        metrics.put("queueDepth", queue.size());
+        metrics.put("maxQueueDepth", maxQueueDepth.get());
+        metrics.put("submitted", submitted.get());
+        metrics.put("rejected", rejected.get());
+        metrics.put("sent", sent.get());
+        metrics.put("failed", failed.get());
+        metrics.put("batches", batchCount);
+        metrics.put("avgBatchSize", batchCount > 0 ? (sent.get() + failed.get()) / (double) batchCount : 0);
+        metrics.put("avgBatchSendMs", batchCount > 0 ? sendMs / batchCount : 0);
+        metrics.put("maxBatchSendMs", maxSendMs.get());
+        // messages per second of SMTP time, per worker
+        metrics.put("messagesPerSecond", sendMs > 0 ? sent.get() * 1000.0 / sendMs : 0);
+        return metrics;
+    }
+
+    /**
+     * Lets the workers finish what is already queued (up to 10 seconds).
+     */
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        long deadline = System.currentTimeMillis() + 10_000;
+        for (Thread t : workerThreads) {
+            try {
+                t.join(Math.max(1, deadline - System.currentTimeMillis()));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        if (!queue.isEmpty()) {
+            log.warn("Mail service stopped with {} messages unsent", queue.size());
+        }
+    }
+
+    private static final class Mail {
+        final String to;
+        final String subject;
+        final String html;
+        final CompletableFuture<Void> result = new CompletableFuture<>();
+
+        Mail(String to, String subject, String html) {
+            this.to = to;
+            this.subject = subject;
+            this.html = html;
+        }
+    }
+}
@@ -0,0 +1,384 @@
+package com.ecom.service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.ecom.model.Notification;
+import com.ecom.model.NotificationOutbox;
+import com.ecom.model.NotificationOutbox.Channel;
+import com.ecom.model.NotificationOutbox.Status;
+import com.ecom.model.UserDtls;
+import com.ecom.repository.NotificationOutboxRepository;
+import com.ecom.repository.UserRepository;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Delivers community notifications (WebSocket push and email) off the request thread.
+ *
+ * CommunityService saves the Notification and calls enqueue() in its own transaction, which
+ * writes one outbox row per channel; nothing is sent until that transaction commits. A poll
+ * every second claims due rows, pushes WebSocket rows inline (the broker is in-memory) and hands
+ * email to MailService's queue, so a slow SMTP server only delays email.
+ *
+ * - Bursts for the same recipient, post and type fold into one pending row per channel, sent as
+ *   "X and 12 others liked your post" where 12 counts distinct people, not events. Only rows not
+ *   attempted yet take new events; a row in retry backoff keeps what it had. Email rows wait
+ *   notification.email.coalesce-seconds first, and all of a recipient's due email rows go out as
+ *   one digest email.
+ * - Each channel has a token-bucket rate limit; rows over the limit stay due for the next poll.
+ * - A failed delivery is retried with exponential backoff and marked FAILED after
+ *   notification.max-attempts.
+ *
+ * Rows claimed but not delivered when the app stops are released on the next start, before the
+ * dispatch schedule begins. Like WalletLedger, this assumes a single application instance.
+ */
+@Component
+public class NotificationDispatcher implements SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(NotificationDispatcher.class);
+
+    private static final String EMAIL_SUBJECT = "📢 Community Notification - Game Store";
+    private static final String EMAIL_TEMPLATE = "mail/community_digest";
+    private static final long MAX_BACKOFF_SECONDS = 3600;
+    private static final int MAX_ACTOR_IDS_LENGTH = 1000; // notification_outbox.actor_ids
+
+    @Autowired
+    private NotificationOutboxRepository outboxRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private WebSocketService webSocketService;
+
+    @Autowired
+    private MailService mailService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${notification.dispatch.batch-size:100}")
+    private int batchSize;
+
+    @Value("${notification.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${notification.retry-backoff-seconds:30}")
+    private long retryBackoffSeconds;
+
+    @Value("${notification.websocket.max-per-second:200}")
+    private int websocketPerSecond;
+
+    @Value("${notification.email.coalesce-seconds:60}")
+    private long emailCoalesceSeconds;
+
+    @Value("${notification.email.max-per-minute:60}")
+    private int emailPerMinute;
+
+    private RateLimit websocketLimit;
+    private RateLimit emailLimit;
+
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong websocketSent = new AtomicLong();
+    private final AtomicLong emailSent = new AtomicLong();
+    private final AtomicLong emailDigests = new AtomicLong();
+    private final AtomicLong retried = new AtomicLong();
+    private final AtomicLong gaveUp = new AtomicLong();
+
+    @PostConstruct
+    public void start() {
+        websocketLimit = new RateLimit(websocketPerSecond, 1000);
+        emailLimit = new RateLimit(emailPerMinute, 60_000);
+    }
+
+    /**
+     * Queues the notification for WebSocket and email delivery. Must run inside the transaction
+     * that saved it, so the outbox rows commit (or roll back) together with it.
+     */
+    public void enqueue(Notification notification) {
+        LocalDateTime now = LocalDateTime.now();
+        enqueue(Channel.WEBSOCKET, notification, now);
+        enqueue(Channel.EMAIL, notification, now.plusSeconds(emailCoalesceSeconds));
+    }
+
+    private void enqueue(Channel channel, Notification notification, LocalDateTime dueAt) {
+        if (notification.getPost() != null) {
+            List<NotificationOutbox> open = outboxRepository.findCoalescable(notification.getRecipient().getId(),
+                    notification.getPost().getId(), notification.getType(), channel, Status.PENDING);
+            if (!open.isEmpty() && foldInto(open.get(0), notification)) {
+                coalesced.incrementAndGet();
+                return;
+            }
+        }
+        outboxRepository.save(new NotificationOutbox(channel, notification, dueAt));
+        enqueued.incrementAndGet();
+    }
+
+    /**
+     * Folds the event into the locked pending row. An actor already on the row (like, unlike,
+     * like again) only refreshes the text; a new actor also bumps actorCount.
+     *
+     * @return false when the row cannot record another actor and a new row has to be started
+     */
+    private boolean foldInto(NotificationOutbox row, Notification notification) {
+        String actorId = String.valueOf(notification.getActor().getId());
+        String actorIds = row.getActorIds();
+        boolean repeat = actorIds != null && Arrays.asList(actorIds.split(",")).contains(actorId);
+        if (!repeat) {
+            String merged = actorIds == null ? actorId : actorIds + "," + actorId;
+            if (merged.length() > MAX_ACTOR_IDS_LENGTH) {
+                return false;
+            }
+            row.setActorIds(merged);
+            row.setActorCount(row.getActorCount() + 1);
+        }
+        row.setActorName(notification.getActor().getName());
+        row.setMessage(notification.getMessage());
+        row.setNotificationId(notification.getId());
+        outboxRepository.save(row);
+        return true;
+    }
+
+    @Scheduled(fixedDelayString = "${notification.dispatch.interval-ms:1000}")
+    public void dispatch() {
+        try {
+            sendWebSocket(claim(Channel.WEBSOCKET, websocketLimit, batchSize));
+            sendEmail(claim(Channel.EMAIL, emailLimit, Math.min(batchSize, mailService.remainingCapacity())));
+        } catch (Exception e) {
+            log.error("Notification dispatch failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Claims up to {@code max} due rows of the channel, as far as its rate limit allows.
+     */
+    private List<NotificationOutbox> claim(Channel channel, RateLimit limit, int max) {
+        int granted = limit.take(max);
+        if (granted == 0) {
+            return List.of();
+        }
+        List<NotificationOutbox> rows = new TransactionTemplate(transactionManager).execute(status -> {
+            List<Long> ids = outboxRepository.findDue(channel, LocalDateTime.now(), Status.PENDING,
+                    PageRequest.of(0, granted)).stream().map(NotificationOutbox::getId).toList();
+            if (ids.isEmpty()) {
+                return List.<NotificationOutbox>of();
+            }
+            outboxRepository.claim(ids, Status.PENDING, Status.SENDING);
+            return outboxRepository.findAllById(ids).stream()
+                    .filter(o -> o.getStatus() == Status.SENDING)
+                    .toList();
+        });
+        limit.giveBack(granted - rows.size());
+        return rows;
+    }
+
+    private void sendWebSocket(List<NotificationOutbox> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        Map<Integer, UserDtls> recipients = recipientsOf(rows);
+        List<Long> done = new ArrayList<>();
+        for (NotificationOutbox row : rows) {
+            UserDtls recipient = recipients.get(row.getRecipientId());
+            try {
+                if (recipient != null) {
+                    webSocketService.sendNotification(recipient.getEmail(), payload(row));
+                    websocketSent.incrementAndGet();
+                }
+                done.add(row.getId());
+            } catch (Exception e) {
+                retryLater(row, e);
+            }
+        }
+        outboxRepository.deleteAllByIdInBatch(done);
+    }
+
+    /**
+     * One digest email per recipient. The rows are deleted once MailService has sent it, or
+     * rescheduled if the send fails or the mail queue is full.
+     */
+    private void sendEmail(List<NotificationOutbox> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        Map<Integer, UserDtls> recipients = recipientsOf(rows);
+        Map<Integer, List<NotificationOutbox>> byRecipient = rows.stream()
+                .collect(Collectors.groupingBy(NotificationOutbox::getRecipientId, LinkedHashMap::new, Collectors.toList()));
+
+        byRecipient.forEach((recipientId, digest) -> {
+            List<Long> ids = digest.stream().map(NotificationOutbox::getId).toList();
+            UserDtls recipient = recipients.get(recipientId);
+            if (recipient == null) {
+                outboxRepository.deleteAllByIdInBatch(ids);
+                return;
+            }
+
+            Map<String, Object> variables = new HashMap<>();
+            variables.put("name", recipient.getName());
+            variables.put("email", recipient.getEmail());
+            variables.put("items", digest.stream().map(NotificationDispatcher::text).toList());
+            try {
+                mailService.send(recipient.getEmail(), EMAIL_SUBJECT, EMAIL_TEMPLATE, variables)
+                        .whenComplete((ok, error) -> {
+                            if (error == null) {
+                                outboxRepository.deleteAllByIdInBatch(ids);
+                                emailSent.addAndGet(ids.size());
+                                emailDigests.incrementAndGet();
+                            } else {
+                                digest.forEach(row -> retryLater(row,
+                                        error instanceof RejectedExecutionException ? null : asException(error)));
+                            }
+                        });
+            } catch (Exception e) {
+                digest.forEach(row -> retryLater(row, e));
+            }
+        });
+    }
+
+    private Map<Integer, UserDtls> recipientsOf(List<NotificationOutbox> rows) {
+        Set<Integer> recipientIds = rows.stream().map(NotificationOutbox::getRecipientId).collect(Collectors.toSet());
+        Map<Integer, UserDtls> recipients = new HashMap<>();
+        userRepository.findAllById(recipientIds).forEach(u -> recipients.put(u.getId(), u));
+        return recipients;
+    }
+
+    private static Exception asException(Throwable error) {
+        return error instanceof Exception e ? e : new RuntimeException(error);
+    }
+
+    /**
+     * Puts the row back as PENDING after an exponential backoff, or marks it FAILED once it has
+     * used up its attempts. A null error means it was never tried (mail queue full).
+     */
+    private void retryLater(NotificationOutbox row, Exception error) {
+        try {
+            row.setStatus(Status.PENDING);
+            if (error != null) {
+                int attempts = row.getAttempts() + 1;
+                row.setAttempts(attempts);
+                String message = String.valueOf(error.getMessage());
+                row.setLastError(message.length() > 500 ? message.substring(0, 500) : message);
+                if (attempts >= maxAttempts) {
+                    row.setStatus(Status.FAILED);
+                    gaveUp.incrementAndGet();
+                    log.error("Notification {} via {} failed {} times, giving up: {}", row.getId(), row.getChannel(),
+                            attempts, message);
+                } else {
+                    long backoff = Math.min(MAX_BACKOFF_SECONDS, retryBackoffSeconds << (attempts - 1));
+                    row.setNextAttemptAt(LocalDateTime.now().plusSeconds(backoff));
+                    retried.incrementAndGet();
+                    log.warn("Notification {} via {} failed (attempt {}), retrying in {}s: {}", row.getId(),
+                            row.getChannel(), attempts, backoff, message);
+                }
+            }
+            outboxRepository.save(row);
+        } catch (Exception e) {
+            // stays SENDING; released again on the next start
+            log.error("Could not reschedule notification {}: {}", row.getId(), e.getMessage());
+        }
+    }
+
+    private static String text(NotificationOutbox row) {
+        int others = row.getActorCount() - 1;
+        if (others <= 0) {
+            return row.getMessage();
+        }
+        return row.getActorName() + " and " + others + (others == 1 ? " other " : " others ")
+                + row.getType().getDefaultMessage();
+    }
+
+    private static Map<String, Object> payload(NotificationOutbox row) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("id", row.getNotificationId());
+        payload.put("type", row.getType());
+        payload.put("postId", row.getPostId());
+        payload.put("count", row.getActorCount());
+        payload.put("message", text(row));
+        return payload;
+    }
+
+    /**
+     * Runs after all beans are created but before @Scheduled tasks start, so dispatch() cannot
+     * have claimed anything yet: every SENDING row is left over from the previous run.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        releaseClaims();
+    }
+
+    public void releaseClaims() {
+        int released = new TransactionTemplate(transactionManager)
+                .execute(status -> outboxRepository.releaseClaims(Status.PENDING, Status.SENDING));
+        if (released > 0) {
+            log.info("Released {} notification outbox rows left in flight", released);
+        }
+    }
+
+    /**
+     * Dispatcher counters (for /admin/community/notification-metrics)
+     */
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("enqueued", enqueued.get());
+        metrics.put("coalesced", coalesced.get());
+        metrics.put("websocketSent", websocketSent.get());
+        metrics.put("emailSent", emailSent.get());
+        metrics.put("emailDigests", emailDigests.get());
+        metrics.put("retried", retried.get());
+        metrics.put("failed", gaveUp.get());
+        metrics.put("pendingRows", outboxRepository.countByStatus(Status.PENDING));
+        metrics.put("failedRows", outboxRepository.countByStatus(Status.FAILED));
+        return metrics;
+    }
+
+    /**
+     * Token bucket: up to {@code permits} sends per {@code periodMs}, refilled continuously.
+     */
+    private static final class RateLimit {
+        private final int capacity;
+        private final double permitsPerMs;
+        private double tokens;
+        private long refilledAt = System.currentTimeMillis();
+
+        RateLimit(int permits, long periodMs) {
+            this.capacity = permits;
+            this.permitsPerMs = permits / (double) periodMs;
+            this.tokens = permits;
+        }
+
+        synchronized int take(int wanted) {
+            long now = System.currentTimeMillis();
+            tokens = Math.min(capacity, tokens + (now - refilledAt) * permitsPerMs);
+            refilledAt = now;
+            int granted = (int) Math.min(wanted, Math.floor(tokens));
+            tokens -= granted;
+            return Math.max(granted, 0);
+        }
+
+        synchronized void giveBack(int permits) {
+            tokens = Math.min(capacity, tokens + permits);
+        }
+    }
+}
@@ -11,7 +11,7 @@ public interface NotificationService {
 
 	long getUnreadCount(UserDtls user);
 
-	void markAsRead(Long notificationId);
+	void markAsRead(Long notificationId, UserDtls user);
 
 	void markAllAsRead(UserDtls user);
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package com.ecom.service;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
@@ -27,6 +28,11 @@ public interface OrderService {
 	public ProductOrder getOrderById(Integer id);
 	public List<ProductOrder> getOrdersByProduct(Integer productId);
 
+	/**
+	 * Number of orders per product, in one grouped query. Products without orders are absent.
+	 */
+	public Map<Integer, Long> getOrderCountsByProduct(Collection<Integer> productIds);
+
 	
 	public Map<String, Long> getOrderStatusCounts();
 	public Double getTotalRevenue();
@@ -13,6 +13,9 @@ public class OtpService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private UserCache userCache;
+
     public String generateOtp(UserDtls user) {
 
         String otp = String.valueOf((int)((Math.random() * 900000) + 100000));
@@ -22,6 +25,7 @@ public class OtpService {
         user.setOtpVerified(false);
 
         userRepository.save(user);
+        userCache.invalidate(user.getId());
 
         return otp;
     }
@@ -39,6 +43,7 @@ public class OtpService {
         user.setOtpVerified(true);
         user.setOtp(null);
         userRepository.save(user);
+        userCache.invalidate(user.getId());
 
         return true;
     }
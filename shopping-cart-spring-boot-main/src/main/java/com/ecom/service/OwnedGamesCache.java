@@ -0,0 +1,61 @@
+package com.ecom.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.ecom.repository.GameLibraryRepository;
+import com.ecom.util.TtlCache;
+
+/**
+ * Per-user set of owned product ids, for the storefront's "already owned" overlays (product page,
+ * Library filter).
+ *
+ * Loaded with one query per user and reused until it expires or GameLibraryServiceImpl adds games
+ * for that user (dropped now and again after commit, like UserCache). Purchases made through
+ * another instance show up once the entry expires. Entitlement checks (add to cart, downloads)
+ * still ask the database.
+ */
+@Component
+public class OwnedGamesCache {
+
+	private static final int MAX_ENTRIES = 10_000;
+
+	@Autowired
+	private GameLibraryRepository gameLibraryRepository;
+
+	@Value("${library.cache.ttl-seconds:60}")
+	private long ttlSeconds;
+
+	private final TtlCache<Integer, Set<Integer>> cache = new TtlCache<>(MAX_ENTRIES, () -> ttlSeconds * 1000);
+
+	/**
+	 * @return the user's owned product ids (unmodifiable)
+	 */
+	public Set<Integer> get(Integer userId) {
+		return cache.get(userId, id -> Set.copyOf(gameLibraryRepository.findProductIdsByUserId(id)));
+	}
+
+	/**
+	 * Drops the user now and once more after the current transaction commits.
+	 */
+	public void invalidate(Integer userId) {
+		if (userId == null) {
+			return;
+		}
+		cache.invalidate(userId);
+	}
+
+	public Map<String, Object> getMetrics() {
+		Map<String, Object> metrics = new LinkedHashMap<>();
+		metrics.put("hits", cache.hits());
+		metrics.put("misses", cache.misses());
+		metrics.put("entries", cache.size());
+		metrics.put("ttlSeconds", ttlSeconds);
+		return metrics;
+	}
+}
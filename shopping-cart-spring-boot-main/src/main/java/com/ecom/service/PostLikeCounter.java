@@ -0,0 +1,183 @@
+package com.ecom.service;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.ecom.repository.LikeRepository;
+import com.ecom.repository.PostRepository;
+import com.ecom.util.TransactionHooks;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Write-behind like counters for posts (posts.like_count).
+ *
+ * A like or unlike only inserts or deletes its likes row; the +1/-1 is added to an in-memory
+ * delta for the post after commit. Deltas are flushed every second as one
+ * "like_count = like_count + delta" per post, so a burst of likes on one post costs a single
+ * row update instead of a row lock per click. Readers add the pending delta to the stored count.
+ *
+ * On startup every post's count is recomputed from the likes table, which also repairs deltas
+ * lost in a crash. Like WalletLedger, this assumes a single application instance.
+ *
+ * Before the recount, startup also makes sure uk_likes_post_user exists: duplicate likes from
+ * before the constraint are deleted, keeping the oldest, and the constraint is added. If it
+ * still cannot be added the application does not start, since toggleLike depends on it.
+ */
+@Component
+public class PostLikeCounter implements SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(PostLikeCounter.class);
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private LikeRepository likeRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private final Map<Long, Long> pending = new ConcurrentHashMap<>();
+
+    /**
+     * Counts a like (+1) or unlike (-1) once the current transaction commits.
+     */
+    public void record(Long postId, long delta) {
+        TransactionHooks.afterCommit(() -> pending.merge(postId, delta, Long::sum));
+    }
+
+    /**
+     * @param stored posts.like_count as read from the database (null before the startup recount)
+     */
+    public long count(Long postId, Long stored) {
+        return (stored != null ? stored : 0L) + pending.getOrDefault(postId, 0L);
+    }
+
+    /**
+     * Applies the pending deltas in one transaction, in post id order so concurrent flushes lock
+     * rows in the same order. A failed batch is put back for the next round.
+     */
+    @Scheduled(fixedDelayString = "${community.likes.flush-interval-ms:1000}")
+    public void flush() {
+        Map<Long, Long> batch = new TreeMap<>();
+        for (Long postId : new ArrayList<>(pending.keySet())) {
+            Long delta = pending.remove(postId);
+            if (delta != null && delta != 0) {
+                batch.put(postId, delta);
+            }
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        try {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                for (Map.Entry<Long, Long> e : batch.entrySet()) {
+                    postRepository.applyLikeDelta(e.getKey(), e.getValue());
+                }
+            });
+        } catch (Exception e) {
+            batch.forEach((postId, delta) -> pending.merge(postId, delta, Long::sum));
+            log.error("Post like counter flush failed, {} posts will be retried: {}", batch.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * Runs after all beans are created but before the web server takes requests and before the
+     * flush schedule starts, so no like can be both counted by the recount and still pending.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        ensureOneLikePerUser();
+        recount();
+    }
+
+    /**
+     * Deletes duplicate likes and adds uk_likes_post_user when the likes table lacks a unique
+     * key on (post_id, user_id).
+     *
+     * @throws IllegalStateException if the constraint is still missing afterwards
+     */
+    public void ensureOneLikePerUser() {
+        if (hasPostUserUniqueKey()) {
+            return;
+        }
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        int deleted = tx.execute(status -> likeRepository.deleteDuplicates());
+        log.warn("likes has no unique key on (post_id, user_id): deleted {} duplicate likes, adding uk_likes_post_user",
+                deleted);
+        try {
+            tx.execute(status -> likeRepository.addPostUserConstraint());
+        } catch (Exception e) {
+            throw new IllegalStateException("Could not add uk_likes_post_user to likes", e);
+        }
+        if (!hasPostUserUniqueKey()) {
+            throw new IllegalStateException("likes has no unique key on (post_id, user_id)");
+        }
+    }
+
+    private boolean hasPostUserUniqueKey() {
+        try (Connection connection = dataSource.getConnection()) {
+            Map<String, Set<String>> columnsByIndex = new HashMap<>();
+            // MySQL keeps the table name as written, H2 upper-cases it
+            for (String table : new String[] { "likes", "LIKES" }) {
+                try (ResultSet rs = connection.getMetaData().getIndexInfo(connection.getCatalog(), null, table, true,
+                        false)) {
+                    while (rs.next()) {
+                        String index = rs.getString("INDEX_NAME");
+                        String column = rs.getString("COLUMN_NAME");
+                        if (index != null && column != null) {
+                            columnsByIndex.computeIfAbsent(table + "." + index, k -> new HashSet<>())
+                                    .add(column.toLowerCase(Locale.ROOT));
+                        }
+                    }
+                }
+            }
+            return columnsByIndex.containsValue(Set.of("post_id", "user_id"));
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not read the indexes of likes", e);
+        }
+    }
+
+    /**
+     * Recomputes every stored count from the likes table. Pending deltas are dropped in the same
+     * transaction: the recount already includes every committed like they stand for.
+     */
+    public void recount() {
+        long start = System.currentTimeMillis();
+        int posts = new TransactionTemplate(transactionManager).execute(status -> {
+            pending.clear();
+            return postRepository.recountLikes();
+        });
+        log.info("Post like counts recomputed for {} posts in {} ms", posts, System.currentTimeMillis() - start);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+}
@@ -0,0 +1,102 @@
+package com.ecom.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.thymeleaf.ITemplateEngine;
+import org.thymeleaf.context.Context;
+
+import com.ecom.model.Product;
+import com.ecom.util.TransactionHooks;
+
+/**
+ * Rendered HTML of the static parts of the product page (gallery, description, details, price),
+ * from the guest/product_detail fragments.
+ *
+ * The page template then only evaluates the per-request parts around it: flash messages and the
+ * buy / owned / admin buttons. An entry belongs to the Product instance it was rendered from;
+ * CatalogCache hands out a new instance after every product write, so a changed product is
+ * re-rendered on its next view. ProductServiceImpl also evicts the product after each write so
+ * the old markup does not linger.
+ */
+@Component
+public class ProductPageCache {
+
+	private static final String TEMPLATE = "guest/product_detail";
+	private static final int MAX_ENTRIES = 2_000;
+
+	@Autowired
+	private ITemplateEngine templateEngine;
+
+	@Autowired
+	private CommonService commonService;
+
+	private final Map<Integer, Rendered> entries = new ConcurrentHashMap<>();
+
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong renders = new AtomicLong();
+
+	public Rendered get(Product product) {
+		Rendered cached = entries.get(product.getId());
+		if (cached != null && cached.product == product) {
+			hits.incrementAndGet();
+			return cached;
+		}
+		renders.incrementAndGet();
+		Context context = new Context();
+		context.setVariable("product", product);
+		context.setVariable("bahtSign", commonService.bahtSign());
+		Rendered rendered = new Rendered(product,
+				templateEngine.process(TEMPLATE, Set.of("gallery"), context),
+				templateEngine.process(TEMPLATE, Set.of("info"), context));
+		if (entries.size() >= MAX_ENTRIES) {
+			entries.clear();
+		}
+		entries.put(product.getId(), rendered);
+		return rendered;
+	}
+
+	/**
+	 * Drops the product's markup now and once more after the current transaction commits.
+	 */
+	public void evict(Integer productId) {
+		if (productId == null) {
+			return;
+		}
+		entries.remove(productId);
+		TransactionHooks.afterCommit(() -> entries.remove(productId));
+	}
+
+	public Map<String, Object> getMetrics() {
+		Map<String, Object> metrics = new LinkedHashMap<>();
+		metrics.put("hits", hits.get());
+		metrics.put("renders", renders.get());
+		metrics.put("entries", entries.size());
+		return metrics;
+	}
+
+	public static final class Rendered {
+		private final Product product;
+		private final String gallery;
+		private final String info;
+
+		Rendered(Product product, String gallery, String info) {
+			this.product = product;
+			this.gallery = gallery;
+			this.info = info;
+		}
+
+		public String getGallery() {
+			return gallery;
+		}
+
+		public String getInfo() {
+			return info;
+		}
+	}
+}
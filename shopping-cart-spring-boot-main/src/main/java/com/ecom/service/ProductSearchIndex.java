@@ -0,0 +1,279 @@
+package com.ecom.service;
+
+import java.text.BreakIterator;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.ecom.model.Product;
+import com.ecom.model.ProductSummary;
+import com.ecom.repository.ProductRepository;
+import com.ecom.util.TransactionHooks;
+
+/**
+ * In-memory inverted index over product title, category and description.
+ *
+ * Text is split with the JDK's Thai word BreakIterator, so Thai runs without spaces are cut into
+ * dictionary words and Latin text is cut on spaces and punctuation. Every query term must match
+ * (AND); a term also matches longer indexed terms that start with it, so partial words work
+ * while typing. Hits are ranked with BM25 over field-weighted term frequencies.
+ *
+ * The index keeps a ProductSummary per hit, so storefront search never queries MySQL. It is
+ * built on startup and then kept current by ProductServiceImpl after each commit.
+ */
+@Component
+public class ProductSearchIndex implements SmartInitializingSingleton {
+
+	private static final Logger log = LoggerFactory.getLogger(ProductSearchIndex.class);
+
+	private static final Locale THAI = Locale.forLanguageTag("th");
+
+	private static final float TITLE_WEIGHT = 3f;
+	private static final float CATEGORY_WEIGHT = 2f;
+	private static final float DESCRIPTION_WEIGHT = 1f;
+
+	private static final double K1 = 1.2;
+	private static final double B = 0.75;
+
+	/** Prefix matches score lower than an exact term match. */
+	private static final double PREFIX_WEIGHT = 0.7;
+	private static final int MIN_PREFIX_LENGTH = 2;
+	private static final int MAX_PREFIX_EXPANSIONS = 64;
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+	private final Map<Integer, Doc> docs = new HashMap<>();
+	private final TreeMap<String, Map<Integer, Float>> postings = new TreeMap<>();
+	private double totalLength;
+
+	// ==================== BUILD / UPDATE ====================
+
+	/**
+	 * Runs after all beans are created but before the web server takes requests, so the first
+	 * searches never see an empty index.
+	 */
+	@Override
+	public void afterSingletonsInstantiated() {
+		rebuild();
+	}
+
+	public void rebuild() {
+		long start = System.currentTimeMillis();
+		List<Product> products = productRepository.findAll();
+		lock.writeLock().lock();
+		try {
+			docs.clear();
+			postings.clear();
+			totalLength = 0;
+			products.forEach(this::add);
+		} finally {
+			lock.writeLock().unlock();
+		}
+		log.info("Product search index built: {} products, {} terms in {} ms", products.size(), postings.size(),
+				System.currentTimeMillis() - start);
+	}
+
+	/**
+	 * Indexes a new or changed product once the current transaction commits.
+	 */
+	public void onProductSaved(Product product) {
+		if (product == null || product.getId() == null) {
+			return;
+		}
+		TransactionHooks.afterCommit(() -> {
+			lock.writeLock().lock();
+			try {
+				remove(product.getId());
+				add(product);
+			} finally {
+				lock.writeLock().unlock();
+			}
+		});
+	}
+
+	public void onProductDeleted(Integer id) {
+		TransactionHooks.afterCommit(() -> {
+			lock.writeLock().lock();
+			try {
+				remove(id);
+			} finally {
+				lock.writeLock().unlock();
+			}
+		});
+	}
+
+	// ==================== SEARCH ====================
+
+	/**
+	 * @param filter which matching products to return (e.g. active only)
+	 * @return matching products, best first; empty if the query has no searchable terms
+	 */
+	public List<ProductSummary> search(String query, Predicate<ProductSummary> filter) {
+		Set<String> terms = new LinkedHashSet<>(tokenize(query));
+		if (terms.isEmpty()) {
+			return List.of();
+		}
+
+		lock.readLock().lock();
+		try {
+			double avgLength = docs.isEmpty() ? 1.0 : totalLength / docs.size();
+			Map<Integer, Double> scores = null;
+			for (String term : terms) {
+				Map<Integer, Double> termScores = scoreTerm(term, avgLength);
+				if (scores == null) {
+					scores = termScores;
+				} else {
+					scores.keySet().retainAll(termScores.keySet());
+					scores.replaceAll((id, score) -> score + termScores.get(id));
+				}
+				if (scores.isEmpty()) {
+					return List.of();
+				}
+			}
+
+			List<Map.Entry<Integer, Double>> ranked = new ArrayList<>(scores.entrySet());
+			ranked.sort((a, b) -> {
+				int byScore = Double.compare(b.getValue(), a.getValue());
+				return byScore != 0 ? byScore : Integer.compare(a.getKey(), b.getKey());
+			});
+			List<ProductSummary> results = new ArrayList<>();
+			for (Map.Entry<Integer, Double> hit : ranked) {
+				ProductSummary product = docs.get(hit.getKey()).product;
+				if (filter.test(product)) {
+					results.add(product);
+				}
+			}
+			return results;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	public int size() {
+		lock.readLock().lock();
+		try {
+			return docs.size();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Best BM25 score per document for one query term, over the exact term and its prefix
+	 * expansions.
+	 */
+	private Map<Integer, Double> scoreTerm(String term, double avgLength) {
+		Map<Integer, Double> termScores = new HashMap<>();
+		Map<String, Map<Integer, Float>> matches = term.length() >= MIN_PREFIX_LENGTH
+				? postings.subMap(term, true, term + Character.MAX_VALUE, false)
+				: postings.containsKey(term) ? Map.of(term, postings.get(term)) : Map.of();
+
+		int expansions = 0;
+		for (Map.Entry<String, Map<Integer, Float>> match : matches.entrySet()) {
+			double weight = match.getKey().length() == term.length() ? 1.0 : PREFIX_WEIGHT;
+			Map<Integer, Float> docsWithTerm = match.getValue();
+			int df = docsWithTerm.size();
+			double idf = Math.log(1 + (docs.size() - df + 0.5) / (df + 0.5));
+			for (Map.Entry<Integer, Float> posting : docsWithTerm.entrySet()) {
+				double tf = posting.getValue();
+				double norm = K1 * (1 - B + B * docs.get(posting.getKey()).length / avgLength);
+				double score = weight * idf * tf * (K1 + 1) / (tf + norm);
+				termScores.merge(posting.getKey(), score, Math::max);
+			}
+			if (++expansions >= MAX_PREFIX_EXPANSIONS) {
+				break;
+			}
+		}
+		return termScores;
+	}
+
+	// ==================== INDEXING ====================
+
+	/** Caller holds the write lock. */
+	private void add(Product product) {
+		Map<String, Float> terms = new HashMap<>();
+		float length = addField(terms, product.getTitle(), TITLE_WEIGHT)
+				+ addField(terms, product.getCategory(), CATEGORY_WEIGHT)
+				+ addField(terms, product.getDescription(), DESCRIPTION_WEIGHT);
+		Doc doc = new Doc(ProductSummary.of(product), terms, length);
+		docs.put(product.getId(), doc);
+		totalLength += length;
+		terms.forEach((term, tf) -> postings.computeIfAbsent(term, k -> new HashMap<>()).put(product.getId(), tf));
+	}
+
+	/** Caller holds the write lock. */
+	private void remove(Integer id) {
+		Doc doc = docs.remove(id);
+		if (doc == null) {
+			return;
+		}
+		totalLength -= doc.length;
+		for (String term : doc.terms.keySet()) {
+			Map<Integer, Float> docsWithTerm = postings.get(term);
+			if (docsWithTerm != null) {
+				docsWithTerm.remove(id);
+				if (docsWithTerm.isEmpty()) {
+					postings.remove(term);
+				}
+			}
+		}
+	}
+
+	private static float addField(Map<String, Float> terms, String text, float weight) {
+		List<String> tokens = tokenize(text);
+		for (String token : tokens) {
+			terms.merge(token, weight, Float::sum);
+		}
+		return tokens.size() * weight;
+	}
+
+	/**
+	 * Lower-cased words of the text; Thai runs are split with the JDK's dictionary-based
+	 * BreakIterator. Punctuation and whitespace are dropped.
+	 */
+	static List<String> tokenize(String text) {
+		List<String> tokens = new ArrayList<>();
+		if (text == null || text.isBlank()) {
+			return tokens;
+		}
+		String normalized = Normalizer.normalize(text, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+		BreakIterator words = BreakIterator.getWordInstance(THAI);
+		words.setText(normalized);
+		int start = words.first();
+		for (int end = words.next(); end != BreakIterator.DONE; start = end, end = words.next()) {
+			String word = normalized.substring(start, end);
+			if (word.codePoints().anyMatch(Character::isLetterOrDigit)) {
+				tokens.add(word);
+			}
+		}
+		return tokens;
+	}
+
+	private static final class Doc {
+		final ProductSummary product;
+		final Map<String, Float> terms;
+		final float length;
+
+		Doc(ProductSummary product, Map<String, Float> terms, float length) {
+			this.product = product;
+			this.terms = terms;
+			this.length = length;
+		}
+	}
+}
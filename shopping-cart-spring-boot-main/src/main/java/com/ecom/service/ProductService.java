@@ -1,11 +1,16 @@
 package com.ecom.service;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import org.springframework.data.domain.Page;
 import org.springframework.web.multipart.MultipartFile;
 
 import com.ecom.model.Product;
+import com.ecom.model.ProductSummary;
+import com.ecom.service.CatalogFacets.Facet;
 
 public interface ProductService {
 
@@ -17,19 +22,42 @@ public interface ProductService {
 
 	public Product getProductById(Integer id);
 
+	// Storefront reads served from CatalogCache (shared, read-only instances)
+	public Product getCatalogProduct(Integer id);
+
+	public List<ProductSummary> getNewestActiveProducts(int limit);
+
+	// Best sellers of the last 24 hours (last 7 days if nothing sold today), active only
+	public List<ProductSummary> getTrendingProducts(int limit);
+
 	public Product updateProduct(Product product, MultipartFile file);
 
-	public List<Product> getAllActiveProducts(String category);
+	// Listings return ProductSummary rows (no description, screenshots or game file path)
+	public List<ProductSummary> getAllActiveProducts(String category);
+
+	public List<ProductSummary> searchProduct(String ch);
+
+	// Faceted browse: active products matching every selected facet (OR within a facet), plus the
+	// per-value counts; ownedProductIds is the user's library, null for guests
+	public CatalogFacets.Result filterActiveProducts(Map<Facet, Set<String>> selection,
+			Collection<Integer> ownedProductIds);
+
+	// Same products (in id order) without the per-value counts, for the infinite-scroll feed
+	public List<ProductSummary> getFilteredActiveProducts(Map<Facet, Set<String>> selection,
+			Collection<Integer> ownedProductIds);
+
+	// Infinite scroll: the products (in id order) with id above afterId (null = from the start)
+	public List<ProductSummary> getProductsAfter(List<ProductSummary> products, Integer afterId, int limit);
 
-	public List<Product> searchProduct(String ch);
+	public Page<ProductSummary> getProductPagination(List<ProductSummary> products, Integer pageNo, Integer pageSize);
 
-	public Page<Product> getAllActiveProductPagination(Integer pageNo, Integer pageSize, String category);
+	public Page<ProductSummary> getAllActiveProductPagination(Integer pageNo, Integer pageSize, String category);
 
-	public Page<Product> searchProductPagination(Integer pageNo, Integer pageSize, String ch);
+	public Page<ProductSummary> searchProductPagination(Integer pageNo, Integer pageSize, String ch);
 
-	public Page<Product> getAllProductsPagination(Integer pageNo, Integer pageSize);
+	public Page<ProductSummary> getAllProductsPagination(Integer pageNo, Integer pageSize);
 
-	public Page<Product> searchActiveProductPagination(Integer pageNo, Integer pageSize, String category, String ch);
+	public Page<ProductSummary> searchActiveProductPagination(Integer pageNo, Integer pageSize, String category, String ch);
     public Long getTotalActiveProductsCount();
     public Long getTotalLowStockProductsCount();
   
@@ -0,0 +1,277 @@
+package com.ecom.service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.ecom.model.ProductOrder;
+import com.ecom.repository.ProductOrderRepository;
+import com.ecom.util.TransactionHooks;
+
+/**
+ * สินค้าและหมวดหมู่ที่ขายดีในช่วง 1 ชั่วโมง / 24 ชั่วโมง / 7 วันล่าสุด (sliding window)
+ *
+ * - ยอดขายเก็บเป็นช่องละ 5 นาที ย้อนหลัง 7 วัน และมียอดรวมของแต่ละ window ที่อัพเดททันทีตอนมี order
+ *   ช่องที่หลุดออกนอก window จะถูกหักออกจากยอดรวมทุกนาที
+ * - นับแบบ exact (จำนวนสินค้าในร้านไม่มาก) และจัดอันดับ Top-K ไว้ล่วงหน้าทุกครั้งที่ยอดเปลี่ยน
+ *   การอ่านจึงเป็นแค่ตัด list ที่เตรียมไว้ O(K)
+ * - นับทุก checkout (order ที่ถูกยกเลิกภายหลังยังนับอยู่) rebuild จาก ProductOrder ตอนเริ่มระบบ
+ */
+@Component
+public class SalesTrends implements SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(SalesTrends.class);
+
+    private static final long BUCKET_MINUTES = 5;
+    private static final int TOP_K = 10;
+
+    public enum Window {
+        HOUR(12), DAY(12 * 24), WEEK(12 * 24 * 7);
+
+        /** จำนวนช่อง 5 นาทีใน window */
+        final int buckets;
+
+        Window(int buckets) {
+            this.buckets = buckets;
+        }
+    }
+
+    @Autowired
+    private ProductOrderRepository orderRepository;
+
+    // state ด้านล่างแก้ภายใต้ lock เท่านั้น
+    private final Object lock = new Object();
+    private final TreeMap<Long, Counts> buckets = new TreeMap<>();
+    private final Map<Window, Counts> totals = new EnumMap<>(Window.class);
+    private long currentBucket = bucketOf(LocalDateTime.now());
+
+    private volatile Map<Window, Ranking> rankings = emptyRankings();
+
+    public SalesTrends() {
+        for (Window window : Window.values()) {
+            totals.put(window, new Counts());
+        }
+    }
+
+    // ==================== EVENTS ====================
+
+    /**
+     * นับ order ที่เพิ่ง checkout หลัง commit (ถ้า rollback จะไม่นับ)
+     */
+    public void onOrdersPlaced(List<ProductOrder> orders) {
+        List<Sale> sales = new ArrayList<>();
+        for (ProductOrder order : orders) {
+            Sale sale = Sale.of(order.getProduct() != null ? order.getProduct().getId() : null,
+                    order.getProduct() != null ? order.getProduct().getCategory() : null,
+                    order.getQuantity(), order.getOrderTime(), order.getOrderDate());
+            if (sale != null) {
+                sales.add(sale);
+            }
+        }
+        if (sales.isEmpty()) {
+            return;
+        }
+        TransactionHooks.afterCommit(() -> {
+            synchronized (lock) {
+                advance(bucketOf(LocalDateTime.now()));
+                sales.forEach(this::add);
+                publish();
+            }
+        });
+    }
+
+    // ==================== REBUILD / SLIDE ====================
+
+    /**
+     * เรียกหลังสร้าง bean ครบแต่ก่อน web server รับ request
+     * จึงไม่มี checkout ใดถูกนับก่อนแล้วถูก rebuild ล้างทิ้ง
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        rebuild();
+    }
+
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        List<Sale> sales = new ArrayList<>();
+        for (Object[] row : orderRepository.findSalesSince(LocalDate.now().minusDays(7))) {
+            Sale sale = Sale.of((Integer) row[0], (String) row[1], (Integer) row[4], (LocalDateTime) row[2],
+                    (LocalDate) row[3]);
+            if (sale != null) {
+                sales.add(sale);
+            }
+        }
+        synchronized (lock) {
+            buckets.clear();
+            totals.values().forEach(Counts::clear);
+            currentBucket = bucketOf(LocalDateTime.now());
+            sales.forEach(this::add);
+            publish();
+        }
+        log.info("Sales trends rebuilt from {} order(s) in {} ms", sales.size(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * เลื่อน window ตามเวลา: หักช่องที่หลุดออกจากแต่ละ window แล้วจัดอันดับใหม่
+     */
+    @Scheduled(fixedDelay = 60_000)
+    public void slide() {
+        synchronized (lock) {
+            if (advance(bucketOf(LocalDateTime.now()))) {
+                publish();
+            }
+        }
+    }
+
+    /** Caller holds the lock. */
+    private boolean advance(long nowBucket) {
+        if (nowBucket <= currentBucket) {
+            return false;
+        }
+        for (Window window : Window.values()) {
+            long oldFirst = currentBucket - window.buckets + 1;
+            long newFirst = nowBucket - window.buckets + 1;
+            Counts total = totals.get(window);
+            for (Counts expired : buckets.subMap(oldFirst, newFirst).values()) {
+                total.subtract(expired);
+            }
+        }
+        buckets.headMap(nowBucket - Window.WEEK.buckets + 1).clear();
+        currentBucket = nowBucket;
+        return true;
+    }
+
+    /** Caller holds the lock. */
+    private void add(Sale sale) {
+        long bucket = Math.min(bucketOf(sale.time), currentBucket);
+        if (bucket <= currentBucket - Window.WEEK.buckets) {
+            return;
+        }
+        buckets.computeIfAbsent(bucket, k -> new Counts()).add(sale.productId, sale.category, sale.units);
+        for (Window window : Window.values()) {
+            if (bucket > currentBucket - window.buckets) {
+                totals.get(window).add(sale.productId, sale.category, sale.units);
+            }
+        }
+    }
+
+    /** Caller holds the lock. */
+    private void publish() {
+        Map<Window, Ranking> fresh = new EnumMap<>(Window.class);
+        totals.forEach((window, total) -> fresh.put(window,
+                new Ranking(topOf(total.products), topOf(total.categories))));
+        rankings = fresh;
+    }
+
+    // ==================== READERS ====================
+
+    /**
+     * สินค้าขายดี [productId -> จำนวนชิ้น] เรียงจากมากไปน้อย (สูงสุด 10 อันดับ)
+     */
+    public List<Map.Entry<Integer, Long>> getTopProducts(Window window, int limit) {
+        List<Map.Entry<Integer, Long>> top = rankings.get(window).products;
+        return top.subList(0, Math.min(limit, top.size()));
+    }
+
+    /**
+     * หมวดหมู่ขายดี [ชื่อหมวดหมู่ -> จำนวนชิ้น] เรียงจากมากไปน้อย (สูงสุด 10 อันดับ)
+     */
+    public List<Map.Entry<String, Long>> getTopCategories(Window window, int limit) {
+        List<Map.Entry<String, Long>> top = rankings.get(window).categories;
+        return top.subList(0, Math.min(limit, top.size()));
+    }
+
+    // ==================== HELPERS ====================
+
+    private static long bucketOf(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toEpochSecond() / 60 / BUCKET_MINUTES;
+    }
+
+    private static <K extends Comparable<K>> List<Map.Entry<K, Long>> topOf(Map<K, Long> counts) {
+        List<Map.Entry<K, Long>> ranked = new ArrayList<>();
+        counts.forEach((key, units) -> ranked.add(Map.entry(key, units)));
+        ranked.sort((a, b) -> {
+            int byUnits = Long.compare(b.getValue(), a.getValue());
+            return byUnits != 0 ? byUnits : a.getKey().compareTo(b.getKey());
+        });
+        return List.copyOf(ranked.subList(0, Math.min(TOP_K, ranked.size())));
+    }
+
+    private static Map<Window, Ranking> emptyRankings() {
+        Map<Window, Ranking> empty = new EnumMap<>(Window.class);
+        for (Window window : Window.values()) {
+            empty.put(window, new Ranking(List.of(), List.of()));
+        }
+        return empty;
+    }
+
+    private static final class Sale {
+        final Integer productId;
+        final String category;
+        final long units;
+        final LocalDateTime time;
+
+        private Sale(Integer productId, String category, long units, LocalDateTime time) {
+            this.productId = productId;
+            this.category = category;
+            this.units = units;
+            this.time = time;
+        }
+
+        /**
+         * order เก่าที่ยังไม่มี orderTime ใช้ต้นวันของ orderDate แทน
+         */
+        static Sale of(Integer productId, String category, Integer quantity, LocalDateTime time, LocalDate date) {
+            if (productId == null || quantity == null || quantity <= 0) {
+                return null;
+            }
+            LocalDateTime at = time != null ? time : date != null ? date.atStartOfDay() : null;
+            return at != null ? new Sale(productId, category, quantity, at) : null;
+        }
+    }
+
+    private static final class Counts {
+        final Map<Integer, Long> products = new HashMap<>();
+        final Map<String, Long> categories = new HashMap<>();
+
+        void add(Integer productId, String category, long units) {
+            products.merge(productId, units, Long::sum);
+            if (category != null) {
+                categories.merge(category, units, Long::sum);
+            }
+        }
+
+        void subtract(Counts other) {
+            other.products.forEach((id, units) -> products.computeIfPresent(id, (k, v) -> v - units > 0 ? v - units : null));
+            other.categories.forEach((name, units) -> categories.computeIfPresent(name, (k, v) -> v - units > 0 ? v - units : null));
+        }
+
+        void clear() {
+            products.clear();
+            categories.clear();
+        }
+    }
+
+    private static final class Ranking {
+        final List<Map.Entry<Integer, Long>> products;
+        final List<Map.Entry<String, Long>> categories;
+
+        Ranking(List<Map.Entry<Integer, Long>> products, List<Map.Entry<String, Long>> categories) {
+            this.products = products;
+            this.categories = categories;
+        }
+    }
+}
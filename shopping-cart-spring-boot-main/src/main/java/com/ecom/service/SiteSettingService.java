@@ -1,15 +1,39 @@
 package com.ecom.service;
 
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.UnaryOperator;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.core.convert.support.DefaultConversionService;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.ecom.model.SiteSetting;
 import com.ecom.repository.SiteSettingRepository;
+import com.ecom.util.TransactionHooks;
 
+/**
+ * Site-wide settings served from memory.
+ *
+ * All site_settings rows are held in an immutable snapshot, so a read (such as imageMode on every
+ * page render) is a volatile field read. Writes through this service also bump the
+ * settingsVersion row in the same transaction; every instance polls that single row and reloads
+ * the snapshot when it changes, and the writing instance reloads right after commit.
+ *
+ * Rows maintained directly by other services (wallet shutdown marker, game key counter) are in
+ * the snapshot too but only refreshed on the next reload; read those from the repository.
+ */
 @Service
-public class SiteSettingService {
+public class SiteSettingService implements SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(SiteSettingService.class);
 
     @Autowired
     private SiteSettingRepository siteSettingRepository;
@@ -17,42 +41,164 @@ public class SiteSettingService {
     private static final String IMAGE_MODE_KEY = "imageMode";
     private static final String DEFAULT_MODE = "AWS"; // Default to AWS
 
+    private static final String VERSION_KEY = "settingsVersion";
+
+    private static final ConversionService CONVERSION = DefaultConversionService.getSharedInstance();
+
+    private volatile Snapshot snapshot;
+
+    // ==================== READS ====================
+
     /**
      * Get the current image mode: "AWS" or "LOCAL"
      */
     public String getImageMode() {
-        Optional<SiteSetting> setting = siteSettingRepository.findByKey(IMAGE_MODE_KEY);
-        return setting.map(SiteSetting::getValue).orElse(DEFAULT_MODE);
+        return getSetting(IMAGE_MODE_KEY, String.class, DEFAULT_MODE);
+    }
+
+    /**
+     * Typed read of a setting, e.g. getSetting("maintenance", Boolean.class).
+     *
+     * @throws org.springframework.core.convert.ConversionException if the stored value does not convert
+     */
+    public <T> Optional<T> getSetting(String key, Class<T> type) {
+        String value = current().values.get(key);
+        return value == null ? Optional.empty() : Optional.ofNullable(CONVERSION.convert(value, type));
+    }
+
+    public <T> T getSetting(String key, Class<T> type, T defaultValue) {
+        return getSetting(key, type).orElse(defaultValue);
     }
 
+    // ==================== WRITES ====================
+
     /**
      * Set image mode to "AWS" or "LOCAL"
      */
+    @Transactional
     public String setImageMode(String mode) {
-        if (!"AWS".equalsIgnoreCase(mode) && !"LOCAL".equalsIgnoreCase(mode)) {
-            throw new IllegalArgumentException("Invalid image mode: " + mode + ". Must be AWS or LOCAL.");
+        return writeSetting(IMAGE_MODE_KEY, current -> normalizeImageMode(mode));
+    }
+
+    /**
+     * Toggle between AWS and LOCAL
+     */
+    @Transactional
+    public String toggleImageMode() {
+        return writeSetting(IMAGE_MODE_KEY, current -> "LOCAL".equals(current) ? "AWS" : "LOCAL");
+    }
+
+    /**
+     * Store a setting; other instances pick it up on their next version poll.
+     */
+    @Transactional
+    public void setSetting(String key, Object value) {
+        if (VERSION_KEY.equals(key)) {
+            throw new IllegalArgumentException("Reserved setting key: " + key);
+        }
+        if (value == null) {
+            throw new IllegalArgumentException("Setting value must not be null: " + key);
         }
+        String stored = CONVERSION.convert(value, String.class);
+        writeSetting(key, current -> stored);
+    }
 
-        String normalizedMode = mode.toUpperCase();
-        Optional<SiteSetting> existing = siteSettingRepository.findByKey(IMAGE_MODE_KEY);
+    /**
+     * Locks the version row first, so concurrent writers (two admins toggling at once) are
+     * serialized and each update sees the value committed before it.
+     */
+    private String writeSetting(String key, UnaryOperator<String> update) {
+        SiteSetting version = siteSettingRepository.findByKeyForUpdate(VERSION_KEY)
+                .orElseGet(() -> siteSettingRepository.saveAndFlush(new SiteSetting(VERSION_KEY, "0")));
 
+        Optional<SiteSetting> existing = siteSettingRepository.findByKey(key);
+        String newValue = update.apply(existing.map(SiteSetting::getValue).orElse(null));
         if (existing.isPresent()) {
             SiteSetting setting = existing.get();
-            setting.setValue(normalizedMode);
+            setting.setValue(newValue);
             siteSettingRepository.save(setting);
         } else {
-            siteSettingRepository.save(new SiteSetting(IMAGE_MODE_KEY, normalizedMode));
+            siteSettingRepository.save(new SiteSetting(key, newValue));
         }
 
-        return normalizedMode;
+        version.setValue(String.valueOf(Long.parseLong(version.getValue()) + 1));
+        siteSettingRepository.save(version);
+        TransactionHooks.afterCommit(this::reload);
+        return newValue;
     }
 
+    private static String normalizeImageMode(String mode) {
+        if (!"AWS".equalsIgnoreCase(mode) && !"LOCAL".equalsIgnoreCase(mode)) {
+            throw new IllegalArgumentException("Invalid image mode: " + mode + ". Must be AWS or LOCAL.");
+        }
+        return mode.toUpperCase();
+    }
+
+    // ==================== SYNC ====================
+
     /**
-     * Toggle between AWS and LOCAL
+     * Runs after all beans are created but before the web server takes requests, so the first
+     * page renders do not each wait on the snapshot load.
      */
-    public String toggleImageMode() {
-        String current = getImageMode();
-        String newMode = "AWS".equals(current) ? "LOCAL" : "AWS";
-        return setImageMode(newMode);
+    @Override
+    public void afterSingletonsInstantiated() {
+        reload();
+    }
+
+    public synchronized void reload() {
+        // version is read before the values, so the snapshot is never older than its stamp
+        long version = readVersion();
+        Map<String, String> values = new HashMap<>();
+        for (SiteSetting setting : siteSettingRepository.findAll()) {
+            values.put(setting.getKey(), setting.getValue());
+        }
+        snapshot = new Snapshot(version, Map.copyOf(values));
+    }
+
+    /**
+     * Picks up settings changed by other instances.
+     */
+    @Scheduled(fixedDelayString = "${settings.sync-interval-ms:5000}")
+    public void sync() {
+        Snapshot s = snapshot;
+        if (s == null) {
+            return;
+        }
+        try {
+            if (readVersion() != s.version) {
+                reload();
+            }
+        } catch (Exception e) {
+            log.warn("Site settings sync failed: {}", e.getMessage());
+        }
+    }
+
+    private long readVersion() {
+        return siteSettingRepository.findByKey(VERSION_KEY)
+                .map(setting -> Long.parseLong(setting.getValue()))
+                .orElse(0L);
+    }
+
+    private Snapshot current() {
+        Snapshot s = snapshot;
+        if (s != null) {
+            return s;
+        }
+        synchronized (this) {
+            if (snapshot == null) {
+                reload();
+            }
+            return snapshot;
+        }
+    }
+
+    private static final class Snapshot {
+        final long version;
+        final Map<String, String> values;
+
+        Snapshot(long version, Map<String, String> values) {
+            this.version = version;
+            this.values = values;
+        }
     }
 }
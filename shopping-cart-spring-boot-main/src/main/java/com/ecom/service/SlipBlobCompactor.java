@@ -0,0 +1,93 @@
+package com.ecom.service;
+
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.ecom.model.Transaction;
+import com.ecom.repository.TransactionRepository;
+
+/**
+ * ลบไฟล์สลิปของรายการเติมเงินที่ FAILED และเก่ากว่าที่กำหนด
+ *
+ * - ปลดการอ้างถึงไฟล์ออกจาก Transaction ก่อน (ทีละ batch) แล้วจึงลบไฟล์
+ * - ไฟล์ใน BlobStore ใช้ร่วมกันได้ (สลิปเดียวกันอัพโหลดซ้ำ) จะลบเมื่อไม่มีรายการไหนอ้างถึงแล้วเท่านั้น
+ *   สลิปของรายการ SUCCESS จึงไม่ถูกลบแม้จะเคยถูกส่งมาในรายการที่ FAILED
+ */
+@Component
+public class SlipBlobCompactor {
+
+    private static final Logger log = LoggerFactory.getLogger(SlipBlobCompactor.class);
+
+    private static final int BATCH_SIZE = 200;
+    private static final int MAX_BATCHES_PER_RUN = 50;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private BlobStore blobStore;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${wallet.slip.store.failed-retention-days:30}")
+    private int retentionDays;
+
+    @Scheduled(cron = "${wallet.slip.store.compact-cron:0 30 3 * * *}")
+    public void compact() {
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(retentionDays);
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        int detached = 0;
+        int deleted = 0;
+
+        for (int batch = 0; batch < MAX_BATCHES_PER_RUN; batch++) {
+            Set<String> slipRefs = new LinkedHashSet<>();
+            Integer cleared = tx.execute(status -> {
+                List<Transaction> failed = transactionRepository.findFailedWithSlipBefore(cutoff, PageRequest.of(0, BATCH_SIZE));
+                if (failed.isEmpty()) {
+                    return 0;
+                }
+                failed.forEach(t -> slipRefs.add(t.getSlipImagePath()));
+                return transactionRepository.clearSlipImagePath(failed.stream().map(Transaction::getId).toList());
+            });
+            if (cleared == null || cleared == 0) {
+                break;
+            }
+            detached += cleared;
+
+            for (String slipRef : slipRefs) {
+                if (transactionRepository.existsBySlipImagePath(slipRef)) {
+                    continue;
+                }
+                try {
+                    if (BlobStore.isKey(slipRef)) {
+                        blobStore.delete(slipRef);
+                    } else {
+                        Files.deleteIfExists(Paths.get(slipRef)); // ไฟล์ก่อนย้ายมาใช้ BlobStore
+                    }
+                    deleted++;
+                } catch (Exception e) {
+                    log.warn("Could not delete slip {}: {}", slipRef, e.getMessage());
+                }
+            }
+        }
+
+        if (detached > 0) {
+            log.info("Slip compaction: detached {} failed transaction(s), deleted {} file(s)", detached, deleted);
+        }
+    }
+}
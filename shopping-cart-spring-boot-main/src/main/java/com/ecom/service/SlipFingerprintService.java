@@ -0,0 +1,152 @@
+package com.ecom.service;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+import javax.imageio.ImageIO;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.ecom.model.SlipFingerprint;
+import com.ecom.repository.SlipFingerprintRepository;
+import com.ecom.util.BloomFilter;
+
+/**
+ * ตรวจสลิปซ้ำก่อนเรียก EasySlip
+ *
+ * - SHA-256 ของไฟล์: ถ้า Bloom filter บอกว่า "ไม่เคยเห็น" ก็ผ่านได้ทันทีโดยไม่ต้อง query
+ *   ถ้าบอกว่า "อาจเคยเห็น" จึงยืนยันกับตาราง slip_fingerprints (unique index)
+ * - Perceptual hash (dHash): ใช้เตือนกรณีสลิปเดิมที่ถูกบันทึกภาพใหม่ ไม่ใช้ปฏิเสธเอง
+ *   เพราะสลิปคนละใบจากธนาคารเดียวกันอาจได้ dHash เท่ากันได้ — ตัวกันจริงคือ transRef
+ */
+@Service
+public class SlipFingerprintService implements SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(SlipFingerprintService.class);
+
+    @Autowired
+    private SlipFingerprintRepository slipFingerprintRepository;
+
+    private final BloomFilter knownSlips;
+
+    private boolean warmedUp;
+
+    public SlipFingerprintService(
+            @Value("${wallet.slip.bloom.expected-items:1000000}") long expectedItems,
+            @Value("${wallet.slip.bloom.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.knownSlips = new BloomFilter(expectedItems, falsePositiveRate);
+    }
+
+    /**
+     * เรียกหลังสร้าง bean ครบแต่ก่อน web server รับ request
+     * ถ้าโหลดทีหลัง สลิปที่ส่งมาช่วงแรกจะผ่าน isKnown ได้เพราะ Bloom filter ยังว่าง
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        warmUp();
+    }
+
+    /**
+     * โหลดครั้งเดียว เรียกซ้ำได้ — WalletService เรียกก่อนส่งรายการเติมเงินที่ค้างเข้าคิว
+     * เพราะลำดับ afterSingletonsInstantiated ระหว่าง bean ไม่แน่นอน
+     */
+    public synchronized void warmUp() {
+        if (warmedUp) {
+            return;
+        }
+        warmedUp = true;
+        int count = 0;
+        for (String sha256 : slipFingerprintRepository.findAllSha256()) {
+            knownSlips.put(HexFormat.of().parseHex(sha256));
+            count++;
+        }
+        log.info("Loaded {} slip fingerprint(s) into Bloom filter", count);
+    }
+
+    /**
+     * สลิปนี้ (ไฟล์เดียวกันทุก byte) เคยเติมเงินสำเร็จแล้วหรือไม่
+     */
+    public boolean isKnown(String sha256) {
+        if (!knownSlips.mightContain(HexFormat.of().parseHex(sha256))) {
+            return false;
+        }
+        return slipFingerprintRepository.existsBySha256(sha256);
+    }
+
+    /**
+     * มีสลิปที่หน้าตาเหมือนกันเคยเติมเงินสำเร็จหรือไม่ (ใช้เพื่อ log/ตรวจสอบย้อนหลัง)
+     */
+    public boolean looksLikeKnown(Long perceptualHash) {
+        return perceptualHash != null && slipFingerprintRepository.existsByPerceptualHash(perceptualHash);
+    }
+
+    /**
+     * บันทึกลายนิ้วมือสลิปที่เติมเงินสำเร็จ — เรียกภายใน transaction เดียวกับการปิดรายการ
+     * ถ้ามีสลิปเดียวกันบันทึกไปก่อน unique index จะทำให้ transaction นี้ rollback
+     */
+    public void record(String sha256, Long perceptualHash, Long transactionId) {
+        slipFingerprintRepository.save(new SlipFingerprint(sha256, perceptualHash, transactionId));
+        knownSlips.put(HexFormat.of().parseHex(sha256)); // ถ้า rollback ภายหลังก็แค่ทำให้ต้อง query เพิ่ม
+    }
+
+    // ==================== HASHING ====================
+
+    /**
+     * SHA-256 ของสลิปเก่าที่เก็บเป็น path (สลิปใหม่ได้ hash มากับ key ของ BlobStore แล้ว)
+     */
+    public static String sha256(InputStream in) throws IOException {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * dHash 64 bit: ย่อภาพเป็น 9x8 แบบ grayscale แล้วเทียบความสว่างพิกเซลที่ติดกันในแต่ละแถว
+     *
+     * @return null ถ้าอ่านภาพไม่ได้ (เช่นรูปแบบที่ ImageIO ไม่รองรับ)
+     */
+    public static Long perceptualHash(InputStream in) {
+        try {
+            BufferedImage source = ImageIO.read(in);
+            if (source == null) {
+                return null;
+            }
+            BufferedImage small = new BufferedImage(9, 8, BufferedImage.TYPE_BYTE_GRAY);
+            Graphics2D g = small.createGraphics();
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.drawImage(source, 0, 0, 9, 8, null);
+            g.dispose();
+
+            long hash = 0;
+            for (int y = 0; y < 8; y++) {
+                for (int x = 0; x < 8; x++) {
+                    int left = small.getRaster().getSample(x, y, 0);
+                    int right = small.getRaster().getSample(x + 1, y, 0);
+                    hash = (hash << 1) | (left > right ? 1 : 0);
+                }
+            }
+            return hash;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.ecom.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * คิวตรวจสอบสลิปเติมเงินแบบ asynchronous
+ *
+ * - ใช้ ThreadPoolExecutor ที่มีคิวจำกัดขนาด ถ้าคิวเต็มจะปฏิเสธงานทันที (backpressure)
+ *   แทนที่จะปล่อยให้ request ค้างรอ EasySlip จนกิน Tomcat thread และ DB connection
+ * - เก็บสถิติ (จำนวนงาน, ความลึกคิว, เวลาประมวลผล) ให้หน้า admin ดึงไปแสดง
+ *
+ * ขึ้นกับ WalletLedger เพื่อให้ Spring ปิด pipeline ก่อน ledger flush รอบสุดท้าย
+ */
+@Component
+@DependsOn("walletLedger")
+public class TopUpPipeline {
+
+    private static final Logger log = LoggerFactory.getLogger(TopUpPipeline.class);
+
+    @Value("${wallet.topup.workers:4}")
+    private int workers;
+
+    @Value("${wallet.topup.queue-capacity:200}")
+    private int queueCapacity;
+
+    private ThreadPoolExecutor executor;
+
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong totalQueueWaitMs = new AtomicLong();
+    private final AtomicLong totalProcessMs = new AtomicLong();
+    private final AtomicLong maxProcessMs = new AtomicLong();
+    private final AtomicInteger maxQueueDepth = new AtomicInteger();
+
+    @PostConstruct
+    public void start() {
+        AtomicInteger threadCounter = new AtomicInteger();
+        executor = new ThreadPoolExecutor(workers, workers, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread t = new Thread(r, "topup-verify-" + threadCounter.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * ส่งงานตรวจสลิปเข้าคิว
+     *
+     * @return false ถ้าคิวเต็ม (ผู้เรียกต้องแจ้งผู้ใช้ให้ลองใหม่)
+     */
+    public boolean submit(Long transactionId, Runnable task) {
+        long enqueuedAt = System.currentTimeMillis();
+        try {
+            executor.execute(() -> {
+                long startedAt = System.currentTimeMillis();
+                totalQueueWaitMs.addAndGet(startedAt - enqueuedAt);
+                try {
+                    task.run();
+                    completed.incrementAndGet();
+                } catch (Exception e) {
+                    failed.incrementAndGet();
+                    log.error("Top-up verification failed for transaction {}", transactionId, e);
+                } finally {
+                    long elapsed = System.currentTimeMillis() - startedAt;
+                    totalProcessMs.addAndGet(elapsed);
+                    maxProcessMs.accumulateAndGet(elapsed, Math::max);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.incrementAndGet();
+            log.warn("Top-up queue full ({} waiting) — rejected transaction {}", executor.getQueue().size(), transactionId);
+            return false;
+        }
+        submitted.incrementAndGet();
+        maxQueueDepth.accumulateAndGet(executor.getQueue().size(), Math::max);
+        return true;
+    }
+
+    /**
+     * สถิติของคิว (สำหรับ /admin/wallet/topup-metrics)
+     */
+    public Map<String, Object> getMetrics() {
+        long done = completed.get() + failed.get();
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("workers", workers);
+        metrics.put("queueCapacity", queueCapacity);
+        metrics.put("queueDepth", executor.getQueue().size());
+        metrics.put("maxQueueDepth", maxQueueDepth.get());
+        metrics.put("activeWorkers", executor.getActiveCount());
+        metrics.put("submitted", submitted.get());
+        metrics.put("rejected", rejected.get());
+        metrics.put("completed", completed.get());
+        metrics.put("failed", failed.get());
+        metrics.put("avgQueueWaitMs", done > 0 ? totalQueueWaitMs.get() / done : 0);
+        metrics.put("avgProcessMs", done > 0 ? totalProcessMs.get() / done : 0);
+        metrics.put("maxProcessMs", maxProcessMs.get());
+        return metrics;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+                // งานที่ยังค้างอยู่จะยังเป็น PENDING และถูกส่งเข้าคิวใหม่ตอน start ครั้งถัดไป
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.ecom.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.ecom.model.UserDtls;
+import com.ecom.repository.NotificationRepository;
+import com.ecom.util.TransactionHooks;
+import com.ecom.util.TtlCache;
+
+/**
+ * Per-user unread notification count for the navbar badge.
+ *
+ * Loaded with one COUNT (backed by idx_notifications_recipient_read) on first use, then kept up
+ * to date after commit when a notification is created or read. Every change is pushed to the
+ * user as {"type": "UNREAD_COUNT", "unreadCount": n} on /user/queue/notifications, so the page
+ * no longer polls /notifications/count. Entries are recounted after
+ * notification.unread.ttl-seconds, which also corrects any drift from races with the first load.
+ */
+@Component
+public class UnreadNotificationCounter {
+
+    private static final Logger log = LoggerFactory.getLogger(UnreadNotificationCounter.class);
+
+    private static final int MAX_ENTRIES = 10_000;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Autowired
+    private WebSocketService webSocketService;
+
+    @Value("${notification.unread.ttl-seconds:600}")
+    private long ttlSeconds;
+
+    private final TtlCache<Integer, Long> counts = new TtlCache<>(MAX_ENTRIES, () -> ttlSeconds * 1000);
+
+    private final AtomicLong pushes = new AtomicLong();
+
+    public long get(UserDtls user) {
+        return counts.get(user.getId(), notificationRepository::countUnreadByRecipientId);
+    }
+
+    /**
+     * A notification for the user was saved in the current transaction.
+     */
+    public void created(UserDtls recipient) {
+        TransactionHooks.afterCommit(() -> adjust(recipient, 1));
+    }
+
+    /**
+     * {@code changed} of the user's notifications were marked read in the current transaction.
+     */
+    public void read(UserDtls user, int changed) {
+        if (changed > 0) {
+            TransactionHooks.afterCommit(() -> adjust(user, -changed));
+        }
+    }
+
+    /**
+     * All of the user's notifications were marked read in the current transaction.
+     */
+    public void readAll(UserDtls user) {
+        TransactionHooks.afterCommit(() -> {
+            counts.put(user.getId(), 0L);
+            push(user, 0);
+        });
+    }
+
+    private void adjust(UserDtls user, long delta) {
+        Long count = counts.update(user.getId(), current -> Math.max(0, current + delta));
+        push(user, count != null ? count : get(user));
+    }
+
+    private void push(UserDtls user, long count) {
+        try {
+            webSocketService.sendUnreadCount(user.getEmail(), count);
+            pushes.incrementAndGet();
+        } catch (Exception e) {
+            log.warn("Unread count push to {} failed: {}", user.getEmail(), e.getMessage());
+        }
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("hits", counts.hits());
+        metrics.put("misses", counts.misses());
+        metrics.put("pushes", pushes.get());
+        metrics.put("entries", counts.size());
+        metrics.put("ttlSeconds", ttlSeconds);
+        return metrics;
+    }
+}
@@ -0,0 +1,580 @@
+package com.ecom.service;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.ecom.model.SiteSetting;
+import com.ecom.model.Transaction;
+import com.ecom.model.UserDtls;
+import com.ecom.model.Wallet;
+import com.ecom.repository.SiteSettingRepository;
+import com.ecom.repository.TransactionRepository;
+import com.ecom.repository.WalletRepository;
+import com.ecom.repository.WalletTransferRepository;
+import com.ecom.util.TransactionHooks;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Ledger ยอดเงิน Wallet ในหน่วยความจำ (หน่วยสตางค์, long)
+ *
+ * - แบ่ง account เป็น stripe ตาม user id ทุกการอ่าน/แก้ยอดของ account ต้องถือ lock ของ stripe นั้น
+ *   (critical section สั้นมาก ไม่มี I/O) ไม่ต้องรอ row lock ใน DB
+ * - โอนระหว่าง Wallet ถือ lock ของ stripe ทั้งสองฝั่งตามลำดับ index เสมอ จึงไม่มี deadlock
+ *   และไม่มีใครเห็นสถานะที่หักผู้โอนแล้วแต่ยังไม่เพิ่มให้ผู้รับ
+ * - ยอดที่เปลี่ยนหลัง commit จะถูกสะสมเป็น delta แล้ว flush ลงตาราง wallets เป็นรอบ (write-behind)
+ * - ถ้า transaction rollback จะคืนยอดใน memory อัตโนมัติ (ภายใต้ lock เดียวกัน)
+ *   เงินที่เข้ามาใน transaction ที่ยังไม่ commit จะถูกกันไว้ (held) ใช้จ่ายไม่ได้จนกว่าจะ commit
+ *   การคืนยอดตอน rollback จึงทำได้เสมอ ไม่มีทางที่ผู้รับใช้เงินไปก่อนแล้วทำให้ยอดติดลบ
+ * - ถ้าปิดระบบไม่สมบูรณ์ (crash) รอบถัดไปจะคำนวณยอดใหม่จาก wallet_transactions + wallet_transfers
+ */
+@Component
+public class WalletLedger implements SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(WalletLedger.class);
+
+    /** คืนค่านี้เมื่อยอดเงินไม่พอสำหรับการหัก */
+    public static final long INSUFFICIENT_FUNDS = -1L;
+
+    private static final int STRIPES = 64;
+    private static final String CLEAN_SHUTDOWN_KEY = "walletLedger.cleanShutdown";
+
+    @Autowired
+    private WalletRepository walletRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private WalletTransferRepository walletTransferRepository;
+
+    @Autowired
+    private SiteSettingRepository siteSettingRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    // สถิติ contention (สำหรับ /admin/wallet/transfer-metrics)
+    private final AtomicLong transfers = new AtomicLong();
+    private final AtomicLong lockWaits = new AtomicLong();
+    private final AtomicLong totalLockWaitNanos = new AtomicLong();
+    private final AtomicLong maxLockWaitNanos = new AtomicLong();
+    private final AtomicLong flushConflicts = new AtomicLong();
+
+    private boolean recovered;
+
+    // จำนวน delta ที่ผูกกับ transaction ที่ยังไม่จบ (ยังไม่รู้ว่า commit หรือ rollback)
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    public WalletLedger() {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe(i);
+        }
+    }
+
+    // ==================== BALANCE OPERATIONS ====================
+
+    /**
+     * ยอดคงเหลือปัจจุบัน (สตางค์)
+     */
+    public long balanceOf(UserDtls user) {
+        Account acc = account(user);
+        Stripe stripe = stripeOf(acc.userId);
+        lock(stripe);
+        try {
+            return acc.balance;
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    /**
+     * ยอดเติมเงินสะสม (สตางค์)
+     */
+    public long totalTopupOf(UserDtls user) {
+        Account acc = account(user);
+        Stripe stripe = stripeOf(acc.userId);
+        lock(stripe);
+        try {
+            return acc.totalTopup;
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    /**
+     * เพิ่มเงินเข้า Wallet คืนยอดคงเหลือใหม่ (สตางค์)
+     *
+     * @param topup true ถ้าเป็นการเติมเงิน (นับรวมใน totalTopup)
+     */
+    public long credit(UserDtls user, long amount, boolean topup) {
+        requirePositive(amount);
+        Account acc = account(user);
+        Stripe stripe = stripeOf(acc.userId);
+        long topupDelta = topup ? amount : 0L;
+        long newBalance;
+        boolean held = TransactionSynchronizationManager.isSynchronizationActive();
+        lock(stripe);
+        try {
+            acc.balance += amount;
+            acc.totalTopup += topupDelta;
+            if (held) {
+                acc.held += amount;
+            }
+            newBalance = acc.balance;
+        } finally {
+            stripe.lock.unlock();
+        }
+        stage(acc, amount, topupDelta);
+        return newBalance;
+    }
+
+    /**
+     * หักเงินจาก Wallet คืนยอดคงเหลือใหม่ (สตางค์)
+     * หรือ {@link #INSUFFICIENT_FUNDS} ถ้ายอดเงินที่ใช้ได้ (ไม่นับเงินที่ยังถูกกันไว้) ไม่พอ
+     */
+    public long debit(UserDtls user, long amount) {
+        requirePositive(amount);
+        Account acc = account(user);
+        Stripe stripe = stripeOf(acc.userId);
+        long newBalance;
+        lock(stripe);
+        try {
+            if (acc.balance - acc.held < amount) {
+                return INSUFFICIENT_FUNDS;
+            }
+            acc.balance -= amount;
+            newBalance = acc.balance;
+        } finally {
+            stripe.lock.unlock();
+        }
+        stage(acc, -amount, 0L);
+        return newBalance;
+    }
+
+    /**
+     * โอนเงินระหว่าง Wallet สองใบแบบ atomic (สตางค์)
+     *
+     * ถือ lock ของ stripe ฝั่งที่ index น้อยกว่าก่อนเสมอ การโอน A→B กับ B→A พร้อมกันจึงรอกันได้
+     * แต่ไม่ deadlock ถ้า transaction rollback จะคืนยอดทั้งสองฝั่งพร้อมกันภายใต้ lock คู่เดิม
+     *
+     * @return ยอดคงเหลือใหม่ของทั้งสองฝั่ง หรือ null ถ้ายอดเงินผู้โอนไม่พอ
+     */
+    public TransferBalances transfer(UserDtls from, UserDtls to, long amount) {
+        requirePositive(amount);
+        Account source = account(from);
+        Account target = account(to);
+        TransferBalances balances;
+        boolean held = TransactionSynchronizationManager.isSynchronizationActive();
+        lockBoth(source, target);
+        try {
+            if (source.balance - source.held < amount) {
+                return null;
+            }
+            source.balance -= amount;
+            target.balance += amount;
+            if (held) {
+                target.held += amount;
+            }
+            balances = new TransferBalances(source.balance, target.balance);
+        } finally {
+            unlockBoth(source, target);
+        }
+        stageTransfer(source, target, amount);
+        transfers.incrementAndGet();
+        return balances;
+    }
+
+    private void lockBoth(Account a, Account b) {
+        Stripe first = stripeOf(a.userId);
+        Stripe second = stripeOf(b.userId);
+        if (first.index > second.index) {
+            Stripe swap = first;
+            first = second;
+            second = swap;
+        }
+        lock(first);
+        if (second != first) {
+            lock(second);
+        }
+    }
+
+    private void unlockBoth(Account a, Account b) {
+        Stripe first = stripeOf(a.userId);
+        Stripe second = stripeOf(b.userId);
+        if (second != first) {
+            second.lock.unlock();
+        }
+        first.lock.unlock();
+    }
+
+    /**
+     * รอ lock ของ stripe (นับเวลารอเฉพาะครั้งที่ถูกถืออยู่)
+     */
+    private void lock(Stripe stripe) {
+        if (stripe.lock.tryLock()) {
+            return;
+        }
+        lockWaits.incrementAndGet();
+        long start = System.nanoTime();
+        stripe.lock.lock();
+        long waited = System.nanoTime() - start;
+        totalLockWaitNanos.addAndGet(waited);
+        maxLockWaitNanos.accumulateAndGet(waited, Math::max);
+    }
+
+    // ==================== WRITE-BEHIND ====================
+
+    /**
+     * Flush delta ที่ commit แล้วลงตาราง wallets ใน transaction เดียว
+     * อัพเดทเรียงตาม user id เพื่อให้ row lock ใน DB ถูกถือตามลำดับเดียวกันทุก node
+     */
+    @Scheduled(fixedDelayString = "${wallet.ledger.flush-interval-ms:1000}")
+    public void flush() {
+        flushPending();
+    }
+
+    /**
+     * @return false ถ้า flush ล้มเหลว (delta ถูกคืนไปรอรอบถัดไป)
+     */
+    private boolean flushPending() {
+        Map<Account, long[]> batch = new TreeMap<>((a, b) -> a.userId.compareTo(b.userId));
+        for (Stripe stripe : stripes) {
+            for (Account acc : stripe.accounts.values()) {
+                long delta = acc.pendingBalance.getAndSet(0L);
+                long topupDelta = acc.pendingTopup.getAndSet(0L);
+                if (delta != 0 || topupDelta != 0) {
+                    batch.put(acc, new long[] { delta, topupDelta });
+                }
+            }
+        }
+        if (batch.isEmpty()) {
+            return true;
+        }
+
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                for (Map.Entry<Account, long[]> e : batch.entrySet()) {
+                    walletRepository.applyDelta(e.getKey().userId, toBaht(e.getValue()[0]),
+                            toBaht(e.getValue()[1]), now);
+                }
+            });
+            return true;
+        } catch (Exception e) {
+            // คืน delta กลับไปรอ flush รอบถัดไป
+            for (Map.Entry<Account, long[]> entry : batch.entrySet()) {
+                entry.getKey().pendingBalance.addAndGet(entry.getValue()[0]);
+                entry.getKey().pendingTopup.addAndGet(entry.getValue()[1]);
+            }
+            if (e instanceof ConcurrencyFailureException) {
+                flushConflicts.incrementAndGet();
+            }
+            log.error("Wallet ledger flush failed, {} accounts will be retried: {}", batch.size(), e.getMessage());
+            return false;
+        }
+    }
+
+    // ==================== RECOVERY ====================
+
+    /**
+     * ตอนเริ่มระบบ: ถ้ารอบก่อนไม่ได้ปิดแบบสมบูรณ์ ให้คำนวณยอดทุก Wallet ใหม่จาก journal
+     * เรียกหลังสร้าง bean ครบแต่ก่อน web server รับ request และก่อนงาน @Scheduled เริ่ม
+     * จึงไม่มี request ใดโหลดยอดเก่าจากตาราง wallets ระหว่าง replay
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        recoverOnStartup();
+    }
+
+    /**
+     * ทำครั้งเดียว เรียกซ้ำได้ — WalletService เรียกก่อนส่งรายการเติมเงินที่ค้างเข้าคิว
+     * เพราะลำดับ afterSingletonsInstantiated ระหว่าง bean ไม่แน่นอน
+     */
+    public synchronized void recoverOnStartup() {
+        if (recovered) {
+            return;
+        }
+        recovered = true;
+        SiteSetting marker = siteSettingRepository.findByKey(CLEAN_SHUTDOWN_KEY)
+                .orElse(new SiteSetting(CLEAN_SHUTDOWN_KEY, "true"));
+        if ("false".equals(marker.getValue())) {
+            log.warn("Wallet ledger was not shut down cleanly — replaying balances from journal");
+            replayFromJournal();
+        }
+        marker.setValue("false");
+        siteSettingRepository.save(marker);
+    }
+
+    /**
+     * ตอนปิดระบบ: flush รอบสุดท้าย แล้วตั้ง cleanShutdown = true เฉพาะเมื่อตาราง wallets ตรงกับ memory
+     * ถ้า flush ล้มเหลว ยังมี delta ค้าง หรือมี transaction ที่ยังไม่จบ ให้คงค่า "false" ไว้
+     * รอบหน้าจะ replay ยอดจาก journal แทนการเชื่อตาราง wallets
+     */
+    @PreDestroy
+    public void shutdown() {
+        boolean flushed = flushPending();
+        if (!flushed || hasUnflushedDeltas() || inFlight.get() > 0) {
+            log.warn("Wallet ledger did not drain on shutdown (flushed={}, in-flight={}) — balances will be replayed on next start",
+                    flushed, inFlight.get());
+            return;
+        }
+        siteSettingRepository.findByKey(CLEAN_SHUTDOWN_KEY).ifPresent(marker -> {
+            marker.setValue("true");
+            siteSettingRepository.save(marker);
+        });
+    }
+
+    private boolean hasUnflushedDeltas() {
+        for (Stripe stripe : stripes) {
+            for (Account acc : stripe.accounts.values()) {
+                if (acc.pendingBalance.get() != 0 || acc.pendingTopup.get() != 0) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * คำนวณยอดคงเหลือใหม่ = เติมเงิน - ซื้อ + รับโอน - โอนออก (เฉพาะรายการ SUCCESS)
+     */
+    public void replayFromJournal() {
+        Map<Integer, long[]> totals = new HashMap<>(); // [balance, totalTopup]
+
+        for (Object[] row : transactionRepository.sumSuccessfulByUserAndType()) {
+            Integer userId = (Integer) row[0];
+            Transaction.Type type = (Transaction.Type) row[1];
+            long amount = toMinor(((Number) row[2]).doubleValue());
+            long[] t = totals.computeIfAbsent(userId, k -> new long[2]);
+            if (type == Transaction.Type.PURCHASE) {
+                t[0] -= amount;
+            } else {
+                t[0] += amount;
+                t[1] += amount;
+            }
+        }
+        for (Object[] row : walletTransferRepository.sumSuccessfulReceivedByUser()) {
+            totals.computeIfAbsent((Integer) row[0], k -> new long[2])[0] += toMinor(((Number) row[1]).doubleValue());
+        }
+        for (Object[] row : walletTransferRepository.sumSuccessfulSentByUser()) {
+            totals.computeIfAbsent((Integer) row[0], k -> new long[2])[0] -= toMinor(((Number) row[1]).doubleValue());
+        }
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            List<Wallet> wallets = walletRepository.findAll();
+            for (Wallet wallet : wallets) {
+                long[] t = totals.getOrDefault(wallet.getUser().getId(), new long[2]);
+                wallet.setBalance(toBaht(t[0]));
+                wallet.setTotalTopup(toBaht(t[1]));
+            }
+        });
+
+        // account ที่โหลดไว้แล้วไม่ทิ้ง (อาจมี delta ค้างอยู่) แต่ปรับยอดให้ตรง journal ใต้ lock ของมัน
+        // journal รวมทุกรายการที่ commit แล้ว delta ที่ค้างจึงนับอยู่ในยอดใหม่แล้ว
+        for (Stripe stripe : stripes) {
+            lock(stripe);
+            try {
+                for (Account acc : stripe.accounts.values()) {
+                    long[] t = totals.getOrDefault(acc.userId, new long[2]);
+                    acc.balance = t[0];
+                    acc.totalTopup = t[1];
+                    acc.pendingBalance.set(0L);
+                    acc.pendingTopup.set(0L);
+                }
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        log.info("Wallet ledger replay complete: {} users with journal entries", totals.size());
+    }
+
+    // ==================== METRICS ====================
+
+    public Map<String, Object> getTransferMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        long waits = lockWaits.get();
+        metrics.put("transfers", transfers.get());
+        metrics.put("lockWaits", waits);
+        metrics.put("avgLockWaitMicros", waits > 0 ? totalLockWaitNanos.get() / waits / 1000 : 0);
+        metrics.put("maxLockWaitMicros", maxLockWaitNanos.get() / 1000);
+        metrics.put("flushConflicts", flushConflicts.get());
+        return metrics;
+    }
+
+    // ==================== HELPERS ====================
+
+    public static long toMinor(double baht) {
+        return Math.round(baht * 100.0);
+    }
+
+    public static double toBaht(long minor) {
+        return minor / 100.0;
+    }
+
+    private Account account(UserDtls user) {
+        Stripe stripe = stripeOf(user.getId());
+        Account acc = stripe.accounts.get(user.getId());
+        if (acc != null) {
+            return acc;
+        }
+        Wallet wallet = loadOrCreateWallet(user);
+        Account loaded = new Account(user.getId(), toMinor(wallet.getBalance()),
+                toMinor(wallet.getTotalTopup() != null ? wallet.getTotalTopup() : 0.0));
+        Account existing = stripe.accounts.putIfAbsent(user.getId(), loaded);
+        return existing != null ? existing : loaded;
+    }
+
+    /**
+     * สร้าง wallet ใน transaction แยก เพื่อไม่ให้หายไปถ้า transaction ของผู้เรียก rollback
+     */
+    private Wallet loadOrCreateWallet(UserDtls user) {
+        return walletRepository.findByUser(user).orElseGet(() -> {
+            Wallet wallet = new Wallet();
+            wallet.setUser(user);
+            wallet.setBalance(0.0);
+            wallet.setTotalTopup(0.0);
+            TransactionTemplate requiresNew = new TransactionTemplate(transactionManager);
+            requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+            try {
+                return requiresNew.execute(status -> walletRepository.save(wallet));
+            } catch (DataIntegrityViolationException e) {
+                // thread อื่นสร้าง wallet ไปแล้ว
+                return walletRepository.findByUser(user).orElseThrow(() -> e);
+            }
+        });
+    }
+
+    /**
+     * ผูก delta กับ transaction ปัจจุบัน: commit → รอ flush, rollback → คืนยอดใน memory
+     */
+    private void stage(Account acc, long delta, long topupDelta) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            acc.addPending(delta, topupDelta);
+            return;
+        }
+        inFlight.incrementAndGet();
+        TransactionHooks.afterCompletion(committed -> {
+            inFlight.decrementAndGet();
+            Stripe stripe = stripeOf(acc.userId);
+            lock(stripe);
+            try {
+                if (delta > 0) {
+                    acc.held -= delta; // credit: ปลดเงินที่กันไว้
+                }
+                if (!committed) {
+                    acc.balance -= delta;
+                    acc.totalTopup -= topupDelta;
+                }
+            } finally {
+                stripe.lock.unlock();
+            }
+            if (committed) {
+                acc.addPending(delta, topupDelta);
+            }
+        });
+    }
+
+    /**
+     * เหมือน stage แต่สำหรับการโอน: rollback คืนยอดทั้งสองฝั่งภายใต้ lock คู่เดียวกัน
+     */
+    private void stageTransfer(Account source, Account target, long amount) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            source.addPending(-amount, 0L);
+            target.addPending(amount, 0L);
+            return;
+        }
+        inFlight.incrementAndGet();
+        TransactionHooks.afterCompletion(committed -> {
+            inFlight.decrementAndGet();
+            lockBoth(source, target);
+            try {
+                target.held -= amount;
+                if (!committed) {
+                    source.balance += amount;
+                    target.balance -= amount;
+                }
+            } finally {
+                unlockBoth(source, target);
+            }
+            if (committed) {
+                source.addPending(-amount, 0L);
+                target.addPending(amount, 0L);
+            }
+        });
+    }
+
+    private Stripe stripeOf(Integer userId) {
+        return stripes[Math.floorMod(userId, STRIPES)];
+    }
+
+    private static void requirePositive(long amount) {
+        if (amount <= 0) {
+            throw new IllegalArgumentException("Amount must be positive: " + amount);
+        }
+    }
+
+    private static final class Stripe {
+        final int index;
+        final ConcurrentHashMap<Integer, Account> accounts = new ConcurrentHashMap<>();
+        final ReentrantLock lock = new ReentrantLock();
+
+        Stripe(int index) {
+            this.index = index;
+        }
+    }
+
+    /**
+     * ยอดคงเหลือหลังโอน (สตางค์)
+     */
+    public record TransferBalances(long senderBalance, long receiverBalance) {
+    }
+
+    /**
+     * balance / totalTopup / held อ่านและแก้ได้เฉพาะตอนถือ lock ของ stripe ของ account นี้
+     * held = เงินเข้าจาก transaction ที่ยังไม่ commit (รวมอยู่ใน balance แต่ยังใช้จ่ายไม่ได้)
+     * ส่วน pending* เป็น delta ที่ commit แล้วรอ flush (flush ดึงออกด้วย getAndSet ไม่ต้องถือ lock)
+     */
+    private static final class Account {
+        final Integer userId;
+        long balance;
+        long totalTopup;
+        long held;
+        final AtomicLong pendingBalance = new AtomicLong();
+        final AtomicLong pendingTopup = new AtomicLong();
+
+        Account(Integer userId, long balance, long totalTopup) {
+            this.userId = userId;
+            this.balance = balance;
+            this.totalTopup = totalTopup;
+        }
+
+        void addPending(long delta, long topupDelta) {
+            pendingBalance.addAndGet(delta);
+            pendingTopup.addAndGet(topupDelta);
+        }
+    }
+}
@@ -1,17 +1,30 @@
 package com.ecom.service;
 
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
+import java.io.InputStream;
+import java.nio.file.NoSuchFileException;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
 import java.util.List;
-import java.util.UUID;
+import java.util.Map;
+import java.util.function.Function;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
 import com.ecom.model.Transaction;
@@ -22,6 +35,7 @@ import com.ecom.repository.TransactionRepository;
 import com.ecom.repository.UserRepository;
 import com.ecom.repository.WalletRepository;
 import com.ecom.repository.WalletTransferRepository;
+import com.ecom.service.BlobStore.StoredBlob;
 import com.ecom.service.EasySlipService.SlipValidationResult;
 
 /**
@@ -29,9 +43,13 @@ import com.ecom.service.EasySlipService.SlipValidationResult;
  * จัดการ Wallet, Transaction และ Top-up flow ทั้งหมด
  */
 @Service
-public class WalletService {
+public class WalletService implements SmartInitializingSingleton {
 
-    private static final String SLIP_UPLOAD_DIR = "uploads/slips/";
+    private static final Logger log = LoggerFactory.getLogger(WalletService.class);
+
+    /** จำนวนรายการประวัติต่อหน้า (ค่าเริ่มต้น / สูงสุด) */
+    public static final int HISTORY_PAGE_SIZE = 20;
+    public static final int HISTORY_MAX_PAGE_SIZE = 100;
 
     @Autowired
     private WalletRepository walletRepository;
@@ -51,6 +69,39 @@ public class WalletService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private WalletLedger walletLedger;
+
+    @Autowired
+    private TopUpPipeline topUpPipeline;
+
+    @Autowired
+    private WebSocketService webSocketService;
+
+    @Autowired
+    private SlipFingerprintService slipFingerprintService;
+
+    @Autowired
+    private BlobStore blobStore;
+
+    @Autowired
+    private DashboardMetrics dashboardMetrics;
+
+    // รายการ PENDING ที่ใหม่กว่านี้อาจยังอยู่ในคิวของ instance อื่น — ตอนเริ่มระบบจะไม่ส่งเข้าคิวซ้ำ
+    @Value("${wallet.topup.resubmit-grace-seconds:120}")
+    private long resubmitGraceSeconds;
+
+    private final TransactionTemplate transactionTemplate;
+
+    // transaction แยกสำหรับบันทึกที่ต้องอยู่รอดแม้ transaction หลัก rollback (เช่น transfer ที่ล้มเหลว)
+    private final TransactionTemplate requiresNewTemplate;
+
+    public WalletService(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.requiresNewTemplate = new TransactionTemplate(transactionManager);
+        this.requiresNewTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
     // ==================== WALLET ====================
 
     /**
@@ -67,11 +118,33 @@ public class WalletService {
     }
 
     /**
-     * ดึงยอดคงเหลือ
+     * ดึงยอดคงเหลือ (จาก WalletLedger — ยอดใน DB อาจตามหลังไม่เกินหนึ่งรอบ flush)
      */
     public double getBalance(UserDtls user) {
-        Wallet wallet = getOrCreateWallet(user);
-        return wallet.getBalance();
+        return WalletLedger.toBaht(walletLedger.balanceOf(user));
+    }
+
+    /**
+     * ดึงยอดเติมเงินสะสม
+     */
+    public double getTotalTopup(UserDtls user) {
+        return WalletLedger.toBaht(walletLedger.totalTopupOf(user));
+    }
+
+    /**
+     * Wallet สำหรับแสดงผล — เป็น object ที่ไม่ได้ผูกกับ persistence context
+     * จึงใส่ยอดจาก ledger ได้โดยไม่ถูก dirty-check เขียนทับตาราง wallets
+     */
+    public Wallet getWalletView(UserDtls user) {
+        Wallet stored = getOrCreateWallet(user);
+        Wallet view = new Wallet();
+        view.setId(stored.getId());
+        view.setUser(user);
+        view.setCreatedAt(stored.getCreatedAt());
+        view.setUpdatedAt(stored.getUpdatedAt());
+        view.setBalance(getBalance(user));
+        view.setTotalTopup(getTotalTopup(user));
+        return view;
     }
 
     // ==================== QR CODE ====================
@@ -93,17 +166,18 @@ public class WalletService {
     // ==================== TOP UP ====================
 
     /**
-     * ขั้นตอนเต็ม: ตรวจสอบสลิปและเติมเงิน
+     * ขั้นตอนที่ 1 (ใน request): รับสลิปแล้วส่งเข้าคิวตรวจสอบ
      * 
      * Flow:
      * 1. บันทึก Transaction (status = PENDING)
-     * 2. บันทึกไฟล์สลิป
-     * 3. ส่งสลิปไปตรวจสอบที่ EasySlip API
-     * 4. ถ้าผ่าน → อัพเดท Wallet balance + Transaction status = SUCCESS
-     * 5. ถ้าไม่ผ่าน → Transaction status = FAILED พร้อมเหตุผล
+     * 2. บันทึกไฟล์สลิปลง BlobStore (อ่าน upload รอบเดียว ได้ SHA-256 มาพร้อมกัน)
+     * 3. ตรวจ SHA-256 ของไฟล์กับสลิปที่เคยใช้แล้ว (Bloom filter + slip_fingerprints)
+     * 4. ส่งเข้าคิว TopUpPipeline — ถ้าคิวเต็ม Transaction = FAILED ทันที
+     * 
+     * ผลการตรวจจะส่งกลับทาง WebSocket (/user/queue/wallet)
+     * หรือให้ client poll ที่ /user/wallet/topup/status/{id}
      */
-    @Transactional
-    public TopUpResult processTopUp(UserDtls user, MultipartFile slipFile, double amount) {
+    public TopUpResult submitTopUp(UserDtls user, MultipartFile slipFile, double amount) {
         // 1. สร้าง Transaction (PENDING)
         Transaction transaction = new Transaction();
         transaction.setUser(user);
@@ -111,65 +185,252 @@ public class WalletService {
         transaction.setStatus(Transaction.Status.PENDING);
         transaction = transactionRepository.save(transaction);
 
+        // 2. บันทึกไฟล์สลิป (worker อ่านจาก BlobStore เพราะ MultipartFile หายไปหลังจบ request)
+        try (InputStream in = slipFile.getInputStream()) {
+            StoredBlob slip = blobStore.put(in);
+            transaction.setSlipImagePath(slip.key());
+            transaction = transactionRepository.save(transaction);
+
+            // 3. สลิปไฟล์เดิมที่เคยเติมเงินสำเร็จแล้ว → ปฏิเสธทันทีโดยไม่ต้องเรียก EasySlip
+            if (slipFingerprintService.isKnown(slip.sha256())) {
+                return rejectTopUp(transaction, "สลิปนี้ถูกใช้งานแล้ว");
+            }
+        } catch (IOException e) {
+            return rejectTopUp(transaction, "บันทึกไฟล์สลิปไม่สำเร็จ: " + e.getMessage());
+        }
+
+        // 4. ส่งเข้าคิวตรวจสอบ
+        Long transactionId = transaction.getId();
+        if (!topUpPipeline.submit(transactionId, () -> completeTopUp(transactionId))) {
+            return rejectTopUp(transaction, "ระบบตรวจสอบสลิปมีคิวเต็ม กรุณาลองใหม่อีกครั้ง");
+        }
+        return TopUpResult.pending(transaction);
+    }
+
+    /**
+     * ขั้นตอนที่ 2 (ใน worker ของ TopUpPipeline):
+     * เรียก EasySlip นอก transaction แล้วปิดรายการใน transaction สั้น ๆ
+     * งานของรายการเดียวกันอาจรันซ้ำได้ (เช่น ส่งเข้าคิวซ้ำตอนเริ่มระบบ) แต่จะปิดรายการได้ครั้งเดียว
+     * เพราะ finishTopUp / failTopUp ล็อกแถวด้วย SELECT ... FOR UPDATE แล้วแก้เฉพาะแถวที่ยัง PENDING
+     * 
+     * Flow:
+     * 1. ส่งสลิปไปตรวจสอบที่ EasySlip API (ไม่ถือ DB connection ระหว่างรอ)
+     * 2. ถ้าผ่าน → Transaction status = SUCCESS + เพิ่มยอดใน WalletLedger
+     * 3. ถ้าไม่ผ่าน → Transaction status = FAILED พร้อมเหตุผล
+     * 4. แจ้งผลให้ผู้ใช้ทาง WebSocket
+     */
+    public void completeTopUp(Long transactionId) {
+        Transaction pending = transactionRepository.findById(transactionId).orElse(null);
+        if (pending == null || pending.getStatus() != Transaction.Status.PENDING) {
+            return;
+        }
+
+        // 1. ส่งสลิปไปตรวจสอบ (ตรวจลายนิ้วมืออีกรอบ เผื่อสลิปเดียวกันสำเร็จไปแล้วระหว่างรอคิว)
+        SlipValidationResult result;
+        String sha256 = null;
+        Long perceptualHash = null;
+        try {
+            String slipRef = pending.getSlipImagePath();
+            Resource slip = openSlip(slipRef);
+            if (BlobStore.isKey(slipRef)) {
+                sha256 = BlobStore.sha256Of(slipRef);
+            } else {
+                try (InputStream in = slip.getInputStream()) {
+                    sha256 = SlipFingerprintService.sha256(in);
+                }
+            }
+            try (InputStream in = slip.getInputStream()) {
+                perceptualHash = SlipFingerprintService.perceptualHash(in);
+            }
+            if (slipFingerprintService.isKnown(sha256)) {
+                result = SlipValidationResult.failed("สลิปนี้ถูกใช้งานแล้ว");
+            } else {
+                if (slipFingerprintService.looksLikeKnown(perceptualHash)) {
+                    log.warn("Slip for transaction {} looks like an already-used slip (dHash {})",
+                            transactionId, Long.toHexString(perceptualHash));
+                }
+                result = easySlipService.validateSlip(slip, pending.getAmount());
+            }
+        } catch (NoSuchFileException e) {
+            result = SlipValidationResult.failed("ไม่พบไฟล์สลิป กรุณาอัพโหลดใหม่");
+        } catch (Exception e) {
+            result = SlipValidationResult.failed("เกิดข้อผิดพลาดภายใน: " + e.getMessage());
+        }
+
+        // 2-3. ปิดรายการ
+        SlipValidationResult verified = result;
+        String slipSha256 = sha256;
+        Long slipPerceptualHash = perceptualHash;
+        TopUpResult outcome;
         try {
-            // 2. บันทึกไฟล์สลิป
-            String slipPath = saveSlipFile(slipFile, transaction.getId());
-            transaction.setSlipImagePath(slipPath);
+            outcome = transactionTemplate.execute(status -> finishTopUp(transactionId, verified, slipSha256, slipPerceptualHash));
+        } catch (DataIntegrityViolationException e) {
+            // unique index ของ ref_transaction_id / slip_fingerprints ชนกัน = มีสลิปเดียวกันสำเร็จไปก่อน
+            outcome = failTopUp(transactionId, "สลิปนี้ถูกใช้งานแล้ว");
+        } catch (Exception e) {
+            outcome = failTopUp(transactionId, "เกิดข้อผิดพลาดภายใน: " + e.getMessage());
+        }
+
+        // 4. แจ้งผล
+        if (outcome != null) {
+            publishTopUpResult(pending.getUser(), outcome);
+        }
+    }
+
+    /**
+     * อัพเดทสถานะ Transaction ตามผลตรวจสลิป (เรียกภายใน transactionTemplate)
+     * คืน null ถ้ารายการถูกปิดไปแล้วโดยงานอื่น
+     */
+    private TopUpResult finishTopUp(Long transactionId, SlipValidationResult result, String sha256, Long perceptualHash) {
+        Transaction transaction = transactionRepository.findByIdForUpdate(transactionId).orElse(null);
+        if (transaction == null || transaction.getStatus() != Transaction.Status.PENDING) {
+            return null;
+        }
+
+        if (!result.isValid()) {
+            // ไม่ผ่าน
+            transaction.setStatus(Transaction.Status.FAILED);
+            transaction.setFailureReason(result.getErrorMessage());
+            transactionRepository.save(transaction);
+            return TopUpResult.failed(transaction, result.getErrorMessage());
+        }
+
+        // ตรวจสอบว่าสลิปซ้ำหรือไม่ (ป้องกัน double spending)
+        String transRef = result.getSlipData().getTransRef();
+        if (transRef != null && !transRef.isEmpty()
+                && transactionRepository.existsByRefTransactionId(transRef)) {
+            transaction.setStatus(Transaction.Status.FAILED);
+            transaction.setFailureReason("สลิปนี้ถูกใช้งานแล้ว (transRef: " + transRef + ")");
             transactionRepository.save(transaction);
+            return TopUpResult.failed(transaction, "สลิปนี้ถูกใช้งานแล้ว");
+        }
+
+        // สำเร็จ — อัพเดท Transaction
+        transaction.setStatus(Transaction.Status.SUCCESS);
+        transaction.setRefTransactionId(transRef != null && !transRef.isEmpty() ? transRef : null); // ค่าว่างจะชน unique index
+        transaction.setSenderName(result.getSlipData().getSenderName());
+        transaction.setReceiverName(result.getSlipData().getReceiverName());
+        transaction.setVerifiedAt(LocalDateTime.now());
+        transactionRepository.saveAndFlush(transaction);
+        slipFingerprintService.record(sha256, perceptualHash, transaction.getId());
 
-            // 3. ส่งสลิปไปตรวจสอบ
-            SlipValidationResult result = easySlipService.validateSlip(slipFile, amount);
+        // อัพเดท Wallet ผ่าน ledger (คืนยอดอัตโนมัติถ้า transaction นี้ rollback)
+        long newBalance = walletLedger.credit(transaction.getUser(), WalletLedger.toMinor(transaction.getAmount()), true);
+        dashboardMetrics.onTopUp(transaction.getAmount());
 
-            if (!result.isValid()) {
-                // ไม่ผ่าน
-                transaction.setStatus(Transaction.Status.FAILED);
-                transaction.setFailureReason(result.getErrorMessage());
-                transactionRepository.save(transaction);
-                return TopUpResult.failed(transaction, result.getErrorMessage());
+        return TopUpResult.success(transaction, WalletLedger.toBaht(newBalance));
+    }
+
+    /**
+     * ปิดรายการเป็น FAILED เฉพาะเมื่อยังเป็น PENDING (ไม่เขียนทับรายการที่ SUCCESS ไปแล้ว)
+     * คืน null ถ้ารายการถูกปิดไปแล้วโดยงานอื่น
+     */
+    private TopUpResult failTopUp(Long transactionId, String reason) {
+        return transactionTemplate.execute(status -> {
+            Transaction current = transactionRepository.findByIdForUpdate(transactionId).orElse(null);
+            if (current == null || current.getStatus() != Transaction.Status.PENDING) {
+                return null;
             }
+            current.setStatus(Transaction.Status.FAILED);
+            current.setFailureReason(reason);
+            transactionRepository.save(current);
+            return TopUpResult.failed(current, reason);
+        });
+    }
+
+    /**
+     * ปฏิเสธสลิประหว่าง submitTopUp — ถ้ารายการถูกปิดไปแล้ว ให้ client poll สถานะจริงแทน
+     */
+    private TopUpResult rejectTopUp(Transaction transaction, String reason) {
+        TopUpResult result = failTopUp(transaction.getId(), reason);
+        return result != null ? result : TopUpResult.pending(transaction);
+    }
 
-            // 4. ตรวจสอบว่าสลิปซ้ำหรือไม่ (ป้องกัน double spending)
-            String transRef = result.getSlipData().getTransRef();
-            if (transRef != null && !transRef.isEmpty()
-                    && transactionRepository.existsByRefTransactionId(transRef)) {
-                transaction.setStatus(Transaction.Status.FAILED);
-                transaction.setFailureReason("สลิปนี้ถูกใช้งานแล้ว (transRef: " + transRef + ")");
-                transactionRepository.save(transaction);
-                return TopUpResult.failed(transaction, "สลิปนี้ถูกใช้งานแล้ว");
+    private void publishTopUpResult(UserDtls user, TopUpResult result) {
+        try {
+            Map<String, Object> payload = new HashMap<>();
+            payload.put("event", "TOPUP_RESULT");
+            payload.put("transactionId", result.getTransaction().getId());
+            payload.put("status", result.getTransaction().getStatus().name());
+            payload.put("success", result.isSuccess());
+            payload.put("message", result.getMessage());
+            payload.put("amount", result.getTransaction().getAmount());
+            if (result.isSuccess()) {
+                payload.put("newBalance", result.getNewBalance());
             }
+            webSocketService.sendWalletUpdate(user.getEmail(), payload);
+        } catch (Exception e) {
+            log.warn("Failed to push top-up result for transaction {}: {}",
+                    result.getTransaction().getId(), e.getMessage());
+        }
+    }
 
-            // 5. สำเร็จ — อัพเดท Transaction
-            transaction.setStatus(Transaction.Status.SUCCESS);
-            transaction.setRefTransactionId(transRef);
-            transaction.setSenderName(result.getSlipData().getSenderName());
-            transaction.setReceiverName(result.getSlipData().getReceiverName());
-            transaction.setVerifiedAt(LocalDateTime.now());
-            transactionRepository.save(transaction);
+    /**
+     * ดึงสถานะการเติมเงินของ User (สำหรับ client ที่ poll)
+     */
+    public Transaction getTopUpStatus(UserDtls user, Long transactionId) {
+        return transactionRepository.findById(transactionId)
+                .filter(t -> t.getUser() != null && t.getUser().getId().equals(user.getId()))
+                .orElse(null);
+    }
 
-            // 6. อัพเดท Wallet
-            Wallet wallet = getOrCreateWallet(user);
-            wallet.setBalance(wallet.getBalance() + amount);
-            wallet.setTotalTopup(wallet.getTotalTopup() + amount);
-            wallet.setUpdatedAt(LocalDateTime.now());
-            walletRepository.save(wallet);
+    /**
+     * สถิติของคิวตรวจสลิป
+     */
+    public Map<String, Object> getTopUpPipelineMetrics() {
+        return topUpPipeline.getMetrics();
+    }
 
-            return TopUpResult.success(transaction, wallet.getBalance());
+    /**
+     * เรียกหลังสร้าง bean ครบแต่ก่อน web server รับ request
+     * ยอด Wallet ต้อง recover จาก journal และ Bloom filter ของสลิปต้องโหลดครบ
+     * ก่อน worker ตัวแรกจะตรวจสลิปและเติมเงินเข้า ledger
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        walletLedger.recoverOnStartup();
+        slipFingerprintService.warmUp();
+        resubmitPendingTopUps();
+    }
 
-        } catch (Exception e) {
-            transaction.setStatus(Transaction.Status.FAILED);
-            transaction.setFailureReason("เกิดข้อผิดพลาดภายใน: " + e.getMessage());
-            transactionRepository.save(transaction);
-            return TopUpResult.failed(transaction, "เกิดข้อผิดพลาดภายใน: " + e.getMessage());
+    /**
+     * ตอนเริ่มระบบ: ส่งรายการเติมเงินที่ยังค้าง PENDING (คิวหายไปตอนปิดระบบ) เข้าคิวใหม่
+     * ข้ามรายการที่ใหม่กว่า resubmit-grace-seconds เพราะอาจยังอยู่ในคิวของ instance อื่น
+     * (ถ้า instance นั้นล้ม รายการจะถูกส่งเข้าคิวใหม่เมื่อ instance ใดเริ่มระบบหลังพ้นช่วงนี้)
+     */
+    public void resubmitPendingTopUps() {
+        LocalDateTime cutoff = LocalDateTime.now().minusSeconds(resubmitGraceSeconds);
+        List<Transaction> pendingTopUps = transactionRepository.findByTypeAndStatusAndCreatedAtBeforeOrderByCreatedAtAsc(
+                Transaction.Type.TOPUP, Transaction.Status.PENDING, cutoff);
+        for (Transaction transaction : pendingTopUps) {
+            if (transaction.getSlipImagePath() == null) {
+                failTopUp(transaction.getId(), "ไม่พบไฟล์สลิป");
+                continue;
+            }
+            Long transactionId = transaction.getId();
+            if (!topUpPipeline.submit(transactionId, () -> completeTopUp(transactionId))) {
+                log.warn("Top-up queue full on startup — transaction {} stays PENDING", transactionId);
+            }
+        }
+        if (!pendingTopUps.isEmpty()) {
+            log.info("Resubmitted {} pending top-up(s) for verification", pendingTopUps.size());
         }
     }
 
     // ==================== TRANSACTION HISTORY ====================
 
     /**
-     * ดึงประวัติการทำธุรกรรมของ User
+     * ดึงประวัติการทำธุรกรรมของ User ทีละหน้า (keyset)
+     *
+     * @param cursor nextCursor ของหน้าก่อน หรือ null สำหรับหน้าแรก
+     * @throws IllegalArgumentException ถ้า cursor ไม่ถูกต้อง
      */
-    public List<Transaction> getTransactionHistory(UserDtls user) {
-        return transactionRepository.findByUserOrderByCreatedAtDesc(user);
+    public HistoryPage<Transaction> getTransactionHistory(UserDtls user, String cursor, int limit) {
+        HistoryCursor after = HistoryCursor.parse(cursor);
+        int size = clampPageSize(limit);
+        List<Transaction> rows = transactionRepository.findPageByUserBefore(
+                user.getId(), after.createdAt, after.id, PageRequest.of(0, size + 1));
+        return HistoryPage.of(rows, size, t -> HistoryCursor.encode(t.getCreatedAt(), t.getId()));
     }
 
     /**
@@ -183,17 +444,13 @@ public class WalletService {
 
     @Transactional
     public PurchaseResult purchaseWithWallet(UserDtls user, double amount, String description) {
-        Wallet wallet = getOrCreateWallet(user);
+        long newBalance = walletLedger.debit(user, WalletLedger.toMinor(amount));
 
-        if (wallet.getBalance() < amount) {
-            return PurchaseResult.failed(String.format("ยอดเงินไม่เพียงพอ (คงเหลือ: ฿%.2f, ต้องการ: ฿%.2f)", wallet.getBalance(), amount));
+        if (newBalance == WalletLedger.INSUFFICIENT_FUNDS) {
+            return PurchaseResult.failed(String.format("ยอดเงินไม่เพียงพอ (คงเหลือ: ฿%.2f, ต้องการ: ฿%.2f)", getBalance(user), amount));
         }
 
         try {
-            wallet.setBalance(wallet.getBalance() - amount);
-            wallet.setUpdatedAt(LocalDateTime.now());
-            walletRepository.save(wallet);
-
             Transaction transaction = new Transaction();
             transaction.setUser(user);
             transaction.setAmount(amount);
@@ -202,9 +459,13 @@ public class WalletService {
             transaction.setDescription(description);
             transaction.setVerifiedAt(LocalDateTime.now());
             transactionRepository.save(transaction);
+            dashboardMetrics.onPurchase(amount);
 
-            return PurchaseResult.success(transaction, wallet.getBalance());
+            return PurchaseResult.success(transaction, WalletLedger.toBaht(newBalance));
         } catch (Exception e) {
+            // rollback ทั้ง transaction: ledger คืนยอดที่หักไปใน afterCompletion
+            // (ไม่เติมเงินคืนเอง ซึ่งจะกลายเป็นรายการ commit แยกที่ไม่มีใน journal)
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
             return PurchaseResult.failed("เกิดข้อผิดพลาด: " + e.getMessage());
         }
     }
@@ -212,20 +473,19 @@ public class WalletService {
     // ==================== ADMIN QUERIES ====================
 
     public Double getTotalPurchaseRevenue() {
-        return transactionRepository.getTotalPurchaseRevenue();
+        return dashboardMetrics.getPurchaseRevenue();
     }
 
     public Long getTotalPurchaseCount() {
-        return transactionRepository.getTotalPurchaseCount();
+        return dashboardMetrics.getPurchaseCount();
     }
 
     public Double getTotalTopupAmount() {
-        return transactionRepository.getTotalTopupAmount();
+        return dashboardMetrics.getTopupAmount();
     }
 
     public List<Transaction> getAllTransactions(int limit) {
-        org.springframework.data.domain.Pageable pageable = org.springframework.data.domain.PageRequest.of(0, limit);
-        return transactionRepository.findAllByOrderByCreatedAtDesc(pageable).getContent();
+        return transactionRepository.findAllByOrderByCreatedAtDesc(PageRequest.of(0, limit)).getContent();
     }
 
     // ==================== PURCHASE RESULT CLASS ====================
@@ -261,25 +521,20 @@ public class WalletService {
     // ==================== FILE HELPER ====================
 
     /**
-     * บันทึกไฟล์สลิป
+     * เปิดไฟล์สลิปของรายการ: key ใน BlobStore หรือ path เดิม (รายการก่อนย้ายมาใช้ BlobStore)
      */
-    private String saveSlipFile(MultipartFile file, Long transactionId) throws IOException {
-        Path uploadDir = Paths.get(SLIP_UPLOAD_DIR);
-        if (!Files.exists(uploadDir)) {
-            Files.createDirectories(uploadDir);
+    private Resource openSlip(String slipRef) throws IOException {
+        if (slipRef == null) {
+            throw new NoSuchFileException("slip");
         }
-
-        String originalFilename = file.getOriginalFilename();
-        String extension = "";
-        if (originalFilename != null && originalFilename.contains(".")) {
-            extension = originalFilename.substring(originalFilename.lastIndexOf("."));
+        if (BlobStore.isKey(slipRef)) {
+            return blobStore.open(slipRef);
         }
-
-        String filename = "slip_" + transactionId + "_" + UUID.randomUUID().toString().substring(0, 8) + extension;
-        Path filePath = uploadDir.resolve(filename);
-        Files.copy(file.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
-
-        return filePath.toString();
+        Resource legacy = new FileSystemResource(slipRef);
+        if (!legacy.exists()) {
+            throw new NoSuchFileException(slipRef);
+        }
+        return legacy;
     }
 
     // ==================== RESULT CLASS ====================
@@ -302,6 +557,14 @@ public class WalletService {
             return r;
         }
 
+        public static TopUpResult pending(Transaction transaction) {
+            TopUpResult r = new TopUpResult();
+            r.success = true;
+            r.message = "ได้รับสลิปแล้ว กำลังตรวจสอบ";
+            r.transaction = transaction;
+            return r;
+        }
+
         public static TopUpResult failed(Transaction transaction, String reason) {
             TopUpResult r = new TopUpResult();
             r.success = false;
@@ -325,7 +588,7 @@ public class WalletService {
      * 1. ตรวจสอบว่า receiver มีอยู่จริง
      * 2. ตรวจสอบว่าไม่โอนให้ตัวเอง
      * 3. ตรวจสอบยอดเงินเพียงพอ
-     * 4. หักเงิน sender + เพิ่มเงิน receiver
+     * 4. หักเงิน sender + เพิ่มเงิน receiver (atomic ใน ledger, lock ตามลำดับ — ดู WalletLedger.transfer)
      * 5. บันทึก WalletTransfer record
      */
     @Transactional
@@ -349,24 +612,16 @@ public class WalletService {
             return TransferResult.failed("ไม่สามารถโอนเงินให้ตัวเองได้");
         }
 
-        // 4. ตรวจสอบยอดเงินเพียงพอ
-        Wallet senderWallet = getOrCreateWallet(sender);
-        if (senderWallet.getBalance() < amount) {
-            return TransferResult.failed(String.format("ยอดเงินไม่เพียงพอ (คงเหลือ: ฿%.2f)", senderWallet.getBalance()));
+        // 4-6. ตรวจสอบยอดเงินเพียงพอ + หักเงินผู้ส่ง + เพิ่มเงินผู้รับ
+        long amountMinor = WalletLedger.toMinor(amount);
+        WalletLedger.TransferBalances balances = walletLedger.transfer(sender, receiver, amountMinor);
+        if (balances == null) {
+            return TransferResult.failed(String.format("ยอดเงินไม่เพียงพอ (คงเหลือ: ฿%.2f)", getBalance(sender)));
         }
+        long senderBalance = balances.senderBalance();
+        long receiverBalance = balances.receiverBalance();
 
         try {
-            // 5. หักเงินผู้ส่ง
-            senderWallet.setBalance(senderWallet.getBalance() - amount);
-            senderWallet.setUpdatedAt(LocalDateTime.now());
-            walletRepository.save(senderWallet);
-
-            // 6. เพิ่มเงินผู้รับ
-            Wallet receiverWallet = getOrCreateWallet(receiver);
-            receiverWallet.setBalance(receiverWallet.getBalance() + amount);
-            receiverWallet.setUpdatedAt(LocalDateTime.now());
-            walletRepository.save(receiverWallet);
-
             // 7. บันทึกประวัติการโอน
             WalletTransfer transfer = new WalletTransfer();
             transfer.setSender(sender);
@@ -374,14 +629,18 @@ public class WalletService {
             transfer.setAmount(amount);
             transfer.setNote(note);
             transfer.setStatus(WalletTransfer.TransferStatus.SUCCESS);
-            transfer.setSenderBalanceAfter(senderWallet.getBalance());
-            transfer.setReceiverBalanceAfter(receiverWallet.getBalance());
+            transfer.setSenderBalanceAfter(WalletLedger.toBaht(senderBalance));
+            transfer.setReceiverBalanceAfter(WalletLedger.toBaht(receiverBalance));
             walletTransferRepository.save(transfer);
 
-            return TransferResult.success(transfer, senderWallet.getBalance(), receiver.getName());
+            return TransferResult.success(transfer, WalletLedger.toBaht(senderBalance), receiver.getName());
 
         } catch (Exception e) {
-            // บันทึก transfer ที่ล้มเหลว
+            // rollback ทั้ง transaction: ledger คืนยอดทั้งสองฝั่งพร้อมกันใน afterCompletion
+            // (เงินที่ผู้รับได้ถูกกันไว้จนกว่าจะ commit จึงไม่มีทางถูกใช้ไปก่อน)
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+
+            // บันทึก transfer ที่ล้มเหลวใน transaction แยก ไม่ให้ถูก rollback ไปด้วย
             WalletTransfer failedTransfer = new WalletTransfer();
             failedTransfer.setSender(sender);
             failedTransfer.setReceiver(receiver);
@@ -389,12 +648,23 @@ public class WalletService {
             failedTransfer.setNote(note);
             failedTransfer.setStatus(WalletTransfer.TransferStatus.FAILED);
             failedTransfer.setFailureReason(e.getMessage());
-            walletTransferRepository.save(failedTransfer);
+            try {
+                requiresNewTemplate.executeWithoutResult(status -> walletTransferRepository.save(failedTransfer));
+            } catch (Exception saveError) {
+                log.error("บันทึก transfer ที่ล้มเหลวไม่สำเร็จ: {}", saveError.getMessage());
+            }
 
             return TransferResult.failed("เกิดข้อผิดพลาดภายใน: " + e.getMessage());
         }
     }
 
+    /**
+     * สถิติการแย่ง lock ตอนโอนเงิน (สำหรับ /admin/wallet/transfer-metrics)
+     */
+    public Map<String, Object> getTransferMetrics() {
+        return walletLedger.getTransferMetrics();
+    }
+
     /**
      * ค้นหา User จากอีเมลเพื่อแสดงชื่อก่อนโอน
      */
@@ -403,10 +673,24 @@ public class WalletService {
     }
 
     /**
-     * ดึงประวัติการโอนทั้งหมดของ User (ทั้งส่งและรับ)
+     * ดึงประวัติการโอนของ User (ทั้งส่งและรับ) ทีละหน้า (keyset)
+     *
+     * @param cursor nextCursor ของหน้าก่อน หรือ null สำหรับหน้าแรก
+     * @throws IllegalArgumentException ถ้า cursor ไม่ถูกต้อง
      */
-    public List<WalletTransfer> getTransferHistory(UserDtls user) {
-        return walletTransferRepository.findAllByUser(user);
+    public HistoryPage<WalletTransfer> getTransferHistory(UserDtls user, String cursor, int limit) {
+        HistoryCursor after = HistoryCursor.parse(cursor);
+        int size = clampPageSize(limit);
+        List<WalletTransfer> rows = walletTransferRepository.findPageByUserBefore(
+                user.getId(), after.createdAt, after.id, size + 1);
+        return HistoryPage.of(rows, size, t -> HistoryCursor.encode(t.getCreatedAt(), t.getId()));
+    }
+
+    private static int clampPageSize(int limit) {
+        if (limit <= 0) {
+            return HISTORY_PAGE_SIZE;
+        }
+        return Math.min(limit, HISTORY_MAX_PAGE_SIZE);
     }
 
     /**
@@ -458,4 +742,65 @@ public class WalletService {
         public double getNewBalance() { return newBalance; }
         public String getReceiverName() { return receiverName; }
     }
+
+    // ==================== HISTORY PAGE ====================
+
+    /**
+     * ประวัติหนึ่งหน้า — nextCursor เป็น null เมื่อไม่มีหน้าถัดไป
+     */
+    public static class HistoryPage<T> {
+        private List<T> items;
+        private String nextCursor;
+
+        /**
+         * @param rows ผลที่ query มาเกิน size หนึ่งแถว ถ้ามีแถวเกินแปลว่ายังมีหน้าถัดไป
+         */
+        static <T> HistoryPage<T> of(List<T> rows, int size, Function<T, String> cursorOf) {
+            HistoryPage<T> page = new HistoryPage<>();
+            if (rows.size() > size) {
+                page.items = rows.subList(0, size);
+                page.nextCursor = cursorOf.apply(page.items.get(size - 1));
+            } else {
+                page.items = rows;
+            }
+            return page;
+        }
+
+        public List<T> getItems() { return items; }
+        public String getNextCursor() { return nextCursor; }
+        public boolean hasNext() { return nextCursor != null; }
+    }
+
+    /**
+     * ตำแหน่ง (createdAt, id) ของแถวสุดท้ายที่ส่งไปแล้ว ในรูป "2024-05-01T10:15:30.123456_42"
+     */
+    private static final class HistoryCursor {
+        /** หน้าแรก: ทุกแถวเก่ากว่าค่านี้ */
+        static final HistoryCursor FIRST = new HistoryCursor(LocalDateTime.of(9999, 12, 31, 23, 59, 59), Long.MAX_VALUE);
+
+        final LocalDateTime createdAt;
+        final Long id;
+
+        HistoryCursor(LocalDateTime createdAt, Long id) {
+            this.createdAt = createdAt;
+            this.id = id;
+        }
+
+        static String encode(LocalDateTime createdAt, Long id) {
+            return createdAt + "_" + id;
+        }
+
+        static HistoryCursor parse(String cursor) {
+            if (cursor == null || cursor.isBlank()) {
+                return FIRST;
+            }
+            int sep = cursor.lastIndexOf('_');
+            try {
+                return new HistoryCursor(LocalDateTime.parse(cursor.substring(0, sep)),
+                        Long.parseLong(cursor.substring(sep + 1)));
+            } catch (DateTimeParseException | IndexOutOfBoundsException | NumberFormatException e) {
+                throw new IllegalArgumentException("cursor ไม่ถูกต้อง: " + cursor);
+            }
+        }
+    }
 }
@@ -1,18 +1,27 @@
 package com.ecom.service;
 
+import java.util.Map;
+
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
 
-import com.ecom.model.Notification;
-
 @Service
 public class WebSocketService {
 
     @Autowired
     private SimpMessagingTemplate messagingTemplate;
 
-    public void sendNotification(String username, Notification notification) {
-        messagingTemplate.convertAndSendToUser(username, "/queue/notifications", notification);
+    public void sendNotification(String username, Map<String, Object> payload) {
+        messagingTemplate.convertAndSendToUser(username, "/queue/notifications", payload);
+    }
+
+    public void sendUnreadCount(String username, long count) {
+        messagingTemplate.convertAndSendToUser(username, "/queue/notifications",
+                Map.of("type", "UNREAD_COUNT", "unreadCount", count));
+    }
+
+    public void sendWalletUpdate(String username, Map<String, Object> payload) {
+        messagingTemplate.convertAndSendToUser(username, "/queue/wallet", payload);
     }
 }
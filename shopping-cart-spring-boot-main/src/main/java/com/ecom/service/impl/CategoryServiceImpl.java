@@ -2,6 +2,7 @@ package com.ecom.service.impl;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
@@ -12,17 +13,31 @@ import org.springframework.util.ObjectUtils;
 
 import com.ecom.model.Category;
 import com.ecom.repository.CategoryRepository;
+import com.ecom.service.CatalogCache;
 import com.ecom.service.CategoryService;
+import com.ecom.service.SalesTrends;
+import com.ecom.service.SalesTrends.Window;
 
 @Service
 public class CategoryServiceImpl implements CategoryService {
 
+	/** Categories shown in the dashboard's top categories chart (last 7 days) */
+	private static final int TOP_CATEGORIES = 5;
+
 	@Autowired
 	private CategoryRepository categoryRepository;
 
+	@Autowired
+	private CatalogCache catalogCache;
+
+	@Autowired
+	private SalesTrends salesTrends;
+
 	@Override
 	public Category saveCategory(Category category) {
-		return categoryRepository.save(category);
+		Category saveCategory = categoryRepository.save(category);
+		catalogCache.invalidate();
+		return saveCategory;
 	}
 
 	@Override
@@ -41,6 +56,7 @@ public class CategoryServiceImpl implements CategoryService {
 
 		if (!ObjectUtils.isEmpty(category)) {
 			categoryRepository.delete(category);
+			catalogCache.invalidate();
 			return true;
 		}
 		return false;
@@ -54,8 +70,12 @@ public class CategoryServiceImpl implements CategoryService {
 
 	@Override
 	public List<Category> getAllActiveCategory() {
-		List<Category> categories = categoryRepository.findByIsActiveTrue();
-		return categories;
+		return catalogCache.getActiveCategories();
+	}
+
+	@Override
+	public List<Category> getNewestActiveCategories(int limit) {
+		return catalogCache.getNewestActiveCategories(limit);
 	}
 
 	@Override
@@ -71,13 +91,19 @@ public class CategoryServiceImpl implements CategoryService {
 
 	@Override
 	public List<Integer> getTopCategoriesData() {
-	    // Return empty list for now - you can implement category usage statistics later
-	    return new ArrayList<>();
+	    List<Integer> data = new ArrayList<>();
+	    for (Map.Entry<String, Long> top : salesTrends.getTopCategories(Window.WEEK, TOP_CATEGORIES)) {
+	        data.add(top.getValue().intValue());
+	    }
+	    return data;
 	}
 
 	@Override
 	public List<String> getTopCategoriesLabels() {
-	    // Return empty list for now - you can implement category labels later
-	    return new ArrayList<>();
+	    List<String> labels = new ArrayList<>();
+	    for (Map.Entry<String, Long> top : salesTrends.getTopCategories(Window.WEEK, TOP_CATEGORIES)) {
+	        labels.add(top.getKey());
+	    }
+	    return labels;
 	}
 }
@@ -1,17 +1,22 @@
 package com.ecom.service.impl;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import com.ecom.model.GameLibrary;
 import com.ecom.model.Product;
+import com.ecom.model.ProductOrder;
 import com.ecom.model.UserDtls;
 import com.ecom.repository.GameLibraryRepository;
 import com.ecom.service.GameLibraryService;
+import com.ecom.service.OwnedGamesCache;
 
 @Service
 public class GameLibraryServiceImpl implements GameLibraryService {
@@ -19,6 +24,9 @@ public class GameLibraryServiceImpl implements GameLibraryService {
 	@Autowired
 	private GameLibraryRepository gameLibraryRepository;
 
+	@Autowired
+	private OwnedGamesCache ownedGamesCache;
+
 	@Override
 	public GameLibrary addToLibrary(UserDtls user, Product product, String orderId, String gameKey) {
 		// Check if user already owns this game
@@ -34,9 +42,37 @@ public class GameLibraryServiceImpl implements GameLibraryService {
 		gameLibrary.setPurchaseDate(LocalDateTime.now());
 		gameLibrary.setIsDownloaded(false);
 
+		ownedGamesCache.invalidate(user.getId());
 		return gameLibraryRepository.save(gameLibrary);
 	}
 
+	@Override
+	public List<GameLibrary> addAllToLibrary(UserDtls user, List<ProductOrder> orders) {
+		// One set-based ownership check for the whole cart instead of one query per game
+		List<Integer> productIds = orders.stream().map(order -> order.getProduct().getId()).toList();
+		Set<Integer> owned = new HashSet<>(gameLibraryRepository.findOwnedProductIds(user.getId(), productIds));
+
+		LocalDateTime now = LocalDateTime.now();
+		List<GameLibrary> games = new ArrayList<>();
+		for (ProductOrder order : orders) {
+			if (!owned.add(order.getProduct().getId())) {
+				continue; // Already owned (or duplicated in this cart)
+			}
+			GameLibrary gameLibrary = new GameLibrary();
+			gameLibrary.setUser(user);
+			gameLibrary.setProduct(order.getProduct());
+			gameLibrary.setOrderId(order.getOrderId());
+			gameLibrary.setGameKey(order.getGameKey());
+			gameLibrary.setPurchaseDate(now);
+			gameLibrary.setIsDownloaded(false);
+			games.add(gameLibrary);
+		}
+		if (!games.isEmpty()) {
+			ownedGamesCache.invalidate(user.getId());
+		}
+		return gameLibraryRepository.saveAll(games);
+	}
+
 	@Override
 	public List<GameLibrary> getGamesByUser(Integer userId) {
 		return gameLibraryRepository.findByUserIdOrderByPurchaseDateDesc(userId);
@@ -47,6 +83,11 @@ public class GameLibraryServiceImpl implements GameLibraryService {
 		return gameLibraryRepository.existsByUserIdAndProductId(userId, productId);
 	}
 
+	@Override
+	public Set<Integer> getOwnedProductIds(Integer userId) {
+		return ownedGamesCache.get(userId);
+	}
+
 	@Override
 	public GameLibrary markAsDownloaded(Integer gameLibraryId) {
 		Optional<GameLibrary> optionalGame = gameLibraryRepository.findById(gameLibraryId);
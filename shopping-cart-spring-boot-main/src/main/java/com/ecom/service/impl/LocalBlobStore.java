@@ -0,0 +1,75 @@
+package com.ecom.service.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+
+import com.ecom.service.BlobStore;
+
+/**
+ * BlobStore บน filesystem ปกติ (ค่าเริ่มต้น)
+ *
+ * เขียนลงไฟล์ชั่วคราวใต้ root/tmp แล้ว rename เข้าที่ เพื่อไม่ให้มีใครเห็นไฟล์ที่เขียนไม่ครบ
+ */
+@Service
+@ConditionalOnProperty(name = "wallet.slip.store.type", havingValue = "local", matchIfMissing = true)
+public class LocalBlobStore implements BlobStore {
+
+	@Value("${wallet.slip.store.local.root:uploads/slips}")
+	private String root;
+
+	@Override
+	public StoredBlob put(InputStream content) throws IOException {
+		Path base = Paths.get(root);
+		Path tmpDir = Files.createDirectories(base.resolve("tmp"));
+		Path temp = Files.createTempFile(tmpDir, "upload-", ".part");
+		try {
+			StoredBlob blob = BlobStore.spool(content, temp);
+			Path target = base.resolve(BlobStore.shardedPath(blob.key()));
+			if (Files.exists(target)) {
+				return blob.asDuplicate();
+			}
+			Files.createDirectories(target.getParent());
+			try {
+				Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+			} catch (FileAlreadyExistsException e) {
+				return blob.asDuplicate();
+			}
+			return blob;
+		} finally {
+			Files.deleteIfExists(temp);
+		}
+	}
+
+	@Override
+	public Resource open(String key) throws IOException {
+		Path path = resolve(key);
+		if (!Files.exists(path)) {
+			throw new NoSuchFileException(key);
+		}
+		return new FileSystemResource(path);
+	}
+
+	@Override
+	public void delete(String key) throws IOException {
+		Files.deleteIfExists(resolve(key));
+	}
+
+	private Path resolve(String key) {
+		if (!BlobStore.isKey(key)) {
+			throw new IllegalArgumentException("Invalid blob key: " + key);
+		}
+		return Paths.get(root).resolve(BlobStore.shardedPath(key));
+	}
+}
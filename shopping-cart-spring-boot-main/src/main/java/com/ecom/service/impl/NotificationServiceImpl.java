@@ -10,7 +10,7 @@ import com.ecom.model.Notification;
 import com.ecom.model.UserDtls;
 import com.ecom.repository.NotificationRepository;
 import com.ecom.service.NotificationService;
-import com.ecom.util.CommonUtil;
+import com.ecom.service.UnreadNotificationCounter;
 
 @Service
 public class NotificationServiceImpl implements NotificationService {
@@ -19,7 +19,7 @@ public class NotificationServiceImpl implements NotificationService {
 	private NotificationRepository notificationRepository;
 
 	@Autowired
-	private CommonUtil commonUtil;
+	private UnreadNotificationCounter unreadCounter;
 
 	@Override
 	public List<Notification> getUserNotifications(UserDtls user) {
@@ -28,18 +28,19 @@ public class NotificationServiceImpl implements NotificationService {
 
 	@Override
 	public long getUnreadCount(UserDtls user) {
-		return notificationRepository.countUnreadByRecipient(user);
+		return unreadCounter.get(user);
 	}
 
 	@Override
 	@Transactional
-	public void markAsRead(Long notificationId) {
-		notificationRepository.markAsRead(notificationId);
+	public void markAsRead(Long notificationId, UserDtls user) {
+		unreadCounter.read(user, notificationRepository.markAsRead(notificationId, user));
 	}
 
 	@Override
 	@Transactional
 	public void markAllAsRead(UserDtls user) {
 		notificationRepository.markAllAsReadByRecipient(user);
+		unreadCounter.readAll(user);
 	}
 }
\ No newline at end of file
@@ -1,8 +1,10 @@
 package com.ecom.service.impl;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -22,8 +24,11 @@ import com.ecom.model.ProductOrder;
 import com.ecom.model.UserDtls;
 import com.ecom.repository.CartRepository;
 import com.ecom.repository.ProductOrderRepository;
+import com.ecom.service.DashboardMetrics;
+import com.ecom.service.GameKeyGenerator;
 import com.ecom.service.GameLibraryService;
 import com.ecom.service.OrderService;
+import com.ecom.service.SalesTrends;
 import com.ecom.service.WalletService;
 import com.ecom.util.CommonUtil;
 import com.ecom.util.OrderStatus;
@@ -46,25 +51,22 @@ public class OrderServiceImpl implements OrderService {
 	@Autowired
 	private WalletService walletService;
 
+	@Autowired
+	private DashboardMetrics dashboardMetrics;
+
+	@Autowired
+	private SalesTrends salesTrends;
+
+	@Autowired
+	private GameKeyGenerator gameKeyGenerator;
+
 	@Override
 	public Map<String, Long> getOrderStatusCounts() {
-		List<ProductOrder> allOrders = orderRepository.findAll();
-
-		Map<String, Long> statusCounts = new HashMap<>();
-		statusCounts.put("Total", (long) allOrders.size());
-		statusCounts.put("In Progress",
-				allOrders.stream().filter(order -> "In Progress".equals(order.getStatus())).count());
-		statusCounts.put("Order Received",
-				allOrders.stream().filter(order -> "Order Received".equals(order.getStatus())).count());
-		statusCounts.put("Product Packed",
-				allOrders.stream().filter(order -> "Product Packed".equals(order.getStatus())).count());
-		statusCounts.put("Out for Delivery",
-				allOrders.stream().filter(order -> "Out for Delivery".equals(order.getStatus())).count());
-		statusCounts.put("Delivered",
-				allOrders.stream().filter(order -> "Delivered".equals(order.getStatus())).count());
-		statusCounts.put("Cancelled",
-				allOrders.stream().filter(order -> "Cancelled".equals(order.getStatus())).count());
-
+		Map<String, Long> statusCounts = dashboardMetrics.getOrderStatusCounts();
+		for (String status : List.of("In Progress", "Order Received", "Product Packed", "Out for Delivery",
+				"Delivered", "Cancelled")) {
+			statusCounts.putIfAbsent(status, 0L);
+		}
 		return statusCounts;
 	}
 
@@ -79,6 +81,7 @@ public class OrderServiceImpl implements OrderService {
 	        ProductOrder order = orderRepository.findById(orderId).orElse(null);
 	        if (order != null) {
 	            orderRepository.delete(order);
+	            dashboardMetrics.onOrderDeleted(order);
 	            return true;
 	        }
 	        return false;
@@ -92,7 +95,7 @@ public class OrderServiceImpl implements OrderService {
 	@Transactional
 	public void saveOrder(Integer userid, OrderRequest orderRequest) throws Exception {
 
-		List<Cart> carts = cartRepository.findByUserId(userid);
+		List<Cart> carts = cartRepository.findByUserIdWithProduct(userid);
 		if (carts.isEmpty()) {
 			throw new Exception("ตะกร้าว่าง");
 		}
@@ -113,10 +116,14 @@ public class OrderServiceImpl implements OrderService {
 			throw new Exception(purchaseResult.getMessage());
 		}
 
+		// Build every order first, then insert them (and the library entries) as JDBC batches
+		List<ProductOrder> orders = new ArrayList<>(carts.size());
+		LocalDateTime orderTime = LocalDateTime.now();
 		for (Cart cart : carts) {
 			ProductOrder order = new ProductOrder();
 			order.setOrderId(UUID.randomUUID().toString());
-			order.setOrderDate(LocalDate.now());
+			order.setOrderDate(orderTime.toLocalDate());
+			order.setOrderTime(orderTime);
 			order.setProduct(cart.getProduct());
 			order.setPrice(cart.getProduct().getDiscountPrice());
 			order.setQuantity(1);
@@ -125,33 +132,24 @@ public class OrderServiceImpl implements OrderService {
 			order.setPaymentType("WALLET");
 
 			// Generate game activation key
-			String gameKey = generateGameKey();
+			String gameKey = gameKeyGenerator.nextKey();
 			order.setGameKey(gameKey);
 
-			ProductOrder saveOrder = orderRepository.save(order);
-
-			// Add game to user's game library
-			gameLibraryService.addToLibrary(cart.getUser(), cart.getProduct(), saveOrder.getOrderId(), gameKey);
+			orders.add(order);
 		}
 
-		resetCart(user);
-	}
+		List<ProductOrder> savedOrders = orderRepository.saveAll(orders);
+		savedOrders.forEach(dashboardMetrics::onOrderPlaced);
+		salesTrends.onOrdersPlaced(savedOrders);
 
-	private String generateGameKey() {
-		String chars = "ABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789";
-		StringBuilder key = new StringBuilder();
-		java.util.Random random = new java.util.Random();
-		for (int i = 0; i < 4; i++) {
-			if (i > 0) key.append("-");
-			for (int j = 0; j < 4; j++) {
-				key.append(chars.charAt(random.nextInt(chars.length())));
-			}
-		}
-		return key.toString();
+		// Add games to user's game library
+		gameLibraryService.addAllToLibrary(user, savedOrders);
+
+		resetCart(user);
 	}
 
 	private void resetCart(UserDtls user) {
-		cartRepository.deleteByUser(user);
+		cartRepository.deleteAllByUserId(user.getId());
 	}
 
 	@Override
@@ -164,46 +162,50 @@ public class OrderServiceImpl implements OrderService {
 	    return orderRepository.findByProductId(productId);
 	}
 
+	@Override
+	public Map<Integer, Long> getOrderCountsByProduct(Collection<Integer> productIds) {
+	    Map<Integer, Long> counts = new HashMap<>();
+	    if (productIds == null || productIds.isEmpty()) {
+	        return counts;
+	    }
+	    for (Object[] row : orderRepository.countByProductIds(productIds)) {
+	        counts.put((Integer) row[0], ((Number) row[1]).longValue());
+	    }
+	    return counts;
+	}
+
 
 	@Override
 	public ProductOrder updateOrderStatus(Integer id, String status) {
 		Optional<ProductOrder> findById = orderRepository.findById(id);
 		if (findById.isPresent()) {
 			ProductOrder productOrder = findById.get();
+			String oldStatus = productOrder.getStatus();
 			productOrder.setStatus(status);
 			ProductOrder updateOrder = orderRepository.save(productOrder);
+			dashboardMetrics.onOrderStatusChanged(updateOrder, oldStatus);
 			return updateOrder;
 		}
 		return null;
 	}
 	@Override
 	public Double getTotalRevenue() {
-	    List<ProductOrder> orders = orderRepository.findAll();
-	    return orders.stream()
-	            .filter(order -> !"Cancelled".equals(order.getStatus()))
-	            .mapToDouble(order -> order.getPrice() * order.getQuantity())
-	            .sum();
+	    return dashboardMetrics.getTotalRevenue();
 	}
 
 	@Override
 	public Double getTodayRevenue() {
-	    LocalDate today = LocalDate.now();
-	    List<ProductOrder> todayOrders = orderRepository.findByOrderDate(today);
-	    return todayOrders.stream()
-	            .filter(order -> !"Cancelled".equals(order.getStatus()))
-	            .mapToDouble(order -> order.getPrice() * order.getQuantity())
-	            .sum();
+	    return dashboardMetrics.getRevenueOn(LocalDate.now());
 	}
 
 	@Override
 	public Integer getTodayOrdersCount() {
-	    LocalDate today = LocalDate.now();
-	    return orderRepository.findByOrderDate(today).size();
+	    return (int) dashboardMetrics.getOrdersOn(LocalDate.now());
 	}
 
 	@Override
 	public Integer getCountOrders() {
-	    return (int) orderRepository.count();
+	    return (int) dashboardMetrics.getTotalOrders();
 	}
 
 	@Override
@@ -212,13 +214,7 @@ public class OrderServiceImpl implements OrderService {
 	    LocalDate endDate = LocalDate.now();
 	    
 	    for (int i = days - 1; i >= 0; i--) {
-	        LocalDate date = endDate.minusDays(i);
-	        List<ProductOrder> dayOrders = orderRepository.findByOrderDate(date);
-	        Double dayRevenue = dayOrders.stream()
-	                .filter(order -> !"Cancelled".equals(order.getStatus()))
-	                .mapToDouble(order -> order.getPrice() * order.getQuantity())
-	                .sum();
-	        revenueData.add(dayRevenue);
+	        revenueData.add(dashboardMetrics.getRevenueOn(endDate.minusDays(i)));
 	    }
 	    return revenueData;
 	}
@@ -242,9 +238,7 @@ public class OrderServiceImpl implements OrderService {
 	    LocalDate endDate = LocalDate.now();
 	    
 	    for (int i = days - 1; i >= 0; i--) {
-	        LocalDate date = endDate.minusDays(i);
-	        List<ProductOrder> dayOrders = orderRepository.findByOrderDate(date);
-	        ordersData.add(dayOrders.size());
+	        ordersData.add((int) dashboardMetrics.getOrdersOn(endDate.minusDays(i)));
 	    }
 	    return ordersData;
 	}
@@ -6,11 +6,15 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -18,9 +22,18 @@ import org.springframework.util.ObjectUtils;
 import org.springframework.web.multipart.MultipartFile;
 
 import com.ecom.model.Product;
+import com.ecom.model.ProductSummary;
 import com.ecom.repository.ProductRepository;
 import com.ecom.service.CartService;
+import com.ecom.service.CatalogCache;
+import com.ecom.service.CatalogFacets;
+import com.ecom.service.CatalogFacets.Facet;
+import com.ecom.service.DashboardMetrics;
+import com.ecom.service.ProductPageCache;
+import com.ecom.service.ProductSearchIndex;
 import com.ecom.service.ProductService;
+import com.ecom.service.SalesTrends;
+import com.ecom.service.SalesTrends.Window;
 import com.ecom.util.BucketType;
 import com.ecom.util.CommonUtil;
 
@@ -29,6 +42,9 @@ import jakarta.transaction.Transactional;
 @Service
 public class ProductServiceImpl implements ProductService {
 
+	/** Products shown in the dashboard's top products chart (last 7 days) */
+	private static final int TOP_PRODUCTS = 5;
+
 	@Autowired
 	private ProductRepository productRepository;
 
@@ -40,10 +56,37 @@ public class ProductServiceImpl implements ProductService {
 	
 	@Autowired
 	FileServiceImpl fileServiceImpl;
+
+	@Autowired
+	private DashboardMetrics dashboardMetrics;
+
+	@Autowired
+	private ProductSearchIndex productSearchIndex;
+
+	@Autowired
+	private CatalogCache catalogCache;
+
+	@Autowired
+	private SalesTrends salesTrends;
+
+	@Autowired
+	private CatalogFacets catalogFacets;
+
+	@Autowired
+	private ProductPageCache productPageCache;
 	
 	@Override
 	public Product saveProduct(Product product) {
-		return productRepository.save(product);
+		boolean isNew = product.getId() == null;
+		Product saveProduct = productRepository.save(product);
+		if (isNew) {
+			dashboardMetrics.onProductAdded();
+		}
+		productSearchIndex.onProductSaved(saveProduct);
+		catalogFacets.onProductSaved(saveProduct);
+		productPageCache.evict(saveProduct.getId());
+		catalogCache.invalidate();
+		return saveProduct;
 	}
 
 	@Override
@@ -52,9 +95,9 @@ public class ProductServiceImpl implements ProductService {
 	}
 
 	@Override
-	public Page<Product> getAllProductsPagination(Integer pageNo, Integer pageSize) {
+	public Page<ProductSummary> getAllProductsPagination(Integer pageNo, Integer pageSize) {
 		Pageable pageable = PageRequest.of(pageNo, pageSize);
-		return productRepository.findAll(pageable);
+		return productRepository.findSummaries(pageable);
 	}
 	@Override
 	public Long getCountActiveProducts() {
@@ -63,14 +106,21 @@ public class ProductServiceImpl implements ProductService {
 
 	@Override
 	public List<Integer> getTopProductsData() {
-	    // Return empty list for now - you can implement product sales statistics later
-	    return new ArrayList<>();
+	    List<Integer> data = new ArrayList<>();
+	    for (Map.Entry<Integer, Long> top : salesTrends.getTopProducts(Window.WEEK, TOP_PRODUCTS)) {
+	        data.add(top.getValue().intValue());
+	    }
+	    return data;
 	}
 
 	@Override
 	public List<String> getTopProductsLabels() {
-	    // Return empty list for now - you can implement product labels later
-	    return new ArrayList<>();
+	    List<String> labels = new ArrayList<>();
+	    for (Map.Entry<Integer, Long> top : salesTrends.getTopProducts(Window.WEEK, TOP_PRODUCTS)) {
+	        ProductSummary product = catalogCache.getSummary(top.getKey());
+	        labels.add(product != null ? product.getTitle() : "#" + top.getKey());
+	    }
+	    return labels;
 	}
 
 	@Override
@@ -86,6 +136,11 @@ public class ProductServiceImpl implements ProductService {
 	            
 	            // Then delete the product
 	            productRepository.deleteById(id);
+	            dashboardMetrics.onProductDeleted();
+	            productSearchIndex.onProductDeleted(id);
+	            catalogFacets.onProductDeleted(id);
+	            productPageCache.evict(id);
+	            catalogCache.invalidate();
 	            return true;
 	        }
 	        return false;
@@ -100,6 +155,32 @@ public class ProductServiceImpl implements ProductService {
 		Product product = productRepository.findById(id).orElse(null);
 		return product;
 	}
+
+	@Override
+	public Product getCatalogProduct(Integer id) {
+		return catalogCache.getProduct(id);
+	}
+
+	@Override
+	public List<ProductSummary> getNewestActiveProducts(int limit) {
+		return catalogCache.getNewestActiveProducts(limit);
+	}
+
+	@Override
+	public List<ProductSummary> getTrendingProducts(int limit) {
+		List<Map.Entry<Integer, Long>> top = salesTrends.getTopProducts(Window.DAY, limit);
+		if (top.isEmpty()) {
+			top = salesTrends.getTopProducts(Window.WEEK, limit);
+		}
+		List<ProductSummary> trending = new ArrayList<>();
+		for (Map.Entry<Integer, Long> entry : top) {
+			ProductSummary product = catalogCache.getSummary(entry.getKey());
+			if (product != null && isActive(product)) {
+				trending.add(product);
+			}
+		}
+		return trending;
+	}
 	@Override
 	public Product updateProduct(Product product, MultipartFile image) {
 
@@ -131,6 +212,10 @@ public class ProductServiceImpl implements ProductService {
 	    dbProduct.setDiscountPrice(discountPrice);
 
 	    Product updateProduct = productRepository.save(dbProduct);
+	    productSearchIndex.onProductSaved(updateProduct);
+	    catalogFacets.onProductSaved(updateProduct);
+	    productPageCache.evict(updateProduct.getId());
+	    catalogCache.invalidate();
 
 	    if (!ObjectUtils.isEmpty(updateProduct)) {
 	        if (!image.isEmpty()) {
@@ -157,52 +242,83 @@ public class ProductServiceImpl implements ProductService {
 	}
 
 	@Override
-	public List<Product> getAllActiveProducts(String category) {
-		List<Product> products = null;
+	public List<ProductSummary> getAllActiveProducts(String category) {
 		if (ObjectUtils.isEmpty(category)) {
-			products = productRepository.findByIsActiveTrue();
-		} else {
-			products = productRepository.findByCategory(category);
+			return catalogCache.getActiveProducts();
 		}
+		return catalogCache.getActiveProducts(category);
+	}
 
-		return products;
+	@Override
+	public CatalogFacets.Result filterActiveProducts(Map<Facet, Set<String>> selection,
+			Collection<Integer> ownedProductIds) {
+		return catalogFacets.query(selection, ownedProductIds);
 	}
 
 	@Override
-	public List<Product> searchProduct(String ch) {
-		return productRepository.findByTitleContainingIgnoreCaseOrCategoryContainingIgnoreCase(ch, ch);
+	public List<ProductSummary> getFilteredActiveProducts(Map<Facet, Set<String>> selection,
+			Collection<Integer> ownedProductIds) {
+		return catalogFacets.matching(selection, ownedProductIds);
 	}
 
 	@Override
-	public Page<Product> searchProductPagination(Integer pageNo, Integer pageSize, String ch) {
-		Pageable pageable = PageRequest.of(pageNo, pageSize);
-		return productRepository.findByTitleContainingIgnoreCaseOrCategoryContainingIgnoreCase(ch, ch, pageable);
+	public List<ProductSummary> getProductsAfter(List<ProductSummary> products, Integer afterId, int limit) {
+		int from = 0;
+		if (afterId != null) {
+			// products are in id order: binary search for the first id above the cursor
+			int lo = 0, hi = products.size();
+			while (lo < hi) {
+				int mid = (lo + hi) >>> 1;
+				if (products.get(mid).getId() <= afterId) {
+					lo = mid + 1;
+				} else {
+					hi = mid;
+				}
+			}
+			from = lo;
+		}
+		return products.subList(from, Math.min(from + limit, products.size()));
 	}
 
 	@Override
-	public Page<Product> getAllActiveProductPagination(Integer pageNo, Integer pageSize, String category) {
+	public Page<ProductSummary> getProductPagination(List<ProductSummary> products, Integer pageNo, Integer pageSize) {
+		return toPage(products, pageNo, pageSize);
+	}
 
-		Pageable pageable = PageRequest.of(pageNo, pageSize);
-		Page<Product> pageProduct = null;
+	@Override
+	public List<ProductSummary> searchProduct(String ch) {
+		return productSearchIndex.search(ch, ProductServiceImpl::isActive);
+	}
 
-		if (ObjectUtils.isEmpty(category)) {
-			pageProduct = productRepository.findByIsActiveTrue(pageable);
-		} else {
-			pageProduct = productRepository.findByCategory(pageable, category);
-		}
-		return pageProduct;
+	@Override
+	public Page<ProductSummary> searchProductPagination(Integer pageNo, Integer pageSize, String ch) {
+		// admin list: inactive products are included
+		return toPage(productSearchIndex.search(ch, product -> true), pageNo, pageSize);
 	}
 
 	@Override
-	public Page<Product> searchActiveProductPagination(Integer pageNo, Integer pageSize, String category, String ch) {
+	public Page<ProductSummary> getAllActiveProductPagination(Integer pageNo, Integer pageSize, String category) {
 
-		Page<Product> pageProduct = null;
-		Pageable pageable = PageRequest.of(pageNo, pageSize);
+		return toPage(getAllActiveProducts(category), pageNo, pageSize);
+	}
 
-		pageProduct = productRepository.findByisActiveTrueAndTitleContainingIgnoreCaseOrCategoryContainingIgnoreCase(ch,
-				ch, pageable);
+	@Override
+	public Page<ProductSummary> searchActiveProductPagination(Integer pageNo, Integer pageSize, String category, String ch) {
 
-		return pageProduct;
+		List<ProductSummary> results = productSearchIndex.search(ch, product -> isActive(product)
+				&& (ObjectUtils.isEmpty(category) || category.equals(product.getCategory())));
+		return toPage(results, pageNo, pageSize);
+	}
+
+	private static boolean isActive(ProductSummary product) {
+		return Boolean.TRUE.equals(product.getIsActive());
+	}
+
+	private static Page<ProductSummary> toPage(List<ProductSummary> results, Integer pageNo, Integer pageSize) {
+		Pageable pageable = PageRequest.of(pageNo, pageSize);
+		int from = (int) Math.min(pageable.getOffset(), results.size());
+		int to = Math.min(from + pageSize, results.size());
+		return new PageImpl<>(results.subList(from, to), pageable, results.size());
 	}
 
 	@Override
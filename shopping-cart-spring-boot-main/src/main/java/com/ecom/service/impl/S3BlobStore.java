@@ -0,0 +1,93 @@
+package com.ecom.service.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.AmazonS3Exception;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.amazonaws.services.s3.model.S3Object;
+import com.ecom.service.BlobStore;
+
+/**
+ * BlobStore บน S3 (หรือ storage ที่ใช้ S3 API ได้) ผ่าน AmazonS3 bean ของ AwsConfig
+ *
+ * key ของ blob คำนวณจาก hash จึงต้องอ่าน upload ให้จบก่อนรู้ชื่อ object:
+ * stream ลงไฟล์ชั่วคราวพร้อม hash (อ่าน upload รอบเดียว) แล้วส่งไฟล์นั้นขึ้น S3 ถ้ายังไม่มี
+ */
+@Service
+@ConditionalOnProperty(name = "wallet.slip.store.type", havingValue = "s3")
+public class S3BlobStore implements BlobStore {
+
+	@Autowired
+	private AmazonS3 amazonS3;
+
+	@Value("${wallet.slip.store.s3.bucket}")
+	private String bucket;
+
+	@Value("${wallet.slip.store.s3.prefix:slips/}")
+	private String prefix;
+
+	@Override
+	public StoredBlob put(InputStream content) throws IOException {
+		Path temp = Files.createTempFile("slip-", ".part");
+		try {
+			StoredBlob blob = BlobStore.spool(content, temp);
+			String objectKey = objectKey(blob.key());
+			if (amazonS3.doesObjectExist(bucket, objectKey)) {
+				return blob.asDuplicate();
+			}
+			ObjectMetadata metadata = new ObjectMetadata();
+			metadata.setContentLength(blob.size());
+			metadata.setContentType(BlobStore.contentTypeOf(blob.key()));
+			amazonS3.putObject(new PutObjectRequest(bucket, objectKey, temp.toFile()).withMetadata(metadata));
+			return blob;
+		} finally {
+			Files.deleteIfExists(temp);
+		}
+	}
+
+	/**
+	 * โหลดทั้ง object เข้า memory ครั้งเดียว (สลิปมีขนาดเล็ก) ผู้เรียกอ่านซ้ำได้โดยไม่ต้องดึงใหม่
+	 */
+	@Override
+	public Resource open(String key) throws IOException {
+		try (S3Object object = amazonS3.getObject(bucket, objectKey(key))) {
+			byte[] bytes = object.getObjectContent().readAllBytes();
+			return new ByteArrayResource(bytes) {
+				@Override
+				public String getFilename() {
+					return key;
+				}
+			};
+		} catch (AmazonS3Exception e) {
+			if (e.getStatusCode() == 404) {
+				throw new NoSuchFileException(key);
+			}
+			throw e;
+		}
+	}
+
+	@Override
+	public void delete(String key) {
+		amazonS3.deleteObject(bucket, objectKey(key));
+	}
+
+	private String objectKey(String key) {
+		if (!BlobStore.isKey(key)) {
+			throw new IllegalArgumentException("Invalid blob key: " + key);
+		}
+		return prefix + BlobStore.shardedPath(key);
+	}
+}
@@ -5,7 +5,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
-import java.util.Calendar;
+import java.time.LocalDate;
 import java.util.Date;
 import java.util.List;
 import java.util.Optional;
@@ -21,6 +21,8 @@ import org.springframework.web.multipart.MultipartFile;
 
 import com.ecom.model.UserDtls;
 import com.ecom.repository.UserRepository;
+import com.ecom.service.DashboardMetrics;
+import com.ecom.service.UserCache;
 import com.ecom.service.UserService;
 import com.ecom.util.AppConstant;
 import com.ecom.util.BucketType;
@@ -43,6 +45,12 @@ private CommonUtil commonUtil;
 @Autowired
 private FileServiceImpl fileServiceImpl;
 
+	@Autowired
+	private DashboardMetrics dashboardMetrics;
+
+	@Autowired
+	private UserCache userCache;
+
 	@Override
 	public Integer getUsersCount() {
 	    return (int) userRepository.count();
@@ -50,19 +58,7 @@ private FileServiceImpl fileServiceImpl;
 
 	@Override
 	public Integer getNewUsersToday() {
-	    Date today = new Date();
-	    Calendar cal = Calendar.getInstance();
-	    cal.setTime(today);
-	    cal.set(Calendar.HOUR_OF_DAY, 0);
-	    cal.set(Calendar.MINUTE, 0);
-	    cal.set(Calendar.SECOND, 0);
-	    cal.set(Calendar.MILLISECOND, 0);
-	    Date startOfDay = cal.getTime();
-	    
-	    cal.add(Calendar.DAY_OF_MONTH, 1);
-	    Date startOfNextDay = cal.getTime();
-	    
-	    return userRepository.countByCreatedDateBetween(startOfDay, startOfNextDay);
+	    return (int) dashboardMetrics.getNewUsersOn(LocalDate.now());
 	}
 
 	@Override
@@ -86,6 +82,7 @@ private FileServiceImpl fileServiceImpl;
 	    String encodePassword = passwordEncoder.encode(user.getPassword());
 	    user.setPassword(encodePassword);
 	    UserDtls saveUser = userRepository.save(user);
+	    dashboardMetrics.onUserRegistered(saveUser);
 	    return saveUser;
 	}
 	@Override
@@ -113,6 +110,7 @@ private FileServiceImpl fileServiceImpl;
 			UserDtls userDtls = findByuser.get();
 			userDtls.setIsEnable(status);
 			userRepository.save(userDtls);
+			userCache.invalidate(id);
 			return true;
 		}
 
@@ -124,6 +122,7 @@ private FileServiceImpl fileServiceImpl;
 		int attempt = user.getFailedAttempt() + 1;
 		user.setFailedAttempt(attempt);
 		userRepository.save(user);
+		userCache.invalidate(user.getId());
 	}
 
 	@Override
@@ -131,6 +130,7 @@ private FileServiceImpl fileServiceImpl;
 		user.setAccountNonLocked(false);
 		user.setLockTime(new Date());
 		userRepository.save(user);
+		userCache.invalidate(user.getId());
 	}
 
 	@Override
@@ -146,6 +146,7 @@ private FileServiceImpl fileServiceImpl;
 			user.setFailedAttempt(0);
 			user.setLockTime(null);
 			userRepository.save(user);
+			userCache.invalidate(user.getId());
 			return true;
 		}
 
@@ -162,6 +163,7 @@ private FileServiceImpl fileServiceImpl;
 		UserDtls findByEmail = userRepository.findByEmail(email);
 		findByEmail.setResetToken(resetToken);
 		userRepository.save(findByEmail);
+		userCache.invalidate(findByEmail.getId());
 	}
 
 	@Override
@@ -171,6 +173,7 @@ private FileServiceImpl fileServiceImpl;
 
 	@Override
 	public UserDtls updateUser(UserDtls user) {
+		userCache.invalidate(user.getId());
 		return userRepository.save(user);
 	}
 
@@ -190,6 +193,7 @@ private FileServiceImpl fileServiceImpl;
 	        dbUser.setState(user.getState());
 	        dbUser.setPincode(user.getPincode());
 	        dbUser = userRepository.save(dbUser);
+	        userCache.invalidate(dbUser.getId());
 	    }
 
 	    try {
@@ -227,6 +231,7 @@ private FileServiceImpl fileServiceImpl;
 	    String encodePassword = passwordEncoder.encode(user.getPassword());
 	    user.setPassword(encodePassword);
 	    UserDtls saveUser = userRepository.save(user);
+	    dashboardMetrics.onUserRegistered(saveUser);
 	    return saveUser;
 	}
 
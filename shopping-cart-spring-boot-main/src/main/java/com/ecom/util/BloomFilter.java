@@ -0,0 +1,66 @@
+package com.ecom.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloom filter ขนาดคงที่ (thread-safe, ไม่มี false negative)
+ *
+ * รับ key เป็น digest ที่สุ่มดีอยู่แล้ว (เช่น SHA-256) จึงใช้ 16 byte แรกเป็น hash สองตัว
+ * แล้วสร้าง k ตำแหน่งด้วย double hashing (h1 + i * h2)
+ */
+public class BloomFilter {
+
+	private final AtomicLongArray bits;
+	private final long bitCount;
+	private final int hashCount;
+
+	/**
+	 * @param expectedItems จำนวน key ที่คาดว่าจะใส่
+	 * @param falsePositiveRate อัตรา false positive ที่ยอมรับได้ (เช่น 0.01)
+	 */
+	public BloomFilter(long expectedItems, double falsePositiveRate) {
+		long n = Math.max(1, expectedItems);
+		long m = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+		int words = (int) Math.min(Integer.MAX_VALUE - 8, (m + 63) / 64);
+		this.bits = new AtomicLongArray(words);
+		this.bitCount = (long) words * 64;
+		this.hashCount = Math.max(1, (int) Math.round((double) bitCount / n * Math.log(2)));
+	}
+
+	public void put(byte[] digest) {
+		long h1 = readLong(digest, 0);
+		long h2 = readLong(digest, 8) | 1; // ให้เป็นเลขคี่ ตำแหน่งจะไม่ซ้ำกันทั้งหมด
+		for (int i = 0; i < hashCount; i++) {
+			long index = Math.floorMod(h1 + i * h2, bitCount);
+			int word = (int) (index >>> 6);
+			long mask = 1L << (index & 63);
+			long current;
+			do {
+				current = bits.get(word);
+				if ((current & mask) != 0) {
+					break;
+				}
+			} while (!bits.compareAndSet(word, current, current | mask));
+		}
+	}
+
+	public boolean mightContain(byte[] digest) {
+		long h1 = readLong(digest, 0);
+		long h2 = readLong(digest, 8) | 1;
+		for (int i = 0; i < hashCount; i++) {
+			long index = Math.floorMod(h1 + i * h2, bitCount);
+			if ((bits.get((int) (index >>> 6)) & (1L << (index & 63))) == 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static long readLong(byte[] bytes, int offset) {
+		long value = 0;
+		for (int i = 0; i < 8; i++) {
+			value = (value << 8) | (bytes[offset + i] & 0xFF);
+		}
+		return value;
+	}
+}
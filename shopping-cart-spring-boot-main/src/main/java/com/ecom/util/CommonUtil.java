@@ -1,32 +1,30 @@
 package com.ecom.util;
 
-import java.io.UnsupportedEncodingException;
 import java.security.Principal;
+import java.util.HashMap;
+import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Component;
 import org.springframework.web.multipart.MultipartFile;
 
 import com.ecom.model.ProductOrder;
 import com.ecom.model.UserDtls;
+import com.ecom.service.CurrentUserContext;
 import com.ecom.service.FileService;
-import com.ecom.service.UserService;
+import com.ecom.service.MailService;
 
-import jakarta.mail.MessagingException;
-import jakarta.mail.internet.MimeMessage;
 import jakarta.servlet.http.HttpServletRequest;
 
 @Component
 public class CommonUtil {
 
 	@Autowired
-	private JavaMailSender mailSender;
+	private MailService mailService;
 	
 	@Autowired
-	private UserService userService;
+	private CurrentUserContext currentUser;
 	
 	@Value("${aws.s3.bucket.category}")
 	private String categoryBucket;
@@ -43,44 +41,19 @@ public class CommonUtil {
 	@Value("${aws.s3.bucket.petpost}")
 	private String petpostBucket;
 
-	public Boolean sendMail(String url, String reciepentEmail) throws UnsupportedEncodingException, MessagingException {
-
-	    MimeMessage message = mailSender.createMimeMessage();
-	    MimeMessageHelper helper = new MimeMessageHelper(message);
-
-	    helper.setFrom("daspabitra55@gmail.com", "Shopping Cart");
-	    helper.setTo(reciepentEmail);
-
-	    String content = "<p>Hello,</p>" 
-	            + "<p>You have requested to reset your password.</p>"
-	            + "<p>Click the link below to change your password:</p>" 
-	            + "<p><a href=\"" + url + "\">Change my password</a></p>";
-//	            + "<br>"
-//	            + "<p>If the above link doesn't work, copy and paste this URL into your browser:</p>"
-//	            + "<p>" + url + "</p>";
-	    
-	    helper.setSubject("Password Reset");
-	    helper.setText(content, true); // true enables HTML content
-	    mailSender.send(message);
-	    return true;
+	/**
+	 * Queues the password reset mail.
+	 *
+	 * @return true once the message is queued, not when it is delivered; false only when the mail
+	 *         queue is full
+	 */
+	public Boolean sendMail(String url, String reciepentEmail) {
+
+		Map<String, Object> variables = new HashMap<>();
+		variables.put("url", url);
+		return !mailService.send(reciepentEmail, "Password Reset", "mail/password_reset", variables)
+				.isCompletedExceptionally();
 	}
-	
-	// เพิ่ม method ใหม่สำหรับส่ง email แจ้งเตือน
-			public Boolean sendNotificationEmail(String recipientEmail, String subject, String content) 
-			        throws UnsupportedEncodingException, MessagingException {
-			    
-			    MimeMessage message = mailSender.createMimeMessage();
-			    MimeMessageHelper helper = new MimeMessageHelper(message);
-
-			    helper.setFrom("seven1aaplus@gmail.com", "Pet Community");
-			    helper.setTo(recipientEmail);
-			    helper.setSubject(subject);
-			    helper.setText(content, true);
-			    
-			    mailSender.send(message);
-			    return true;
-			}
-
 
 	public static String generateUrl(HttpServletRequest request) {
 
@@ -90,44 +63,23 @@ public class CommonUtil {
 		return siteUrl.replace(request.getServletPath(), "");
 	}
 	
-	String msg=null;;
-	
 	public Boolean sendMailForProductOrder(ProductOrder order,String status) throws Exception
 	{
-		
-		msg="<p>Hello [[name]],</p>"
-				+ "<p>Thank you order <b>[[orderStatus]]</b>.</p>"
-				+ "<p><b>Product Details:</b></p>"
-				+ "<p>Name : [[productName]]</p>"
-				+ "<p>Category : [[category]]</p>"
-				+ "<p>Quantity : [[quantity]]</p>"
-				+ "<p>Price : [[price]]</p>"
-				+ "<p>Payment Type : [[paymentType]]</p>";
-		
-		MimeMessage message = mailSender.createMimeMessage();
-		MimeMessageHelper helper = new MimeMessageHelper(message);
-
-		helper.setFrom("seven1aaplus@gmail.com", "Shooping Cart");
-		helper.setTo(order.getOrderAddress().getEmail());
-
-		msg=msg.replace("[[name]]",order.getOrderAddress().getFirstName());
-		msg=msg.replace("[[orderStatus]]",status);
-		msg=msg.replace("[[productName]]", order.getProduct().getTitle());
-		msg=msg.replace("[[category]]", order.getProduct().getCategory());
-		msg=msg.replace("[[quantity]]", order.getQuantity().toString());
-		msg=msg.replace("[[price]]", order.getPrice().toString());
-		msg=msg.replace("[[paymentType]]", order.getPaymentType());
-		
-		helper.setSubject("Product Order Status");
-		helper.setText(msg, true);
-		mailSender.send(message);
-		return true;
+		Map<String, Object> variables = new HashMap<>();
+		variables.put("name", order.getOrderAddress().getFirstName());
+		variables.put("orderStatus", status);
+		variables.put("productName", order.getProduct().getTitle());
+		variables.put("category", order.getProduct().getCategory());
+		variables.put("quantity", order.getQuantity());
+		variables.put("price", order.getPrice());
+		variables.put("paymentType", order.getPaymentType());
+
+		return !mailService.send(order.getOrderAddress().getEmail(), "Product Order Status", "mail/order_status", variables)
+				.isCompletedExceptionally();
 	}
 	
 	public UserDtls getLoggedInUserDetails(Principal p) {
-		String email = p.getName();
-		UserDtls userDtls = userService.getUserByEmail(email);
-		return userDtls;
+		return currentUser.getUser(p);
 	}
 	
 	public String getImageUrl(MultipartFile file, Integer bucketType) {
@@ -0,0 +1,49 @@
+package com.ecom.util;
+
+import java.util.function.Consumer;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Ties in-memory side effects (caches, counters, the wallet ledger) to the outcome of the
+ * current transaction, so they never show a change that is later rolled back.
+ */
+public final class TransactionHooks {
+
+	private TransactionHooks() {
+	}
+
+	/**
+	 * Runs the action once the current transaction commits, or right away when there is none.
+	 */
+	public static void afterCommit(Runnable action) {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					action.run();
+				}
+			});
+		} else {
+			action.run();
+		}
+	}
+
+	/**
+	 * Runs the action when the current transaction ends, with true if it committed. Without a
+	 * transaction it runs right away as committed.
+	 */
+	public static void afterCompletion(Consumer<Boolean> action) {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCompletion(int status) {
+					action.accept(status == STATUS_COMMITTED);
+				}
+			});
+		} else {
+			action.accept(true);
+		}
+	}
+}
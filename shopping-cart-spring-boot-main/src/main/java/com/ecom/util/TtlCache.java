@@ -0,0 +1,102 @@
+package com.ecom.util;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Small per-key cache whose entries expire a fixed time after they were loaded.
+ *
+ * Loads happen outside any lock, so two threads missing the same key may both load it; the last
+ * one wins. A loader result of null is not cached. When the cache reaches maxEntries, expired
+ * entries are dropped, and if that is not enough, everything is.
+ */
+public class TtlCache<K, V> {
+
+	private final int maxEntries;
+	private final LongSupplier ttlMillis;
+	private final Map<K, Entry<V>> entries = new ConcurrentHashMap<>();
+
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+
+	/**
+	 * @param ttlMillis read on every load, so it may come from a field injected after construction
+	 */
+	public TtlCache(int maxEntries, LongSupplier ttlMillis) {
+		this.maxEntries = maxEntries;
+		this.ttlMillis = ttlMillis;
+	}
+
+	public V get(K key, Function<? super K, ? extends V> loader) {
+		long now = System.currentTimeMillis();
+		Entry<V> entry = entries.get(key);
+		if (entry != null && entry.expiresAt > now) {
+			hits.incrementAndGet();
+			return entry.value;
+		}
+		misses.incrementAndGet();
+		V value = loader.apply(key);
+		if (value == null) {
+			entries.remove(key);
+			return null;
+		}
+		put(key, value);
+		return value;
+	}
+
+	public void put(K key, V value) {
+		long now = System.currentTimeMillis();
+		if (entries.size() >= maxEntries) {
+			entries.values().removeIf(e -> e.expiresAt <= now);
+			if (entries.size() >= maxEntries) {
+				entries.clear();
+			}
+		}
+		entries.put(key, new Entry<>(value, now + ttlMillis.getAsLong()));
+	}
+
+	/**
+	 * Replaces a cached value in place, keeping its expiry.
+	 *
+	 * @return the new value, or null if the key is not cached
+	 */
+	public V update(K key, UnaryOperator<V> change) {
+		Entry<V> entry = entries.computeIfPresent(key, (k, current) -> new Entry<>(change.apply(current.value), current.expiresAt));
+		return entry != null ? entry.value : null;
+	}
+
+	/**
+	 * Drops the key now and once more after the current transaction commits, so a reader that
+	 * loaded the old value in between cannot put it back.
+	 */
+	public void invalidate(K key) {
+		entries.remove(key);
+		TransactionHooks.afterCommit(() -> entries.remove(key));
+	}
+
+	public long hits() {
+		return hits.get();
+	}
+
+	public long misses() {
+		return misses.get();
+	}
+
+	public int size() {
+		return entries.size();
+	}
+
+	private static final class Entry<V> {
+		final V value;
+		final long expiresAt;
+
+		Entry(V value, long expiresAt) {
+			this.value = value;
+			this.expiresAt = expiresAt;
+		}
+	}
+}
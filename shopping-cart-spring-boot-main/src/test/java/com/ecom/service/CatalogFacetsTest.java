@@ -0,0 +1,160 @@
+package com.ecom.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.ecom.model.Product;
+import com.ecom.model.ProductSummary;
+import com.ecom.repository.ProductRepository;
+import com.ecom.service.CatalogFacets.Facet;
+
+class CatalogFacetsTest {
+
+	private final List<ProductSummary> summaries = new ArrayList<>();
+	private final List<Object[]> fileSizes = new ArrayList<>();
+	private CatalogFacets facets;
+
+	@BeforeEach
+	void setUp() {
+		ProductRepository repository = mock(ProductRepository.class);
+		when(repository.findAllSummaries()).thenReturn(summaries);
+		when(repository.findFileSizes()).thenReturn(fileSizes);
+		facets = new CatalogFacets();
+		ReflectionTestUtils.setField(facets, "productRepository", repository);
+	}
+
+	@Test
+	void fileSizeBandParsesTheAdminFormText() {
+		assertEquals("1-10gb", CatalogFacets.fileSizeBand("1,5 GB"));
+		assertEquals("1-10gb", CatalogFacets.fileSizeBand("1.25GB"));
+		assertEquals("under-1gb", CatalogFacets.fileSizeBand("700 MB"));
+		assertEquals("under-1gb", CatalogFacets.fileSizeBand("512 kb"));
+		assertEquals("50gb-plus", CatalogFacets.fileSizeBand("Approx. 85 GB"));
+		assertEquals("50gb-plus", CatalogFacets.fileSizeBand("1 TB"));
+		assertEquals("unknown", CatalogFacets.fileSizeBand("about two gigs"));
+		assertEquals("unknown", CatalogFacets.fileSizeBand(null));
+	}
+
+	@Test
+	void facetCountsIgnoreTheirOwnSelection() {
+		indexed(1, "Action", 50.0, 0, "2 GB");
+		indexed(2, "Action", 500.0, 30, "20 GB");
+		indexed(3, "Puzzle", 50.0, 0, "500 MB");
+		indexed(4, "Racing", 1500.0, 60, "60 GB");
+		facets.rebuild();
+
+		CatalogFacets.Result result = facets.query(selection(Facet.CATEGORY, "Action"), null);
+
+		assertEquals(List.of(1, 2), ids(result.getProducts()));
+		// the other categories stay countable while Action is selected
+		assertEquals(Map.of("Action", 2, "Puzzle", 1, "Racing", 1), result.getCounts().get(Facet.CATEGORY));
+		// other facets are narrowed by the category selection
+		assertEquals(1, result.getCounts().get(Facet.PRICE).get("under-100"));
+		assertEquals(1, result.getCounts().get(Facet.PRICE).get("300-1000"));
+		assertEquals(null, result.getCounts().get(Facet.PRICE).get("1000-plus"));
+		assertEquals(null, result.getCounts().get(Facet.OWNED)); // guests have no OWNED facet
+	}
+
+	@Test
+	void selectedValuesOrWithinAFacetAndAndAcrossFacets() {
+		indexed(1, "Action", 50.0, 0, "2 GB");
+		indexed(2, "Puzzle", 50.0, 0, "500 MB");
+		indexed(3, "Racing", 50.0, 0, "60 GB");
+		indexed(4, "Action", 500.0, 0, "2 GB");
+		facets.rebuild();
+
+		Map<Facet, Set<String>> selection = selection(Facet.CATEGORY, "Action", "Racing");
+		selection.put(Facet.PRICE, Set.of("under-100"));
+
+		assertEquals(List.of(1, 3), ids(facets.matching(selection, null)));
+		assertEquals(List.of(2, 4), ids(facets.matching(selection(Facet.OWNED, "not-owned"), List.of(1, 3))));
+	}
+
+	@Test
+	void deletedSlotIsReusedByAProductThatFitsThere() {
+		indexed(1, "Action", 50.0, 0, null);
+		indexed(2, "Puzzle", 50.0, 0, null);
+		indexed(3, "Racing", 50.0, 0, null);
+		facets.rebuild();
+
+		facets.onProductDeleted(2); // no transaction: applied right away
+		assertEquals(List.of(1, 3), ids(facets.matching(Map.of(), null)));
+		assertEquals(Map.of("Action", 1, "Racing", 1), facets.query(Map.of(), null).getCounts().get(Facet.CATEGORY));
+
+		facets.onProductSaved(product(2, "Strategy"));
+		facets.onProductSaved(product(5, "Puzzle"));
+
+		assertEquals(4, slots().size()); // 2 took its old slot back, 5 was appended
+		assertEquals(List.of(1, 2, 3, 5), ids(facets.matching(Map.of(), null)));
+		assertEquals(List.of(2), ids(facets.matching(selection(Facet.CATEGORY, "Strategy"), null)));
+	}
+
+	@Test
+	void resultsStayInIdOrderWhenAProductCannotReuseASlot() {
+		indexed(1, "Action", 50.0, 0, null);
+		indexed(3, "Action", 50.0, 0, null);
+		facets.rebuild();
+
+		facets.onProductSaved(product(2, "Action")); // no free slot between 1 and 3: appended after 3
+
+		assertEquals(List.of(1, 2, 3), ids(facets.matching(selection(Facet.CATEGORY, "Action"), null)));
+		assertEquals(false, ReflectionTestUtils.getField(facets, "slotsInIdOrder"));
+
+		facets.rebuild(); // repository still lists 1 and 3 only
+		assertEquals(true, ReflectionTestUtils.getField(facets, "slotsInIdOrder"));
+	}
+
+	@Test
+	void inactiveProductsAreNotIndexed() {
+		indexed(1, "Action", 50.0, 0, null);
+		facets.rebuild();
+
+		Product hidden = product(1, "Action");
+		hidden.setIsActive(false);
+		facets.onProductSaved(hidden);
+
+		assertEquals(List.of(), facets.matching(Map.of(), null));
+	}
+
+	private void indexed(int id, String category, double price, int discount, String fileSize) {
+		summaries.add(new ProductSummary(id, "Game " + id, category, price, discount, price * (100 - discount) / 100,
+				null, true));
+		fileSizes.add(new Object[] { id, fileSize });
+	}
+
+	private static Product product(int id, String category) {
+		Product product = new Product();
+		product.setId(id);
+		product.setTitle("Game " + id);
+		product.setCategory(category);
+		product.setPrice(50.0);
+		product.setDiscountPrice(50.0);
+		product.setIsActive(true);
+		return product;
+	}
+
+	private static Map<Facet, Set<String>> selection(Facet facet, String... values) {
+		Map<Facet, Set<String>> selection = new EnumMap<>(Facet.class);
+		selection.put(facet, Set.of(values));
+		return selection;
+	}
+
+	private List<?> slots() {
+		return (List<?>) ReflectionTestUtils.getField(facets, "slots");
+	}
+
+	private static List<Integer> ids(List<ProductSummary> products) {
+		return products.stream().map(ProductSummary::getId).toList();
+	}
+}
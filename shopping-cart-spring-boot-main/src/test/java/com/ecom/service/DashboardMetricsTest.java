@@ -0,0 +1,86 @@
+package com.ecom.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.ecom.model.UserDtls;
+import com.ecom.repository.ProductOrderRepository;
+import com.ecom.repository.ProductRepository;
+import com.ecom.repository.TransactionRepository;
+import com.ecom.repository.UserRepository;
+
+/**
+ * Events that commit while rebuild() is running its GROUP BY queries must survive the swap to
+ * the rebuilt snapshot, and events already in the snapshot must not be counted twice.
+ */
+class DashboardMetricsTest {
+
+	private DashboardMetrics metrics;
+	private ProductRepository productRepository;
+	private UserRepository userRepository;
+
+	@BeforeEach
+	void setUp() {
+		productRepository = mock(ProductRepository.class);
+		userRepository = mock(UserRepository.class);
+		metrics = new DashboardMetrics();
+		ReflectionTestUtils.setField(metrics, "orderRepository", mock(ProductOrderRepository.class));
+		ReflectionTestUtils.setField(metrics, "userRepository", userRepository);
+		ReflectionTestUtils.setField(metrics, "productRepository", productRepository);
+		ReflectionTestUtils.setField(metrics, "transactionRepository", mock(TransactionRepository.class));
+		ReflectionTestUtils.setField(metrics, "transactionManager", mock(PlatformTransactionManager.class));
+	}
+
+	@Test
+	void eventsCommittedDuringRebuildAreKept() {
+		when(productRepository.count()).thenReturn(10L);
+		when(userRepository.countByRole()).thenAnswer(invocation -> {
+			// commits after the snapshot was opened: not part of the query results
+			metrics.onProductAdded();
+			metrics.onUserRegistered(user("ROLE_USER"));
+			return List.<Object[]>of(new Object[] { "ROLE_USER", 5L });
+		});
+
+		metrics.rebuild();
+
+		assertEquals(11, metrics.getProductCount());
+		assertEquals(6, metrics.getUserCount());
+	}
+
+	@Test
+	void eventsCommittedBeforeTheSnapshotAreNotCountedTwice() {
+		when(productRepository.count()).thenAnswer(invocation -> {
+			// commits before the first read opened the snapshot: already in its result
+			metrics.onProductAdded();
+			return 10L;
+		});
+
+		metrics.rebuild();
+
+		assertEquals(10, metrics.getProductCount());
+	}
+
+	@Test
+	void eventsAfterRebuildGoToTheRebuiltSnapshotOnly() {
+		when(productRepository.count()).thenReturn(10L);
+		metrics.rebuild();
+
+		metrics.onProductAdded();
+
+		assertEquals(11, metrics.getProductCount());
+	}
+
+	private static UserDtls user(String role) {
+		UserDtls user = new UserDtls();
+		user.setRole(role);
+		return user;
+	}
+}
@@ -0,0 +1,208 @@
+package com.ecom.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.ecom.service.EasySlipClient.ApiResponse;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * EasySlipClient against a stub HTTP server on localhost: decoding, read timeout, bulkhead and
+ * circuit breaker.
+ */
+class EasySlipClientTest {
+
+	private static final String OK_BODY = "{\"status\":200,\"data\":{\"transRef\":\"TX123\",\"amount\":{\"amount\":150.5}}}";
+
+	private HttpServer server;
+	private ExecutorService serverThreads;
+	private volatile Handler handler;
+	private final AtomicInteger requests = new AtomicInteger();
+
+	@FunctionalInterface
+	interface Handler {
+		void handle(HttpExchange exchange) throws Exception;
+	}
+
+	@BeforeEach
+	void startServer() throws IOException {
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/verify", exchange -> {
+			requests.incrementAndGet();
+			exchange.getRequestBody().readAllBytes();
+			try {
+				handler.handle(exchange);
+			} catch (Exception e) {
+				// client gave up (timeout) — nothing to answer
+			} finally {
+				exchange.close();
+			}
+		});
+		serverThreads = Executors.newCachedThreadPool();
+		server.setExecutor(serverThreads);
+		server.start();
+		handler = exchange -> respond(exchange, 200, OK_BODY);
+	}
+
+	@AfterEach
+	void stopServer() {
+		server.stop(0);
+		serverThreads.shutdownNow();
+	}
+
+	@Test
+	void decodesTheSlip() {
+		EasySlipClient client = client(10_000, 8, 500, 5, 30_000);
+
+		ApiResponse response = client.verify(slip());
+
+		assertEquals(200, response.status());
+		assertEquals("TX123", response.data().transRef());
+		assertEquals(150.5, response.data().amount().amount());
+	}
+
+	@Test
+	void clientErrorIsReturnedAndDoesNotTripTheBreaker() {
+		handler = exchange -> respond(exchange, 400, "{\"status\":400,\"message\":\"invalid_image\"}");
+		EasySlipClient client = client(10_000, 8, 500, 1, 30_000);
+
+		ApiResponse first = client.verify(slip());
+		ApiResponse second = client.verify(slip());
+
+		assertEquals(400, first.status());
+		assertEquals("invalid_image", first.message());
+		assertEquals(400, second.status());
+		assertEquals(0L, client.getMetrics().get("failures"));
+		assertEquals("CLOSED", client.getMetrics().get("breakerState"));
+	}
+
+	@Test
+	void slowServerTimesOut() {
+		CountDownLatch release = new CountDownLatch(1);
+		handler = exchange -> {
+			release.await(5, TimeUnit.SECONDS);
+			respond(exchange, 200, OK_BODY);
+		};
+		EasySlipClient client = client(200, 8, 500, 5, 30_000);
+
+		long start = System.currentTimeMillis();
+		ApiResponse response = client.verify(slip());
+		long elapsed = System.currentTimeMillis() - start;
+		release.countDown();
+
+		assertEquals(0, response.status());
+		assertTrue(elapsed < 3_000, "timed out after " + elapsed + " ms");
+		assertEquals(1L, client.getMetrics().get("failures"));
+	}
+
+	@Test
+	void bulkheadRejectsWhenAllSlotsAreBusy() throws Exception {
+		CountDownLatch inServer = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		handler = exchange -> {
+			inServer.countDown();
+			release.await(5, TimeUnit.SECONDS);
+			respond(exchange, 200, OK_BODY);
+		};
+		EasySlipClient client = client(10_000, 1, 50, 5, 30_000);
+
+		CompletableFuture<ApiResponse> busy = CompletableFuture.supplyAsync(() -> client.verify(slip()));
+		assertTrue(inServer.await(5, TimeUnit.SECONDS));
+
+		ApiResponse rejected = client.verify(slip());
+		release.countDown();
+
+		assertEquals(0, rejected.status());
+		assertEquals(1L, client.getMetrics().get("bulkheadRejected"));
+		assertEquals(200, busy.get(5, TimeUnit.SECONDS).status());
+		assertEquals(1, requests.get());
+	}
+
+	@Test
+	void breakerOpensAfterConsecutiveFailuresAndClosesAfterATrialSuccess() throws Exception {
+		handler = exchange -> respond(exchange, 503, "unavailable");
+		EasySlipClient client = client(10_000, 8, 500, 2, 300);
+
+		client.verify(slip());
+		client.verify(slip());
+		assertEquals("OPEN", client.getMetrics().get("breakerState"));
+
+		ApiResponse shortCircuited = client.verify(slip());
+		assertEquals(0, shortCircuited.status());
+		assertEquals(1L, client.getMetrics().get("breakerRejected"));
+		assertEquals(2, requests.get()); // not sent while open
+
+		Thread.sleep(400);
+		handler = exchange -> respond(exchange, 200, OK_BODY);
+
+		assertEquals(200, client.verify(slip()).status());
+		assertEquals("CLOSED", client.getMetrics().get("breakerState"));
+		assertEquals(3, requests.get());
+	}
+
+	@Test
+	void failedTrialReopensTheBreaker() throws Exception {
+		handler = exchange -> respond(exchange, 500, "boom");
+		EasySlipClient client = client(10_000, 8, 500, 1, 300);
+
+		client.verify(slip());
+		Thread.sleep(400);
+		client.verify(slip()); // HALF_OPEN trial
+
+		assertEquals("OPEN", client.getMetrics().get("breakerState"));
+		assertEquals(0, client.verify(slip()).status());
+		assertEquals(2, requests.get());
+	}
+
+	private EasySlipClient client(long readTimeoutMs, int maxConcurrent, long bulkheadWaitMs, int failureThreshold,
+			long openMs) {
+		EasySlipClient client = new EasySlipClient();
+		ReflectionTestUtils.setField(client, "apiUrl", "http://127.0.0.1:" + server.getAddress().getPort() + "/verify");
+		ReflectionTestUtils.setField(client, "apiKey", "test-key");
+		ReflectionTestUtils.setField(client, "connectTimeoutMs", 1_000L);
+		ReflectionTestUtils.setField(client, "readTimeoutMs", readTimeoutMs);
+		ReflectionTestUtils.setField(client, "maxConcurrent", maxConcurrent);
+		ReflectionTestUtils.setField(client, "bulkheadWaitMs", bulkheadWaitMs);
+		ReflectionTestUtils.setField(client, "failureThreshold", failureThreshold);
+		ReflectionTestUtils.setField(client, "openMs", openMs);
+		client.init();
+		return client;
+	}
+
+	static Resource slip() {
+		return new ByteArrayResource(new byte[] { (byte) 0xFF, (byte) 0xD8, (byte) 0xFF, (byte) 0xE0 }) {
+			@Override
+			public String getFilename() {
+				return "slip.jpg";
+			}
+		};
+	}
+
+	static void respond(HttpExchange exchange, int status, String body) throws IOException {
+		byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", "application/json");
+		exchange.sendResponseHeaders(status, bytes.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(bytes);
+		}
+	}
+}
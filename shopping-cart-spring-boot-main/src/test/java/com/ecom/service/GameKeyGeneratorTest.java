@@ -0,0 +1,158 @@
+package com.ecom.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.ecom.model.SiteSetting;
+import com.ecom.repository.SiteSettingRepository;
+
+/**
+ * Uniqueness stress test for GameKeyGenerator: many checkout threads crossing many small blocks
+ * must never see the same counter twice, and only the prefetch thread may touch the counter row.
+ */
+class GameKeyGeneratorTest {
+
+	private static final Pattern KEY_FORMAT = Pattern.compile("[A-Z0-9]{4}(-[A-Z0-9]{4}){3}");
+
+	private final Map<String, SiteSetting> settings = new ConcurrentHashMap<>();
+	private final Set<String> reservingThreads = ConcurrentHashMap.newKeySet();
+
+	private GameKeyGenerator generator;
+	private ExecutorService pool;
+
+	@BeforeEach
+	void setUp() {
+		SiteSettingRepository repository = mock(SiteSettingRepository.class);
+		when(repository.findByKey(anyString()))
+				.thenAnswer(invocation -> Optional.ofNullable(settings.get(invocation.<String>getArgument(0))));
+		when(repository.findByKeyForUpdate(anyString())).thenAnswer(invocation -> {
+			reservingThreads.add(Thread.currentThread().getName());
+			return Optional.ofNullable(settings.get(invocation.<String>getArgument(0)));
+		});
+		when(repository.save(any(SiteSetting.class))).thenAnswer(invocation -> store(invocation.getArgument(0)));
+		when(repository.saveAndFlush(any(SiteSetting.class))).thenAnswer(invocation -> store(invocation.getArgument(0)));
+
+		generator = new GameKeyGenerator();
+		ReflectionTestUtils.setField(generator, "siteSettingRepository", repository);
+		ReflectionTestUtils.setField(generator, "transactionManager", mock(PlatformTransactionManager.class));
+		ReflectionTestUtils.setField(generator, "blockSize", 64L); // many block switches under contention
+		pool = Executors.newFixedThreadPool(8);
+	}
+
+	@AfterEach
+	void tearDown() {
+		pool.shutdownNow();
+		generator.shutdown();
+	}
+
+	@Test
+	void concurrentKeysNeverRepeatAcrossBlocks() throws Exception {
+		int threads = 8;
+		int keysPerThread = 25_000;
+		Set<String> prefixes = ConcurrentHashMap.newKeySet();
+		Set<String> malformed = ConcurrentHashMap.newKeySet();
+
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<?>> futures = new ArrayList<>();
+		for (int t = 0; t < threads; t++) {
+			futures.add(pool.submit(() -> {
+				start.await();
+				for (int i = 0; i < keysPerThread; i++) {
+					String key = generator.nextKey();
+					if (!KEY_FORMAT.matcher(key).matches()) {
+						malformed.add(key);
+					}
+					// the first 12 characters come from the counter permutation and must be unique
+					prefixes.add(key.substring(0, 14));
+				}
+				return null;
+			}));
+		}
+		start.countDown();
+		for (Future<?> f : futures) {
+			f.get(60, TimeUnit.SECONDS);
+		}
+
+		assertTrue(malformed.isEmpty(), "malformed keys: " + malformed);
+		assertEquals(threads * keysPerThread, prefixes.size());
+		assertEquals(Set.of("game-key-prefetch"), reservingThreads);
+	}
+
+	/**
+	 * Millions of keys, kept as base-36 longs and sorted instead of held in a set. Tagged stress:
+	 * run with mvn -Pstress test.
+	 */
+	@Test
+	@Tag("stress")
+	void millionsOfConcurrentKeysNeverRepeat() throws Exception {
+		int threads = 8;
+		int keysPerThread = 500_000;
+		long[][] counters = new long[threads][keysPerThread];
+
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<?>> futures = new ArrayList<>();
+		for (int t = 0; t < threads; t++) {
+			long[] mine = counters[t];
+			futures.add(pool.submit(() -> {
+				start.await();
+				for (int i = 0; i < keysPerThread; i++) {
+					// 12 base-36 digits fit in a long (36^12 < 2^63)
+					mine[i] = Long.parseLong(generator.nextKey().substring(0, 14).replace("-", ""), 36);
+				}
+				return null;
+			}));
+		}
+		start.countDown();
+		for (Future<?> f : futures) {
+			f.get(5, TimeUnit.MINUTES);
+		}
+
+		long[] all = Arrays.stream(counters).flatMapToLong(Arrays::stream).sorted().toArray();
+		for (int i = 1; i < all.length; i++) {
+			if (all[i] == all[i - 1]) {
+				throw new AssertionError("repeated key prefix " + Long.toString(all[i], 36).toUpperCase());
+			}
+		}
+		assertEquals(threads * keysPerThread, all.length);
+		assertEquals(Set.of("game-key-prefetch"), reservingThreads);
+	}
+
+	@Test
+	void firstBlockIsReservedAtStartup() throws Exception {
+		generator.afterSingletonsInstantiated();
+		generator.nextKey();
+
+		assertEquals(Set.of("game-key-prefetch"), reservingThreads);
+		assertEquals("64", settings.get("gameKey.counter").getValue());
+	}
+
+	private SiteSetting store(SiteSetting setting) {
+		settings.put(setting.getKey(), setting);
+		return setting;
+	}
+}
@@ -0,0 +1,151 @@
+package com.ecom.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.GreenMailUtil;
+import com.icegreen.greenmail.util.ServerSetupTest;
+
+import jakarta.mail.internet.AddressException;
+import jakarta.mail.internet.MimeMessage;
+
+/**
+ * MailService against GreenMail's in-process SMTP server, rendering the real templates/mail/*.
+ */
+class MailServiceTest {
+
+	@RegisterExtension
+	static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+
+	private MailService mailService;
+	private Thread worker;
+
+	@BeforeEach
+	void setUp() {
+		JavaMailSenderImpl sender = new JavaMailSenderImpl();
+		sender.setHost(ServerSetupTest.SMTP.getBindAddress());
+		sender.setPort(ServerSetupTest.SMTP.getPort());
+
+		ClassLoaderTemplateResolver resolver = new ClassLoaderTemplateResolver();
+		resolver.setPrefix("templates/");
+		resolver.setSuffix(".html");
+		resolver.setCharacterEncoding("UTF-8");
+		SpringTemplateEngine templateEngine = new SpringTemplateEngine();
+		templateEngine.setTemplateResolver(resolver);
+
+		mailService = new MailService();
+		ReflectionTestUtils.setField(mailService, "mailSender", sender);
+		ReflectionTestUtils.setField(mailService, "templateEngine", templateEngine);
+		ReflectionTestUtils.setField(mailService, "enabled", true);
+		ReflectionTestUtils.setField(mailService, "from", "shop@example.com");
+		ReflectionTestUtils.setField(mailService, "fromName", "Game Store");
+		ReflectionTestUtils.setField(mailService, "queueCapacity", 100);
+		ReflectionTestUtils.setField(mailService, "batchSize", 10);
+		// no worker threads yet: the tests queue first and then drain on one worker, so batching is deterministic
+		ReflectionTestUtils.setField(mailService, "workers", 0);
+		mailService.start();
+	}
+
+	@AfterEach
+	void tearDown() throws InterruptedException {
+		mailService.shutdown();
+		if (worker != null) {
+			worker.join(5_000);
+		}
+	}
+
+	@Test
+	void queuedMessagesGoOutInBatches() throws Exception {
+		List<CompletableFuture<Void>> results = new ArrayList<>();
+		for (int i = 0; i < 25; i++) {
+			results.add(send("user" + i + "@example.com"));
+		}
+
+		startWorker();
+		CompletableFuture.allOf(results.toArray(new CompletableFuture[0])).get(10, TimeUnit.SECONDS);
+
+		assertTrue(greenMail.waitForIncomingEmail(5_000, 25));
+		MimeMessage first = greenMail.getReceivedMessages()[0];
+		assertEquals("Password Reset", first.getSubject());
+		assertTrue(GreenMailUtil.getBody(first).contains("https://shop.example.com/reset-password?token="));
+
+		Map<String, Object> metrics = mailService.getMetrics();
+		assertEquals(25L, metrics.get("sent"));
+		assertEquals(0L, metrics.get("failed"));
+		assertEquals(3L, metrics.get("batches")); // 10 + 10 + 5
+	}
+
+	@Test
+	void aBadMessageFailsAloneAndTheRestOfItsBatchIsDelivered() throws Exception {
+		CompletableFuture<Void> before = send("alice@example.com");
+		CompletableFuture<Void> bad = send("<broken@example.com");
+		CompletableFuture<Void> after = send("bob@example.com");
+
+		startWorker();
+		before.get(10, TimeUnit.SECONDS);
+		after.get(10, TimeUnit.SECONDS);
+
+		ExecutionException error = assertThrows(ExecutionException.class, () -> bad.get(10, TimeUnit.SECONDS));
+		assertInstanceOf(AddressException.class, error.getCause());
+		assertTrue(greenMail.waitForIncomingEmail(5_000, 2));
+		assertEquals(2, greenMail.getReceivedMessages().length);
+		assertEquals(2L, mailService.getMetrics().get("sent"));
+		assertEquals(1L, mailService.getMetrics().get("failed"));
+	}
+
+	@Test
+	void smtpOutageFailsEveryMessageOfTheBatch() throws Exception {
+		greenMail.stop();
+		CompletableFuture<Void> first = send("alice@example.com");
+		CompletableFuture<Void> second = send("bob@example.com");
+
+		startWorker();
+
+		assertThrows(ExecutionException.class, () -> first.get(10, TimeUnit.SECONDS));
+		assertThrows(ExecutionException.class, () -> second.get(10, TimeUnit.SECONDS));
+		assertEquals(0L, mailService.getMetrics().get("sent"));
+		assertEquals(2L, mailService.getMetrics().get("failed"));
+	}
+
+	@Test
+	void fullQueueRejectsImmediately() {
+		ReflectionTestUtils.setField(mailService, "queueCapacity", 1);
+		mailService.start();
+
+		send("alice@example.com");
+		CompletableFuture<Void> rejected = send("bob@example.com");
+
+		assertTrue(rejected.isCompletedExceptionally());
+		assertEquals(1L, mailService.getMetrics().get("rejected"));
+	}
+
+	private CompletableFuture<Void> send(String to) {
+		return mailService.send(to, "Password Reset", "mail/password_reset",
+				Map.of("url", "https://shop.example.com/reset-password?token=" + to.hashCode()));
+	}
+
+	private void startWorker() {
+		worker = new Thread(() -> ReflectionTestUtils.invokeMethod(mailService, "drain"), "mail-sender-test");
+		worker.setDaemon(true);
+		worker.start();
+	}
+}
@@ -0,0 +1,135 @@
+package com.ecom.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.ecom.model.Product;
+import com.ecom.model.ProductSummary;
+import com.ecom.repository.ProductRepository;
+
+class ProductSearchIndexTest {
+
+	private final List<Product> catalog = new ArrayList<>();
+	private ProductSearchIndex index;
+
+	@BeforeEach
+	void setUp() {
+		ProductRepository repository = mock(ProductRepository.class);
+		when(repository.findAll()).thenReturn(catalog);
+		index = new ProductSearchIndex();
+		ReflectionTestUtils.setField(index, "productRepository", repository);
+	}
+
+	@Test
+	void thaiRunsAreSplitIntoDictionaryWords() {
+		assertEquals(List.of("เกม", "แข่ง", "รถ"), ProductSearchIndex.tokenize("เกมแข่งรถ"));
+		assertEquals(List.of("racing", "game", "ภาค", "2"), ProductSearchIndex.tokenize("Racing Game: ภาค 2"));
+		assertEquals(List.of(), ProductSearchIndex.tokenize(" -- "));
+	}
+
+	@Test
+	void thaiWordInsideARunIsFound() {
+		product(1, "สงครามอวกาศ", "Strategy", null);
+		product(2, "เกมแข่งรถ", "Racing", null);
+		index.rebuild();
+
+		assertEquals(List.of(1), ids(search("อวกาศ")));
+		assertEquals(List.of(2), ids(search("รถ")));
+	}
+
+	@Test
+	void prefixMatchesLongerTermsButRanksBelowAnExactMatch() {
+		product(1, "Star Racer", "Racing", null);
+		product(2, "Star Race", "Racing", null);
+		index.rebuild();
+
+		assertEquals(List.of(2, 1), ids(search("race")));
+		assertEquals(List.of(), ids(search("r"))); // single letters are not expanded
+	}
+
+	@Test
+	void everyQueryTermMustMatch() {
+		product(1, "Star Racer", "Racing", null);
+		product(2, "Star Fighter", "Action", null);
+		product(3, "Street Racer", "Racing", null);
+		index.rebuild();
+
+		assertEquals(List.of(1), ids(search("star racer")));
+		assertEquals(List.of(), ids(search("street fighter")));
+	}
+
+	@Test
+	void titleOutranksDescriptionAndRareTermsOutrankCommonOnes() {
+		product(1, "Puzzle Box", "Puzzle", "A dungeon crawler hidden in a puzzle.");
+		product(2, "Dungeon Quest", "RPG", "Classic puzzle elements.");
+		product(3, "Dungeon Keeper", "Strategy", null);
+		index.rebuild();
+
+		// "dungeon": title hits (weight 3) beat the description hit (weight 1)
+		List<Integer> dungeon = ids(search("dungeon"));
+		assertEquals(3, dungeon.size());
+		assertEquals(1, dungeon.get(2));
+		// "keeper" appears once in the catalog, so it decides the order for "dungeon keeper"
+		assertEquals(List.of(3), ids(search("dungeon keeper")));
+	}
+
+	@Test
+	void savedAndDeletedProductsUpdateTheIndex() {
+		product(1, "Star Racer", "Racing", null);
+		index.rebuild();
+
+		Product renamed = product(1, "Galaxy Drift", "Racing", null);
+		index.onProductSaved(renamed); // no transaction: applied right away
+		index.onProductSaved(product(2, "Star Fighter", "Action", null));
+
+		assertEquals(List.of(), ids(search("racer")));
+		assertEquals(List.of(1), ids(search("drift")));
+		assertEquals(List.of(2), ids(search("star")));
+
+		index.onProductDeleted(2);
+
+		assertEquals(List.of(), ids(search("star")));
+		assertEquals(1, index.size());
+	}
+
+	@Test
+	void filterDropsHitsWithoutChangingTheOrder() {
+		product(1, "Star Racer", "Racing", null);
+		product(2, "Star Fighter", "Action", null).setIsActive(false);
+		index.rebuild();
+
+		List<ProductSummary> active = index.search("star", p -> Boolean.TRUE.equals(p.getIsActive()));
+
+		assertEquals(List.of(1), ids(active));
+		assertTrue(index.search("   ", p -> true).isEmpty());
+	}
+
+	private List<ProductSummary> search(String query) {
+		return index.search(query, p -> true);
+	}
+
+	private Product product(int id, String title, String category, String description) {
+		Product product = new Product();
+		product.setId(id);
+		product.setTitle(title);
+		product.setCategory(category);
+		product.setDescription(description);
+		product.setIsActive(true);
+		catalog.removeIf(p -> p.getId() == id);
+		catalog.add(product);
+		return product;
+	}
+
+	private static List<Integer> ids(List<ProductSummary> products) {
+		return products.stream().map(ProductSummary::getId).toList();
+	}
+}
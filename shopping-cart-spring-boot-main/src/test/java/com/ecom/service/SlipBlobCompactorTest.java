@@ -0,0 +1,117 @@
+package com.ecom.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.ecom.model.Transaction;
+import com.ecom.repository.TransactionRepository;
+import com.ecom.service.BlobStore.StoredBlob;
+import com.ecom.service.impl.LocalBlobStore;
+
+/**
+ * SlipBlobCompactor against a LocalBlobStore in a temp directory and an in-memory transactions table.
+ */
+class SlipBlobCompactorTest {
+
+	private static final byte[] JPEG = { (byte) 0xFF, (byte) 0xD8, (byte) 0xFF, (byte) 0xE0, 1 };
+	private static final byte[] OTHER_JPEG = { (byte) 0xFF, (byte) 0xD8, (byte) 0xFF, (byte) 0xE0, 2 };
+
+	@TempDir
+	Path root;
+
+	private final List<Transaction> rows = new ArrayList<>();
+	private LocalBlobStore blobStore;
+	private SlipBlobCompactor compactor;
+
+	@BeforeEach
+	void setUp() {
+		blobStore = new LocalBlobStore();
+		ReflectionTestUtils.setField(blobStore, "root", root.toString());
+
+		TransactionRepository repository = mock(TransactionRepository.class);
+		when(repository.findFailedWithSlipBefore(any(), any())).thenAnswer(invocation -> {
+			LocalDateTime before = invocation.getArgument(0);
+			return rows.stream()
+					.filter(t -> t.getStatus() == Transaction.Status.FAILED && t.getSlipImagePath() != null
+							&& t.getCreatedAt().isBefore(before))
+					.toList();
+		});
+		when(repository.clearSlipImagePath(anyCollection())).thenAnswer(invocation -> {
+			Collection<Long> ids = invocation.getArgument(0);
+			int cleared = 0;
+			for (Transaction t : rows) {
+				if (ids.contains(t.getId())) {
+					t.setSlipImagePath(null);
+					cleared++;
+				}
+			}
+			return cleared;
+		});
+		when(repository.existsBySlipImagePath(anyString()))
+				.thenAnswer(invocation -> rows.stream().anyMatch(t -> invocation.getArgument(0).equals(t.getSlipImagePath())));
+
+		compactor = new SlipBlobCompactor();
+		ReflectionTestUtils.setField(compactor, "transactionRepository", repository);
+		ReflectionTestUtils.setField(compactor, "blobStore", blobStore);
+		ReflectionTestUtils.setField(compactor, "transactionManager", mock(PlatformTransactionManager.class));
+		ReflectionTestUtils.setField(compactor, "retentionDays", 30);
+	}
+
+	@Test
+	void keepsABlobStillReferencedByASuccessfulTopUp() throws Exception {
+		StoredBlob slip = blobStore.put(new ByteArrayInputStream(JPEG));
+		Transaction failed = row(1L, Transaction.Status.FAILED, slip.key(), 40);
+		row(2L, Transaction.Status.SUCCESS, slip.key(), 40); // same slip resubmitted and accepted
+
+		compactor.compact();
+
+		assertNull(failed.getSlipImagePath());
+		assertTrue(Files.exists(root.resolve(BlobStore.shardedPath(slip.key()))));
+	}
+
+	@Test
+	void deletesAnOldFailedSlipNothingElseUses() throws Exception {
+		StoredBlob old = blobStore.put(new ByteArrayInputStream(JPEG));
+		StoredBlob recent = blobStore.put(new ByteArrayInputStream(OTHER_JPEG));
+		row(1L, Transaction.Status.FAILED, old.key(), 40);
+		Transaction young = row(2L, Transaction.Status.FAILED, recent.key(), 5);
+
+		compactor.compact();
+
+		assertFalse(Files.exists(root.resolve(BlobStore.shardedPath(old.key()))));
+		assertTrue(Files.exists(root.resolve(BlobStore.shardedPath(recent.key()))));
+		assertEquals(recent.key(), young.getSlipImagePath());
+	}
+
+	private Transaction row(Long id, Transaction.Status status, String slipKey, int daysOld) {
+		Transaction t = new Transaction();
+		t.setId(id);
+		t.setStatus(status);
+		t.setType(Transaction.Type.TOPUP);
+		t.setSlipImagePath(slipKey);
+		t.setCreatedAt(LocalDateTime.now().minusDays(daysOld));
+		rows.add(t);
+		return t;
+	}
+}
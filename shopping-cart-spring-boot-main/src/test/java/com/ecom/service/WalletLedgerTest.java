@@ -0,0 +1,236 @@
+package com.ecom.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.ecom.model.SiteSetting;
+import com.ecom.model.UserDtls;
+import com.ecom.model.Wallet;
+import com.ecom.repository.SiteSettingRepository;
+import com.ecom.repository.WalletRepository;
+
+/**
+ * Conservation stress test for WalletLedger: concurrent A<->B transfers mixed with purchases and
+ * top-ups must never create or lose money.
+ */
+class WalletLedgerTest {
+
+	private static final long OPENING_MINOR = 100_000; // ฿1,000.00 each
+
+	private WalletLedger ledger;
+	private WalletRepository walletRepository;
+	private SiteSetting cleanShutdown;
+	private UserDtls alice;
+	private UserDtls bob;
+	private ExecutorService pool;
+
+	@BeforeEach
+	void setUp() {
+		walletRepository = mock(WalletRepository.class);
+		when(walletRepository.findByUser(any(UserDtls.class))).thenAnswer(invocation -> {
+			Wallet wallet = new Wallet();
+			wallet.setUser(invocation.getArgument(0));
+			wallet.setBalance(WalletLedger.toBaht(OPENING_MINOR));
+			wallet.setTotalTopup(0.0);
+			return Optional.of(wallet);
+		});
+		ledger = new WalletLedger();
+		ReflectionTestUtils.setField(ledger, "walletRepository", walletRepository);
+		ReflectionTestUtils.setField(ledger, "transactionManager", mock(PlatformTransactionManager.class));
+		cleanShutdown = new SiteSetting("walletLedger.cleanShutdown", "false");
+		SiteSettingRepository siteSettingRepository = mock(SiteSettingRepository.class);
+		when(siteSettingRepository.findByKey(cleanShutdown.getKey())).thenReturn(Optional.of(cleanShutdown));
+		ReflectionTestUtils.setField(ledger, "siteSettingRepository", siteSettingRepository);
+
+		alice = user(1);
+		bob = user(66); // 66 % 64 == 2: a different stripe from alice
+		pool = Executors.newFixedThreadPool(8);
+	}
+
+	@AfterEach
+	void tearDown() {
+		pool.shutdownNow();
+	}
+
+	@Test
+	void concurrentTransfersBothWaysConserveTheTotal() throws Exception {
+		runConcurrently(8, 20_000, () -> {
+			boolean toBob = ThreadLocalRandom.current().nextBoolean();
+			long amount = 1 + ThreadLocalRandom.current().nextLong(5_000);
+			ledger.transfer(toBob ? alice : bob, toBob ? bob : alice, amount);
+		});
+
+		long a = ledger.balanceOf(alice);
+		long b = ledger.balanceOf(bob);
+		assertTrue(a >= 0 && b >= 0, "balances went negative: " + a + ", " + b);
+		assertEquals(2 * OPENING_MINOR, a + b);
+		// each side's staged delta matches its balance change, so the flush writes the same totals
+		assertEquals(a - OPENING_MINOR, pending(alice));
+		assertEquals(b - OPENING_MINOR, pending(bob));
+	}
+
+	@Test
+	void transfersMixedWithPurchasesAndTopUpsConserveTheTotal() throws Exception {
+		AtomicLong debited = new AtomicLong();
+		AtomicLong credited = new AtomicLong();
+
+		runConcurrently(8, 20_000, () -> {
+			ThreadLocalRandom random = ThreadLocalRandom.current();
+			UserDtls who = random.nextBoolean() ? alice : bob;
+			long amount = 1 + random.nextLong(5_000);
+			switch (random.nextInt(3)) {
+			case 0 -> ledger.transfer(who, who == alice ? bob : alice, amount);
+			case 1 -> {
+				if (ledger.debit(who, amount) != WalletLedger.INSUFFICIENT_FUNDS) {
+					debited.addAndGet(amount);
+				}
+			}
+			default -> {
+				ledger.credit(who, amount, true);
+				credited.addAndGet(amount);
+			}
+			}
+		});
+
+		long a = ledger.balanceOf(alice);
+		long b = ledger.balanceOf(bob);
+		assertTrue(a >= 0 && b >= 0, "balances went negative: " + a + ", " + b);
+		assertEquals(2 * OPENING_MINOR + credited.get() - debited.get(), a + b);
+		assertEquals(credited.get(), ledger.totalTopupOf(alice) + ledger.totalTopupOf(bob));
+		// every committed change is staged for the write-behind flush exactly once
+		assertEquals(credited.get() - debited.get(), pending(alice) + pending(bob));
+	}
+
+	@Test
+	void rolledBackTransferRestoresBothSides() {
+		TransactionSynchronizationManager.initSynchronization();
+		try {
+			assertNotNull(ledger.transfer(alice, bob, 2_500));
+			assertEquals(OPENING_MINOR - 2_500, ledger.balanceOf(alice));
+			assertEquals(OPENING_MINOR + 2_500, ledger.balanceOf(bob));
+
+			for (TransactionSynchronization sync : TransactionSynchronizationManager.getSynchronizations()) {
+				sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+			}
+		} finally {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+
+		assertEquals(OPENING_MINOR, ledger.balanceOf(alice));
+		assertEquals(OPENING_MINOR, ledger.balanceOf(bob));
+		assertEquals(0, pending(alice) + pending(bob));
+	}
+
+	@Test
+	void receiverCannotSpendAnUncommittedTransfer() {
+		TransactionSynchronizationManager.initSynchronization();
+		try {
+			assertNotNull(ledger.transfer(alice, bob, 2_500));
+			// bob shows the incoming amount but can only spend his opening balance until commit
+			assertEquals(WalletLedger.INSUFFICIENT_FUNDS, ledger.debit(bob, OPENING_MINOR + 1));
+
+			for (TransactionSynchronization sync : TransactionSynchronizationManager.getSynchronizations()) {
+				sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+			}
+		} finally {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+
+		assertEquals(0, ledger.debit(bob, OPENING_MINOR + 2_500));
+	}
+
+	@Test
+	void shutdownMarksCleanAfterTheFinalFlushDrainsEverything() {
+		ledger.credit(alice, 2_500, true);
+
+		ledger.shutdown();
+
+		assertEquals(0, pending(alice));
+		assertEquals("true", cleanShutdown.getValue());
+	}
+
+	@Test
+	void failedFinalFlushLeavesTheMarkerFalse() {
+		when(walletRepository.applyDelta(anyInt(), anyDouble(), anyDouble(), any())).thenThrow(new QueryTimeoutException("down"));
+		ledger.credit(alice, 2_500, true);
+
+		ledger.shutdown();
+
+		assertEquals(2_500, pending(alice)); // put back for a flush that will never come
+		assertEquals("false", cleanShutdown.getValue());
+	}
+
+	@Test
+	void openTransactionAtShutdownLeavesTheMarkerFalse() {
+		TransactionSynchronizationManager.initSynchronization();
+		try {
+			ledger.credit(alice, 2_500, true);
+
+			ledger.shutdown();
+		} finally {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+
+		assertEquals("false", cleanShutdown.getValue());
+	}
+
+	private void runConcurrently(int threads, int opsPerThread, Runnable op) throws Exception {
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<?>> futures = new ArrayList<>();
+		for (int t = 0; t < threads; t++) {
+			futures.add(pool.submit(() -> {
+				start.await();
+				for (int i = 0; i < opsPerThread; i++) {
+					op.run();
+				}
+				return null;
+			}));
+		}
+		start.countDown();
+		for (Future<?> f : futures) {
+			f.get(60, TimeUnit.SECONDS);
+		}
+	}
+
+	/** committed deltas waiting for the next flush */
+	private long pending(UserDtls user) {
+		Object[] stripes = (Object[]) ReflectionTestUtils.getField(ledger, "stripes");
+		Object stripe = stripes[Math.floorMod(user.getId(), stripes.length)];
+		Map<?, ?> accounts = (Map<?, ?>) ReflectionTestUtils.getField(stripe, "accounts");
+		Object account = accounts.get(user.getId());
+		return account == null ? 0 : ((AtomicLong) ReflectionTestUtils.getField(account, "pendingBalance")).get();
+	}
+
+	private static UserDtls user(int id) {
+		UserDtls user = new UserDtls();
+		user.setId(id);
+		return user;
+	}
+}
@@ -0,0 +1,104 @@
+package com.ecom.service.impl;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.ecom.service.BlobStore;
+import com.ecom.service.BlobStore.StoredBlob;
+
+class LocalBlobStoreTest {
+
+	static final byte[] JPEG = { (byte) 0xFF, (byte) 0xD8, (byte) 0xFF, (byte) 0xE0, 0, 0x10, 'J', 'F', 'I', 'F', 0, 1 };
+	static final byte[] PNG = { (byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n', 0, 0, 0, 0x0D };
+
+	@TempDir
+	Path root;
+
+	private LocalBlobStore store;
+
+	@BeforeEach
+	void setUp() {
+		store = new LocalBlobStore();
+		ReflectionTestUtils.setField(store, "root", root.toString());
+	}
+
+	@Test
+	void repeatedPutIsStoredOnce() throws IOException {
+		StoredBlob first = store.put(stream(JPEG));
+		StoredBlob second = store.put(stream(JPEG));
+
+		assertFalse(first.duplicate());
+		assertTrue(second.duplicate());
+		assertEquals(first.key(), second.key());
+		assertEquals(JPEG.length, second.size());
+		assertEquals(1, storedFiles());
+	}
+
+	@Test
+	void blobIsShardedByTheFirstFourHexDigits() throws IOException {
+		StoredBlob blob = store.put(stream(JPEG));
+
+		String sha = blob.sha256();
+		assertEquals(sha + ".jpg", blob.key());
+		assertTrue(Files.exists(root.resolve(sha.substring(0, 2)).resolve(sha.substring(2, 4)).resolve(blob.key())));
+		try (Stream<Path> leftovers = Files.list(root.resolve("tmp"))) {
+			assertEquals(0, leftovers.count()); // the upload was moved, not copied
+		}
+	}
+
+	@Test
+	void extensionComesFromMagicBytes() throws IOException {
+		byte[] gif = "GIF89a......".getBytes();
+		byte[] webp = "RIFF\0\0\0\0WEBPVP8 ".getBytes();
+
+		assertTrue(store.put(stream(JPEG)).key().endsWith(".jpg"));
+		assertTrue(store.put(stream(PNG)).key().endsWith(".png"));
+		assertTrue(store.put(stream(gif)).key().endsWith(".gif"));
+		assertTrue(store.put(stream(webp)).key().endsWith(".webp"));
+		assertTrue(store.put(stream("%PDF-1.7".getBytes())).key().endsWith(".bin"));
+	}
+
+	@Test
+	void openReturnsTheStoredBytes() throws IOException {
+		StoredBlob blob = store.put(stream(PNG));
+
+		try (InputStream in = store.open(blob.key()).getInputStream()) {
+			assertArrayEquals(PNG, in.readAllBytes());
+		}
+	}
+
+	@Test
+	void openOfAMissingKeyThrowsNoSuchFile() throws IOException {
+		StoredBlob blob = store.put(stream(PNG));
+		store.delete(blob.key());
+
+		assertThrows(NoSuchFileException.class, () -> store.open(blob.key()));
+		assertThrows(IllegalArgumentException.class, () -> store.open("../../etc/passwd"));
+	}
+
+	private long storedFiles() throws IOException {
+		try (Stream<Path> files = Files.walk(root)) {
+			return files.filter(Files::isRegularFile).filter(p -> BlobStore.isKey(p.getFileName().toString())).count();
+		}
+	}
+
+	static InputStream stream(byte[] bytes) {
+		return new ByteArrayInputStream(bytes);
+	}
+}
@@ -0,0 +1,79 @@
+package com.ecom.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+class TtlCacheTest {
+
+	private final AtomicInteger loads = new AtomicInteger();
+
+	private String load(Integer key) {
+		return key + "#" + loads.incrementAndGet();
+	}
+
+	@Test
+	void servesTheCachedValueUntilItExpires() throws Exception {
+		TtlCache<Integer, String> cache = new TtlCache<>(10, () -> 50);
+
+		assertEquals("1#1", cache.get(1, this::load));
+		assertEquals("1#1", cache.get(1, this::load));
+		Thread.sleep(80);
+		assertEquals("1#2", cache.get(1, this::load));
+		assertEquals(1, cache.hits());
+		assertEquals(2, cache.misses());
+	}
+
+	@Test
+	void nullIsNotCached() {
+		TtlCache<Integer, String> cache = new TtlCache<>(10, () -> 60_000);
+
+		assertNull(cache.get(1, key -> null));
+		assertEquals(0, cache.size());
+	}
+
+	@Test
+	void updateChangesOnlyCachedKeys() {
+		TtlCache<Integer, Long> cache = new TtlCache<>(10, () -> 60_000);
+		cache.put(1, 5L);
+
+		assertEquals(6L, cache.update(1, count -> count + 1));
+		assertNull(cache.update(2, count -> count + 1));
+		assertEquals(1, cache.size());
+	}
+
+	@Test
+	void fullCacheMakesRoom() {
+		TtlCache<Integer, String> cache = new TtlCache<>(3, () -> 60_000);
+		for (int i = 0; i < 10; i++) {
+			cache.get(i, this::load);
+		}
+
+		assertTrue(cache.size() <= 3);
+	}
+
+	@Test
+	void invalidateDropsTheKeyAgainAfterCommit() {
+		TtlCache<Integer, String> cache = new TtlCache<>(10, () -> 60_000);
+		cache.get(1, this::load);
+
+		TransactionSynchronizationManager.initSynchronization();
+		try {
+			cache.invalidate(1);
+			cache.get(1, this::load); // a concurrent reader caches the pre-commit row
+			for (TransactionSynchronization sync : TransactionSynchronizationManager.getSynchronizations()) {
+				sync.afterCommit();
+			}
+		} finally {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+
+		assertEquals(0, cache.size());
+	}
+}